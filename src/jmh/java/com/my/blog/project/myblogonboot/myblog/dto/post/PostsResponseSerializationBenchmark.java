@@ -0,0 +1,85 @@
+package com.my.blog.project.myblogonboot.myblog.dto.post;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.ObjectReader;
+import tools.jackson.databind.ObjectWriter;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.dataformat.cbor.CBORMapper;
+import tools.jackson.dataformat.smile.SmileMapper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// A feed page in each encoding offered through content negotiation, mappers built the way JacksonConfig builds them
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PostsResponseSerializationBenchmark {
+
+    @Param({"json", "cbor", "smile"})
+    public String format;
+
+    // A feed page: 20 is the default page size, 100 the maximum
+    @Param({"20", "100"})
+    public int pageSize;
+
+    private ObjectWriter writer;
+    private ObjectReader reader;
+    private PostsResponse page;
+    private byte[] encoded;
+
+    // Reported next to the time as serialize:bytes, the encoded size of the page
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class EncodedSize {
+        public long bytes;
+    }
+
+    @Setup
+    public void setUp() {
+        ObjectMapper mapper = switch (format) {
+            case "cbor" -> CBORMapper.builder().findAndAddModules().build();
+            case "smile" -> SmileMapper.builder().findAndAddModules().build();
+            default -> JsonMapper.builder().findAndAddModules().build();
+        };
+        writer = mapper.writerFor(PostsResponse.class);
+        reader = mapper.readerFor(PostsResponse.class);
+        List<PostResponse> posts = new ArrayList<>();
+        for (int i = 0; i < pageSize; i++) {
+            boolean hasImage = i % 3 == 0;
+            posts.add(new PostResponse(i, "A post title of usual length " + i, "Text ".repeat(200),
+                    List.of("java", "spring", "jdbc"), i * 7, i % 5, hasImage,
+                    hasImage ? "image/png" : null, hasImage ? 48_213L : null));
+        }
+        page = new PostsResponse(posts, true, true, 42);
+        encoded = writer.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public byte[] serialize(EncodedSize size) {
+        byte[] bytes = writer.writeValueAsBytes(page);
+        size.bytes = bytes.length;
+        return bytes;
+    }
+
+    @Benchmark
+    public PostsResponse deserialize() {
+        return reader.readValue(encoded);
+    }
+}
@@ -0,0 +1,81 @@
+package com.my.blog.project.myblogonboot.myblog.mapper;
+
+import com.my.blog.project.myblogonboot.myblog.dto.comment.CommentResponse;
+import com.my.blog.project.myblogonboot.myblog.dto.post.PostResponse;
+import com.my.blog.project.myblogonboot.myblog.entity.Comment;
+import com.my.blog.project.myblogonboot.myblog.entity.Post;
+import com.my.blog.project.myblogonboot.myblog.entity.PostImage;
+import com.my.blog.project.myblogonboot.myblog.entity.Tag;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+// The MapStruct implementations are plain classes, no Spring context needed
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapperBenchmark {
+
+    @Param({"0", "5", "20"})
+    public int tags;
+
+    @Param({"10", "100"})
+    public int comments;
+
+    private final PostMapper postMapper = new PostMapperImpl();
+    private final CommentMapper commentMapper = new CommentMapperImpl();
+
+    private Post post;
+    private Set<Tag> tagSet;
+    private List<Comment> commentList;
+
+    @Setup
+    public void setUp() {
+        tagSet = new HashSet<>();
+        for (int i = 0; i < tags; i++) {
+            tagSet.add(new Tag((long) i, "tag" + i));
+        }
+        PostImage image = new PostImage();
+        image.setPostId(1L);
+        image.setContentType("image/png");
+        image.setSizeBytes(48_213L);
+        post = new Post(1L, "A post title of usual length", "Text ".repeat(200), tagSet, 12, 3, image);
+
+        commentList = new ArrayList<>();
+        for (int i = 0; i < comments; i++) {
+            commentList.add(new Comment((long) i, 1L, "Comment number " + i));
+        }
+    }
+
+    @Benchmark
+    public PostResponse postToDto() {
+        return postMapper.toDto(post);
+    }
+
+    @Benchmark
+    public List<String> mapTags() {
+        return postMapper.map(tagSet);
+    }
+
+    @Benchmark
+    public List<CommentResponse> commentsToDtoList() {
+        return commentMapper.toDtoList(commentList);
+    }
+}
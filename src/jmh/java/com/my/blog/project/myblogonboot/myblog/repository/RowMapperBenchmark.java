@@ -0,0 +1,63 @@
+package com.my.blog.project.myblogonboot.myblog.repository;
+
+import com.my.blog.project.myblogonboot.myblog.entity.Post;
+import com.my.blog.project.myblogonboot.myblog.entity.Tag;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RowMapperBenchmark {
+
+    // The mappers do not touch the template
+    private final PostRepository repository = new PostRepository(null);
+
+    private final ResultSet postRow = StubResultSet.of(postColumns(null));
+    private final ResultSet postWithImageRow = StubResultSet.of(postColumns("9f86d081884c7d659a2feaa0c55ad015"));
+    private final ResultSet tagRow = StubResultSet.of(Map.of("id", 7L, "name", "spring"));
+
+    @Benchmark
+    public Post post() throws SQLException {
+        return repository.postRowMapper.mapRow(postRow, 0);
+    }
+
+    @Benchmark
+    public Post postWithImage() throws SQLException {
+        return repository.postRowMapper.mapRow(postWithImageRow, 0);
+    }
+
+    @Benchmark
+    public Tag tag() throws SQLException {
+        return repository.tagRowMapper.mapRow(tagRow, 0);
+    }
+
+    private static Map<String, Object> postColumns(String imageHash) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("id", 1L);
+        row.put("title", "A post title of usual length");
+        row.put("text", "Text ".repeat(200));
+        row.put("likes_count", 12);
+        row.put("comments_count", 3);
+        row.put("image_hash", imageHash);
+        row.put("image_content_type", imageHash != null ? "image/png" : null);
+        row.put("image_size_bytes", imageHash != null ? 48_213L : null);
+        return row;
+    }
+}
@@ -0,0 +1,29 @@
+package com.my.blog.project.myblogonboot.myblog.repository;
+
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.util.Map;
+
+// A ResultSet over a single row held in a map. Only the getters the row mappers call are answered, a mocking library
+// would add more overhead per call than the mapper itself has
+final class StubResultSet {
+
+    private StubResultSet() {
+    }
+
+    static ResultSet of(Map<String, Object> row) {
+        return (ResultSet) Proxy.newProxyInstance(StubResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                (proxy, method, args) -> {
+                    Object value = args != null && args.length == 1 && args[0] instanceof String column
+                            ? row.get(column)
+                            : null;
+                    return switch (method.getName()) {
+                        case "getLong" -> value == null ? 0L : ((Number) value).longValue();
+                        case "getInt" -> value == null ? 0 : ((Number) value).intValue();
+                        case "getString" -> (String) value;
+                        case "wasNull" -> false;
+                        default -> throw new UnsupportedOperationException(method.getName());
+                    };
+                });
+    }
+}
@@ -0,0 +1,34 @@
+package com.my.blog.project.myblogonboot.myblog.service;
+
+import com.my.blog.project.myblogonboot.myblog.dto.search.SearchQuery;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SearchQueryBuilderBenchmark {
+
+    @Param({"", "spring boot", "#java", "spring  boot   #java #Spring #jdbc"})
+    public String searchRequest;
+
+    private final SearchQueryBuilder queryBuilder = new SearchQueryBuilder();
+
+    @Benchmark
+    public SearchQuery buildSearchQuery() {
+        return queryBuilder.buildSearchQuery(searchRequest);
+    }
+}
@@ -0,0 +1,74 @@
+package com.my.blog.project.myblogonboot.myblog.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Caps how many requests of one kind run at once. Excess requests wait up to maxWait for a permit and are then
+// turned away with 503, instead of piling up on the connection pool behind it
+@Slf4j
+public class ConcurrencyLimitInterceptor implements HandlerInterceptor {
+
+    private final String name;
+    private final int maxConcurrent;
+    private final Duration maxWait;
+    private final String permitAttribute;
+    private final Semaphore permits;
+    private final LongAdder rejected = new LongAdder();
+
+    public ConcurrencyLimitInterceptor(String name, int maxConcurrent, Duration maxWait) {
+        this.name = name;
+        this.maxConcurrent = maxConcurrent;
+        this.maxWait = maxWait;
+        this.permitAttribute = ConcurrencyLimitInterceptor.class.getName() + "." + name;
+        this.permits = new Semaphore(maxConcurrent, true);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (acquire()) {
+            request.setAttribute(permitAttribute, Boolean.TRUE);
+            return true;
+        }
+        rejected.increment();
+        log.warn("Rejected {} {}, {} limit of {} concurrent requests reached", request.getMethod(),
+                request.getRequestURI(), name, maxConcurrent);
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, maxWait.toSeconds())));
+        return false;
+    }
+
+    // Also called for the dispatch that failed, the attribute makes sure only a held permit is given back
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (request.getAttribute(permitAttribute) != null) {
+            request.removeAttribute(permitAttribute);
+            permits.release();
+        }
+    }
+
+    public LimitStats getStats() {
+        return new LimitStats(name, maxConcurrent, maxConcurrent - permits.availablePermits(), permits.getQueueLength(),
+                rejected.sum());
+    }
+
+    private boolean acquire() {
+        try {
+            return permits.tryAcquire(maxWait.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    public record LimitStats(String name, int maxConcurrent, int inFlight, int waiting, long rejected) {
+    }
+}
@@ -0,0 +1,80 @@
+package com.my.blog.project.myblogonboot.myblog.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+// Bulkhead between the two workloads: image bytes move through their own pool, so a burst of uploads or
+// downloads can only exhaust that pool while post, comment and tag queries keep their connections
+public class ConnectionPools implements AutoCloseable {
+
+    private final DataSource primary;
+    private final DataSource metadataDataSource;
+    private final HikariDataSource blobPool;
+    private final DataSource blobDataSource;
+
+    // Without a blob pool both workloads share the primary one, as they did before. The DataSources handed out may
+    // wrap the pools, the pools themselves are kept for their stats
+    public ConnectionPools(DataSource primary, DataSource metadataDataSource, HikariDataSource blobPool,
+                           DataSource blobDataSource) {
+        this.primary = primary;
+        this.metadataDataSource = metadataDataSource;
+        this.blobPool = blobPool;
+        this.blobDataSource = blobDataSource;
+    }
+
+    public DataSource getMetadataDataSource() {
+        return metadataDataSource;
+    }
+
+    public DataSource getBlobDataSource() {
+        return blobPool != null ? blobDataSource : metadataDataSource;
+    }
+
+    public List<PoolStats> getStats() {
+        List<PoolStats> stats = new ArrayList<>();
+        stats.add(stats("metadata", unwrap(primary)));
+        if (blobPool != null) {
+            stats.add(stats("blob", blobPool));
+        }
+        return stats;
+    }
+
+    @Override
+    public void close() {
+        if (blobPool != null) {
+            blobPool.close();
+        }
+    }
+
+    private PoolStats stats(String name, HikariDataSource pool) {
+        if (pool == null) {
+            return new PoolStats(name, 0, 0, 0, 0, 0, 0);
+        }
+        int maxSize = pool.getMaximumPoolSize();
+        HikariPoolMXBean bean = pool.getHikariPoolMXBean();
+        if (bean == null) {
+            // Hikari starts lazily, nothing has borrowed a connection yet
+            return new PoolStats(name, maxSize, 0, 0, 0, 0, 0);
+        }
+        int active = bean.getActiveConnections();
+        return new PoolStats(name, maxSize, active, bean.getIdleConnections(), bean.getTotalConnections(),
+                bean.getThreadsAwaitingConnection(), maxSize == 0 ? 0 : (double) active / maxSize);
+    }
+
+    private HikariDataSource unwrap(DataSource dataSource) {
+        try {
+            return dataSource.isWrapperFor(HikariDataSource.class) ? dataSource.unwrap(HikariDataSource.class) : null;
+        } catch (SQLException e) {
+            return null;
+        }
+    }
+
+    // Waiting > 0 means the pool is saturated, requests are queueing for a connection
+    public record PoolStats(String name, int maxSize, int active, int idle, int total, int waiting, double utilization) {
+    }
+}
@@ -0,0 +1,111 @@
+package com.my.blog.project.myblogonboot.myblog.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.jdbc.autoconfigure.JdbcConnectionDetails;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcTransactionManager;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+
+// The DataSource bean stays Boot's pool (Liquibase uses it directly), templates and transaction managers are defined
+// here since there are two of each
+@Configuration(proxyBeanMethods = false)
+public class DataSourceConfig {
+
+    public static final String BLOB_JDBC_TEMPLATE = "blobJdbcTemplate";
+    public static final String BLOB_TRANSACTION_MANAGER = "blobTransactionManager";
+
+    @Bean
+    public QueryStats queryStats(@Value("${jdbc.statements.max-fingerprints:500}") int maxFingerprints) {
+        return new QueryStats(maxFingerprints);
+    }
+
+    @Bean
+    public SlowQueryLog slowQueryLog(@Value("${jdbc.statements.slow-threshold:PT0.2S}") Duration threshold) {
+        return new SlowQueryLog(threshold);
+    }
+
+    @Bean
+    public RequestQueryCounter requestQueryCounter() {
+        return new RequestQueryCounter();
+    }
+
+    @Bean
+    public ConnectionPools connectionPools(DataSource dataSource,
+                                           ObjectProvider<ReplicaRouter> replicaRouter,
+                                           JdbcConnectionDetails connectionDetails,
+                                           ObjectProvider<MeterRegistry> meterRegistry,
+                                           ObjectProvider<StatementListener> statementListeners,
+                                           @Value("${jdbc.statements.enabled:true}") boolean timeStatements,
+                                           @Value("${datasource.blob.enabled:true}") boolean blobPoolEnabled,
+                                           @Value("${datasource.blob.pool-size:4}") int blobPoolSize,
+                                           @Value("${datasource.blob.connection-timeout:PT10S}") Duration blobConnectionTimeout) {
+        ReplicaRouter router = replicaRouter.getIfAvailable();
+        List<StatementListener> listeners = timeStatements ? statementListeners.orderedStream().toList() : List.of();
+        DataSource metadataDataSource = timed(router != null ? router.getDataSource() : dataSource, listeners);
+        if (!blobPoolEnabled) {
+            return new ConnectionPools(dataSource, metadataDataSource, null, null);
+        }
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("blob");
+        config.setJdbcUrl(connectionDetails.getJdbcUrl());
+        config.setUsername(connectionDetails.getUsername());
+        config.setPassword(connectionDetails.getPassword());
+        config.setDriverClassName(connectionDetails.getDriverClassName());
+        config.setMaximumPoolSize(blobPoolSize);
+        config.setConnectionTimeout(blobConnectionTimeout.toMillis());
+        inheritDriverProperties(dataSource, config);
+        // Not a bean, so Boot's pool metrics do not pick it up on their own
+        meterRegistry.ifAvailable(registry -> config.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry)));
+        HikariDataSource blobPool = new HikariDataSource(config);
+        // Read-only blob transactions (downloads by hash) are routed to the replicas' blob pools like metadata reads
+        DataSource blobDataSource = router != null ? router.getBlobDataSource(blobPool) : blobPool;
+        return new ConnectionPools(dataSource, metadataDataSource, blobPool, timed(blobDataSource, listeners));
+    }
+
+    @Bean
+    @Primary
+    public JdbcTemplate jdbcTemplate(ConnectionPools connectionPools) {
+        return new JdbcTemplate(connectionPools.getMetadataDataSource());
+    }
+
+    // Template and transaction manager of a pair have to share the DataSource instance, that is what ties statements
+    // to the surrounding transaction
+    @Bean
+    @Primary
+    public JdbcTransactionManager transactionManager(ConnectionPools connectionPools) {
+        return new JdbcTransactionManager(connectionPools.getMetadataDataSource());
+    }
+
+    @Bean(BLOB_JDBC_TEMPLATE)
+    public JdbcTemplate blobJdbcTemplate(ConnectionPools connectionPools) {
+        return new JdbcTemplate(connectionPools.getBlobDataSource());
+    }
+
+    @Bean(BLOB_TRANSACTION_MANAGER)
+    public JdbcTransactionManager blobTransactionManager(ConnectionPools connectionPools) {
+        return new JdbcTransactionManager(connectionPools.getBlobDataSource());
+    }
+
+    // Driver settings (statement caching and the like) are configured once under spring.datasource.hikari and apply
+    // to every pool built by hand
+    static void inheritDriverProperties(DataSource dataSource, HikariConfig config) {
+        if (dataSource instanceof HikariDataSource main) {
+            main.getDataSourceProperties().forEach((key, value) -> config.addDataSourceProperty((String) key, value));
+        }
+    }
+
+    private DataSource timed(DataSource dataSource, List<StatementListener> listeners) {
+        return listeners.isEmpty() ? dataSource : new StatementTimingDataSource(dataSource, listeners);
+    }
+}
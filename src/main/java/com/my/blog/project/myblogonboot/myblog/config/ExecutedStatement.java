@@ -0,0 +1,11 @@
+package com.my.blog.project.myblogonboot.myblog.config;
+
+import java.time.Instant;
+import java.util.List;
+
+// rows is the update count for writes and the number of rows read for queries.
+// parameterTypes holds the shape of each bind parameter (type and size), never its value.
+// startedAt is the wall clock time of the first execute, listeners run when the statement is closed
+public record ExecutedStatement(String sql, long durationNanos, long rows, String caller, List<String> parameterTypes,
+                                Instant startedAt) {
+}
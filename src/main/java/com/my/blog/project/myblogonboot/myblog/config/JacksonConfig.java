@@ -0,0 +1,22 @@
+package com.my.blog.project.myblogonboot.myblog.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import tools.jackson.dataformat.cbor.CBORMapper;
+import tools.jackson.dataformat.smile.SmileMapper;
+
+// The binary formats for both web stacks, with the same module discovery as the JSON mapper so a type renders alike
+// in every encoding
+@Configuration(proxyBeanMethods = false)
+public class JacksonConfig {
+
+    @Bean
+    public CBORMapper cborMapper() {
+        return CBORMapper.builder().findAndAddModules().build();
+    }
+
+    @Bean
+    public SmileMapper smileMapper() {
+        return SmileMapper.builder().findAndAddModules().build();
+    }
+}
@@ -0,0 +1,72 @@
+package com.my.blog.project.myblogonboot.myblog.config;
+
+import com.my.blog.project.myblogonboot.myblog.service.ImageCache;
+import com.my.blog.project.myblogonboot.myblog.service.PostResponseCache;
+import com.my.blog.project.myblogonboot.myblog.service.SingleFlight;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// Gauges over state the application already tracks, Boot registers every MeterBinder bean on startup
+@Configuration(proxyBeanMethods = false)
+public class MetricsConfig {
+
+    @Bean
+    public MeterBinder imageCacheMetrics(ImageCache imageCache) {
+        return registry -> {
+            FunctionCounter.builder("blog.image.cache.hits", imageCache, ImageCache::hitCount).register(registry);
+            FunctionCounter.builder("blog.image.cache.misses", imageCache, ImageCache::missCount).register(registry);
+            Gauge.builder("blog.image.cache.size", imageCache, ImageCache::usedBytes)
+                    .baseUnit("bytes")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder postResponseCacheMetrics(PostResponseCache postResponseCache) {
+        return registry -> {
+            FunctionCounter.builder("blog.post.cache.hits", postResponseCache, PostResponseCache::hitCount)
+                    .register(registry);
+            FunctionCounter.builder("blog.post.cache.misses", postResponseCache, PostResponseCache::missCount)
+                    .register(registry);
+            Gauge.builder("blog.post.cache.size", postResponseCache, PostResponseCache::usedBytes)
+                    .baseUnit("bytes")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder singleFlightMetrics(SingleFlight singleFlight) {
+        return registry -> {
+            FunctionCounter.builder("blog.single-flight", singleFlight, SingleFlight::leaderCount)
+                    .tag("result", "fetched")
+                    .register(registry);
+            FunctionCounter.builder("blog.single-flight", singleFlight, SingleFlight::sharedCount)
+                    .tag("result", "shared")
+                    .register(registry);
+            FunctionCounter.builder("blog.single-flight", singleFlight, SingleFlight::timeoutCount)
+                    .tag("result", "timed-out")
+                    .register(registry);
+        };
+    }
+
+    // The limiters only exist on the servlet stack
+    @Bean
+    public MeterBinder requestLimitMetrics(ObjectProvider<ConcurrencyLimitInterceptor> requestLimiters) {
+        return registry -> requestLimiters.orderedStream().forEach(limiter -> {
+            String name = limiter.getStats().name();
+            Gauge.builder("blog.requests.in-flight", limiter, l -> l.getStats().inFlight())
+                    .tag("limit", name)
+                    .register(registry);
+            Gauge.builder("blog.requests.waiting", limiter, l -> l.getStats().waiting())
+                    .tag("limit", name)
+                    .register(registry);
+            FunctionCounter.builder("blog.requests.rejected", limiter, l -> l.getStats().rejected())
+                    .tag("limit", name)
+                    .register(registry);
+        });
+    }
+}
@@ -0,0 +1,84 @@
+package com.my.blog.project.myblogonboot.myblog.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Locale;
+
+// Dev/test aid: reports how many statements a request ran and how long they took in X-Query-Count and X-Query-Time
+@Component
+@Profile("!reactive")
+@ConditionalOnProperty(name = "jdbc.statements.request-header", havingValue = "true")
+public class QueryCountFilter extends OncePerRequestFilter {
+
+    public static final String QUERY_COUNT_HEADER = "X-Query-Count";
+    public static final String QUERY_TIME_HEADER = "X-Query-Time";
+
+    private final RequestQueryCounter queryCounter;
+
+    public QueryCountFilter(RequestQueryCounter queryCounter) {
+        this.queryCounter = queryCounter;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        try (RequestQueryCounter.Scope scope = queryCounter.open()) {
+            CountingResponse countingResponse = new CountingResponse(response, scope);
+            filterChain.doFilter(request, countingResponse);
+            // Responses without a body never asked for the output stream
+            if (!response.isCommitted()) {
+                countingResponse.writeHeaders();
+            }
+        }
+    }
+
+    // Headers have to go out before the body, by then the handler has run all of its queries
+    private static final class CountingResponse extends HttpServletResponseWrapper {
+
+        private final RequestQueryCounter.Scope scope;
+        private boolean headersWritten;
+
+        CountingResponse(HttpServletResponse response, RequestQueryCounter.Scope scope) {
+            super(response);
+            this.scope = scope;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            writeHeaders();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            writeHeaders();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            writeHeaders();
+            super.flushBuffer();
+        }
+
+        void writeHeaders() {
+            if (headersWritten) {
+                return;
+            }
+            headersWritten = true;
+            setHeader(QUERY_COUNT_HEADER, String.valueOf(scope.statements()));
+            setHeader(QUERY_TIME_HEADER, String.format(Locale.ROOT, "%.3f", scope.durationNanos() / 1_000_000.0));
+        }
+    }
+}
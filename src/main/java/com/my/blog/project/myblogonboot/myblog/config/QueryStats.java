@@ -0,0 +1,104 @@
+package com.my.blog.project.myblogonboot.myblog.config;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Aggregates executed statements per fingerprint, the admin endpoint reads the top entries from here
+public class QueryStats implements StatementListener {
+
+    static final String OVERFLOW_FINGERPRINT = "<other>";
+
+    private final int maxFingerprints;
+    private final Map<String, String> fingerprints = new ConcurrentHashMap<>();
+    private final Map<String, Aggregate> aggregates = new ConcurrentHashMap<>();
+
+    public QueryStats(int maxFingerprints) {
+        this.maxFingerprints = maxFingerprints;
+    }
+
+    @Override
+    public void onStatement(ExecutedStatement statement) {
+        aggregateFor(fingerprintOf(statement.sql())).add(statement);
+    }
+
+    public List<QueryStat> top(int limit, Order order) {
+        return aggregates.entrySet().stream()
+                .map(entry -> entry.getValue().toStat(entry.getKey()))
+                .sorted(order.comparator.reversed())
+                .limit(limit)
+                .toList();
+    }
+
+    public void reset() {
+        aggregates.clear();
+    }
+
+    private String fingerprintOf(String sql) {
+        String fingerprint = fingerprints.get(sql);
+        if (fingerprint != null) {
+            return fingerprint;
+        }
+        fingerprint = SqlFingerprint.of(sql);
+        // SQL with inlined literals would grow the cache forever, only remember it while there is room
+        if (fingerprints.size() < maxFingerprints * 4) {
+            fingerprints.put(sql, fingerprint);
+        }
+        return fingerprint;
+    }
+
+    private Aggregate aggregateFor(String fingerprint) {
+        Aggregate aggregate = aggregates.get(fingerprint);
+        if (aggregate != null) {
+            return aggregate;
+        }
+        if (aggregates.size() >= maxFingerprints) {
+            return aggregates.computeIfAbsent(OVERFLOW_FINGERPRINT, key -> new Aggregate());
+        }
+        return aggregates.computeIfAbsent(fingerprint, key -> new Aggregate());
+    }
+
+    public enum Order {
+        TOTAL(Comparator.comparingDouble(QueryStat::totalMillis)),
+        MEAN(Comparator.comparingDouble(QueryStat::meanMillis)),
+        MAX(Comparator.comparingDouble(QueryStat::maxMillis)),
+        CALLS(Comparator.comparingLong(QueryStat::calls));
+
+        private final Comparator<QueryStat> comparator;
+
+        Order(Comparator<QueryStat> comparator) {
+            this.comparator = comparator;
+        }
+    }
+
+    public record QueryStat(String fingerprint, String caller, long calls, long rows, double totalMillis,
+                            double meanMillis, double maxMillis) {
+    }
+
+    private static final class Aggregate {
+
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private volatile String caller;
+
+        void add(ExecutedStatement statement) {
+            calls.increment();
+            rows.add(statement.rows());
+            totalNanos.add(statement.durationNanos());
+            maxNanos.accumulateAndGet(statement.durationNanos(), Math::max);
+            caller = statement.caller();
+        }
+
+        QueryStat toStat(String fingerprint) {
+            long count = calls.sum();
+            double total = totalNanos.sum() / 1_000_000.0;
+            return new QueryStat(fingerprint, caller, count, rows.sum(), total, count == 0 ? 0 : total / count,
+                    maxNanos.get() / 1_000_000.0);
+        }
+    }
+}
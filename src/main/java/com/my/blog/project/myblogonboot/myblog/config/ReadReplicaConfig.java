@@ -0,0 +1,67 @@
+package com.my.blog.project.myblogonboot.myblog.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+// Only active when replicas are configured. DataSourceConfig builds the primary template and transaction manager on
+// the router, the DataSource bean stays the primary pool, so Liquibase keeps writing to it
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty("datasource.replicas.urls")
+public class ReadReplicaConfig {
+
+    @Bean
+    public ReplicaRouter replicaRouter(DataSource dataSource,
+                                       ObjectProvider<MeterRegistry> meterRegistry,
+                                       @Value("${datasource.replicas.urls}") String[] urls,
+                                       @Value("${datasource.replicas.username:${spring.datasource.username:}}") String username,
+                                       @Value("${datasource.replicas.password:${spring.datasource.password:}}") String password,
+                                       @Value("${datasource.replicas.pool-size:10}") int poolSize,
+                                       @Value("${datasource.replicas.connection-timeout:PT2S}") Duration connectionTimeout,
+                                       @Value("${datasource.replicas.max-lag:PT10S}") Duration maxLag,
+                                       @Value("${datasource.blob.enabled:true}") boolean blobPoolEnabled,
+                                       @Value("${datasource.blob.pool-size:4}") int blobPoolSize) {
+        List<DataSource> replicas = new ArrayList<>();
+        // The blob bulkhead holds on the replicas too, image reads get a pool of their own on each of them
+        List<DataSource> blobReplicas = new ArrayList<>();
+        for (int i = 0; i < urls.length; i++) {
+            String name = "replica-" + (i + 1);
+            replicas.add(pool(name, urls[i].trim(), username, password, poolSize, connectionTimeout, dataSource,
+                    meterRegistry));
+            if (blobPoolEnabled) {
+                blobReplicas.add(pool(name + "-blob", urls[i].trim(), username, password, blobPoolSize,
+                        connectionTimeout, dataSource, meterRegistry));
+            }
+        }
+        return new ReplicaRouter(dataSource, replicas, blobReplicas, maxLag);
+    }
+
+    private static HikariDataSource pool(String name, String url, String username, String password, int poolSize,
+                                         Duration connectionTimeout, DataSource dataSource,
+                                         ObjectProvider<MeterRegistry> meterRegistry) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName(name);
+        config.setJdbcUrl(url);
+        config.setUsername(username);
+        config.setPassword(password);
+        config.setMaximumPoolSize(poolSize);
+        config.setReadOnly(true);
+        // A slow or missing replica must not hold a request for long, the router falls back to the primary
+        config.setConnectionTimeout(connectionTimeout.toMillis());
+        config.setInitializationFailTimeout(-1);
+        DataSourceConfig.inheritDriverProperties(dataSource, config);
+        meterRegistry.ifAvailable(registry -> config.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry)));
+        return new HikariDataSource(config);
+    }
+}
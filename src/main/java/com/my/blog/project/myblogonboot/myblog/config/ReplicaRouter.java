@@ -0,0 +1,178 @@
+package com.my.blog.project.myblogonboot.myblog.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+// Sends read-only transactions to healthy replicas in turn, everything else (and every fallback) goes to the primary
+@Slf4j
+public class ReplicaRouter implements AutoCloseable {
+
+    // Zero on a caught up standby, otherwise the age of the last replayed transaction
+    private static final String LAG_SQL = """
+        SELECT CASE
+            WHEN NOT pg_is_in_recovery() THEN 0
+            WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+            ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0)
+        END
+        """;
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final Duration maxLag;
+    private final AtomicInteger next = new AtomicInteger();
+    private final LazyConnectionDataSourceProxy dataSource;
+
+    public ReplicaRouter(DataSource primary, List<DataSource> replicas, Duration maxLag) {
+        this(primary, replicas, List.of(), maxLag);
+    }
+
+    // blobReplicas, if any, are the blob bulkhead's pools on the same replicas, one per replica and in the same order
+    public ReplicaRouter(DataSource primary, List<DataSource> replicas, List<DataSource> blobReplicas, Duration maxLag) {
+        this.primary = primary;
+        this.maxLag = maxLag;
+        this.replicas = new ArrayList<>();
+        for (int i = 0; i < replicas.size(); i++) {
+            this.replicas.add(new Replica("replica-" + (i + 1), replicas.get(i),
+                    i < blobReplicas.size() ? blobReplicas.get(i) : null));
+        }
+        this.dataSource = route(primary, replica -> replica.dataSource);
+    }
+
+    public DataSource getDataSource() {
+        return dataSource;
+    }
+
+    // Read-only transactions on the blob pool go to the replicas' blob pools, picked by the same health checks
+    public DataSource getBlobDataSource(DataSource blobPrimary) {
+        boolean blobReplicas = replicas.stream().anyMatch(replica -> replica.blobDataSource != null);
+        return blobReplicas ? route(blobPrimary, replica -> replica.blobDataSource) : blobPrimary;
+    }
+
+    // The transaction manager marks the connection read-only before the first statement, only then is a target picked
+    private LazyConnectionDataSourceProxy route(DataSource fallback, Function<Replica, DataSource> pool) {
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(fallback);
+        proxy.setReadOnlyDataSource(new ReadOnlyDataSource(fallback, pool));
+        return proxy;
+    }
+
+    public List<ReplicaStatus> getStatus() {
+        return replicas.stream().map(replica -> new ReplicaStatus(replica.name, replica.healthy, replica.lag)).toList();
+    }
+
+    @Scheduled(fixedDelayString = "${datasource.replicas.health-check-interval:PT5S}")
+    public void checkHealth() {
+        for (Replica replica : replicas) {
+            try {
+                Duration lag = measureLag(replica.dataSource);
+                replica.lag = lag;
+                boolean healthy = lag.compareTo(maxLag) <= 0;
+                if (healthy != replica.healthy) {
+                    log.warn("Replica {} is now {}, lag {}", replica.name, healthy ? "in rotation" : "out of rotation", lag);
+                }
+                replica.healthy = healthy;
+            } catch (RuntimeException e) {
+                markDown(replica, e.getMessage());
+            }
+        }
+    }
+
+    Duration measureLag(DataSource replica) {
+        Double seconds = new JdbcTemplate(replica).queryForObject(LAG_SQL, Double.class);
+        return Duration.ofMillis(Math.round((seconds == null ? 0 : seconds) * 1000));
+    }
+
+    Connection getReadOnlyConnection() throws SQLException {
+        return getReadOnlyConnection(primary, replica -> replica.dataSource);
+    }
+
+    private Connection getReadOnlyConnection(DataSource fallback, Function<Replica, DataSource> pool)
+            throws SQLException {
+        int size = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), Math.max(size, 1));
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            DataSource target = pool.apply(replica);
+            if (!replica.healthy || target == null) {
+                continue;
+            }
+            try {
+                return target.getConnection();
+            } catch (SQLException e) {
+                // Stays out until the next health check finds it reachable again
+                markDown(replica, e.getMessage());
+            }
+        }
+        return fallback.getConnection();
+    }
+
+    private void markDown(Replica replica, String reason) {
+        if (replica.healthy) {
+            log.warn("Replica {} is out of rotation: {}", replica.name, reason);
+        }
+        replica.healthy = false;
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+            if (replica.blobDataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    public record ReplicaStatus(String name, boolean healthy, Duration lag) {
+    }
+
+    private static final class Replica {
+
+        private final String name;
+        private final DataSource dataSource;
+        private final DataSource blobDataSource;
+        // Optimistic until the first health check, so a fresh node starts taking reads right away
+        private volatile boolean healthy = true;
+        private volatile Duration lag = Duration.ZERO;
+
+        private Replica(String name, DataSource dataSource, DataSource blobDataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+            this.blobDataSource = blobDataSource;
+        }
+    }
+
+    private final class ReadOnlyDataSource extends AbstractDataSource {
+
+        private final DataSource fallback;
+        private final Function<Replica, DataSource> pool;
+
+        private ReadOnlyDataSource(DataSource fallback, Function<Replica, DataSource> pool) {
+            this.fallback = fallback;
+            this.pool = pool;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return getReadOnlyConnection(fallback, pool);
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return getReadOnlyConnection(fallback, pool);
+        }
+    }
+}
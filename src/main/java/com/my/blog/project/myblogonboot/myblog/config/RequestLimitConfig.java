@@ -0,0 +1,31 @@
+package com.my.blog.project.myblogonboot.myblog.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import java.time.Duration;
+
+// One limiter per connection pool, sized to it by default so a request that got a permit rarely waits for a connection
+@Configuration(proxyBeanMethods = false)
+@Profile("!reactive")
+public class RequestLimitConfig {
+
+    public static final String BLOB_REQUEST_LIMITER = "blobRequestLimiter";
+    public static final String METADATA_REQUEST_LIMITER = "metadataRequestLimiter";
+
+    @Bean(BLOB_REQUEST_LIMITER)
+    public ConcurrencyLimitInterceptor blobRequestLimiter(
+            @Value("${requests.blob.max-concurrent:${datasource.blob.pool-size:4}}") int maxConcurrent,
+            @Value("${requests.blob.max-wait:PT5S}") Duration maxWait) {
+        return new ConcurrencyLimitInterceptor("blob", maxConcurrent, maxWait);
+    }
+
+    @Bean(METADATA_REQUEST_LIMITER)
+    public ConcurrencyLimitInterceptor metadataRequestLimiter(
+            @Value("${requests.metadata.max-concurrent:64}") int maxConcurrent,
+            @Value("${requests.metadata.max-wait:PT2S}") Duration maxWait) {
+        return new ConcurrencyLimitInterceptor("metadata", maxConcurrent, maxWait);
+    }
+}
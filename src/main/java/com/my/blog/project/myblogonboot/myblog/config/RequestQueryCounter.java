@@ -0,0 +1,70 @@
+package com.my.blog.project.myblogonboot.myblog.config;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Counts the statements a thread runs while a scope is open. Statements run on the request thread, so a scope opened
+// around a request sees all of its queries (background jobs are not counted)
+public class RequestQueryCounter implements StatementListener {
+
+    // Enough to spot an N+1 in a failure message without keeping a whole feed worth of statements around
+    private static final int MAX_RECORDED = 50;
+
+    private final ThreadLocal<Scope> current = new ThreadLocal<>();
+
+    public Scope open() {
+        Scope scope = new Scope(current.get());
+        current.set(scope);
+        return scope;
+    }
+
+    @Override
+    public void onStatement(ExecutedStatement statement) {
+        // Nested scopes count towards every enclosing one
+        for (Scope scope = current.get(); scope != null; scope = scope.parent) {
+            scope.add(statement);
+        }
+    }
+
+    public final class Scope implements AutoCloseable {
+
+        private final Scope parent;
+        private final List<ExecutedStatement> recorded = new ArrayList<>();
+        private int statements;
+        private long durationNanos;
+
+        private Scope(Scope parent) {
+            this.parent = parent;
+        }
+
+        public int statements() {
+            return statements;
+        }
+
+        public long durationNanos() {
+            return durationNanos;
+        }
+
+        public List<ExecutedStatement> recorded() {
+            return Collections.unmodifiableList(recorded);
+        }
+
+        @Override
+        public void close() {
+            if (parent != null) {
+                current.set(parent);
+            } else {
+                current.remove();
+            }
+        }
+
+        private void add(ExecutedStatement statement) {
+            statements++;
+            durationNanos += statement.durationNanos();
+            if (recorded.size() < MAX_RECORDED) {
+                recorded.add(statement);
+            }
+        }
+    }
+}
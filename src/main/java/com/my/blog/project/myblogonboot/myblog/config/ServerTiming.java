@@ -0,0 +1,94 @@
+package com.my.blog.project.myblogonboot.myblog.config;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.StringJoiner;
+
+// Per-request phase durations for the Server-Timing header. Outside a sampled request start() hands back a shared
+// no-op phase, so the instrumented code pays for one ThreadLocal lookup
+public final class ServerTiming {
+
+    private static final ThreadLocal<Recording> CURRENT = new ThreadLocal<>();
+    private static final Phase NOOP = new Phase(null, null, 0);
+
+    private ServerTiming() {
+    }
+
+    public static Phase start(String name) {
+        Recording recording = CURRENT.get();
+        return recording == null ? NOOP : new Phase(recording, name, System.nanoTime());
+    }
+
+    // The handler is done, whatever follows is serialization
+    static void markBodyWrite() {
+        Recording recording = CURRENT.get();
+        if (recording != null && recording.bodyWriteStart == 0) {
+            recording.bodyWriteStart = System.nanoTime();
+        }
+    }
+
+    static Recording begin() {
+        Recording recording = new Recording(System.nanoTime());
+        CURRENT.set(recording);
+        return recording;
+    }
+
+    static void end() {
+        CURRENT.remove();
+    }
+
+    public static final class Phase implements AutoCloseable {
+
+        private final Recording recording;
+        private final String name;
+        private final long start;
+
+        private Phase(Recording recording, String name, long start) {
+            this.recording = recording;
+            this.name = name;
+            this.start = start;
+        }
+
+        @Override
+        public void close() {
+            if (recording != null) {
+                recording.add(name, System.nanoTime() - start);
+            }
+        }
+    }
+
+    static final class Recording {
+
+        private final long start;
+        // A phase that runs more than once (tags for several posts) adds up under one name
+        private final Map<String, Long> durations = new LinkedHashMap<>();
+        private long bodyWriteStart;
+
+        private Recording(long start) {
+            this.start = start;
+        }
+
+        void add(String name, long nanos) {
+            durations.merge(name, nanos, Long::sum);
+        }
+
+        String toHeader(int statements, long dbNanos) {
+            long now = System.nanoTime();
+            StringJoiner header = new StringJoiner(", ");
+            durations.forEach((name, nanos) -> header.add(metric(name, nanos)));
+            if (statements > 0) {
+                header.add(metric("db", dbNanos) + ";desc=\"" + statements + " statements\"");
+            }
+            if (bodyWriteStart != 0) {
+                header.add(metric("serialize", now - bodyWriteStart));
+            }
+            header.add(metric("total", now - start));
+            return header.toString();
+        }
+
+        private static String metric(String name, long nanos) {
+            return name + ";dur=" + String.format(Locale.ROOT, "%.3f", nanos / 1_000_000.0);
+        }
+    }
+}
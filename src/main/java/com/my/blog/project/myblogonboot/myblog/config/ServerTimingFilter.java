@@ -0,0 +1,67 @@
+package com.my.blog.project.myblogonboot.myblog.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.PathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Adds a Server-Timing header to a sample of API responses. A sampled body is buffered so serialization can be
+// measured before the header goes out, image bytes are therefore never sampled
+@Component
+@Profile("!reactive")
+public class ServerTimingFilter extends OncePerRequestFilter {
+
+    public static final String SERVER_TIMING_HEADER = "Server-Timing";
+
+    private static final List<String> EXCLUDED_PATHS =
+            List.of("/api/posts/*/image", "/api/posts/*/image/uploads/**", "/api/images/**");
+    private static final PathMatcher PATH_MATCHER = new AntPathMatcher();
+
+    private final RequestQueryCounter queryCounter;
+    private final boolean enabled;
+    private final double sampleRate;
+
+    public ServerTimingFilter(RequestQueryCounter queryCounter,
+                              @Value("${server-timing.enabled:false}") boolean enabled,
+                              @Value("${server-timing.sample-rate:1.0}") double sampleRate) {
+        this.queryCounter = queryCounter;
+        this.enabled = enabled;
+        this.sampleRate = sampleRate;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return !enabled || !path.startsWith("/api/")
+                || EXCLUDED_PATHS.stream().anyMatch(pattern -> PATH_MATCHER.match(pattern, path));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (sampleRate < 1.0 && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        ContentCachingResponseWrapper cachingResponse = new ContentCachingResponseWrapper(response);
+        ServerTiming.Recording recording = ServerTiming.begin();
+        try (RequestQueryCounter.Scope scope = queryCounter.open()) {
+            filterChain.doFilter(request, cachingResponse);
+            response.setHeader(SERVER_TIMING_HEADER, recording.toHeader(scope.statements(), scope.durationNanos()));
+        } finally {
+            ServerTiming.end();
+            cachingResponse.copyBodyToResponse();
+        }
+    }
+}
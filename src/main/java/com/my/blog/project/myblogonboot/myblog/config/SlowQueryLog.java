@@ -0,0 +1,26 @@
+package com.my.blog.project.myblogonboot.myblog.config;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+
+// Its own logger, so slow statements can be routed to a separate file or kept at WARN while the rest is quiet
+@Slf4j(topic = "slow-query")
+public class SlowQueryLog implements StatementListener {
+
+    private final long thresholdNanos;
+
+    public SlowQueryLog(Duration threshold) {
+        this.thresholdNanos = threshold.toNanos();
+    }
+
+    @Override
+    public void onStatement(ExecutedStatement statement) {
+        if (statement.durationNanos() < thresholdNanos) {
+            return;
+        }
+        // Only the fingerprint and parameter shapes are logged, never the bound values
+        log.warn("{} ms, {} rows, {}: {} {}", statement.durationNanos() / 1_000_000, statement.rows(),
+                statement.caller(), SqlFingerprint.of(statement.sql()), statement.parameterTypes());
+    }
+}
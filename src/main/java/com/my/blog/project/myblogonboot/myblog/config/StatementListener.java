@@ -0,0 +1,7 @@
+package com.my.blog.project.myblogonboot.myblog.config;
+
+// Called once per executed JDBC statement, on the thread that ran it
+public interface StatementListener {
+
+    void onStatement(ExecutedStatement statement);
+}
@@ -0,0 +1,228 @@
+package com.my.blog.project.myblogonboot.myblog.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.io.InputStream;
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+// Times every statement run on its connections. It sits below JdbcTemplate, since the repositories create many of
+// their statements in lambdas the template never sees the SQL of. Template and transaction manager must both use this
+// DataSource, otherwise connections bound to a transaction bypass it
+@Slf4j
+public class StatementTimingDataSource extends DelegatingDataSource {
+
+    private static final String APPLICATION_PACKAGE = "com.my.blog.project.myblogonboot.";
+    private static final String CONFIG_PACKAGE = StatementTimingDataSource.class.getPackageName() + ".";
+    private static final Set<String> EXECUTE_METHODS =
+            Set.of("execute", "executeQuery", "executeUpdate", "executeLargeUpdate", "executeBatch", "executeLargeBatch");
+    private static final StackWalker STACK_WALKER = StackWalker.getInstance();
+
+    private final List<StatementListener> listeners;
+
+    public StatementTimingDataSource(DataSource target, List<StatementListener> listeners) {
+        super(target);
+        this.listeners = List.copyOf(listeners);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(super.getConnection(username, password));
+    }
+
+    private Connection wrap(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    Object result = invoke(connection, method, args);
+                    if (result instanceof Statement statement) {
+                        String sql = method.getName().startsWith("prepare") ? (String) args[0] : null;
+                        return wrap(statement, method.getReturnType(), sql);
+                    }
+                    return result;
+                });
+    }
+
+    private Statement wrap(Statement statement, Class<?> type, String sql) {
+        return (Statement) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{type},
+                new TimedStatement(statement, sql, callerOf()));
+    }
+
+    // The innermost application frame outside this package, usually a repository method
+    private static String callerOf() {
+        return STACK_WALKER.walk(frames -> frames
+                .filter(frame -> frame.getClassName().startsWith(APPLICATION_PACKAGE)
+                        && !frame.getClassName().startsWith(CONFIG_PACKAGE))
+                .findFirst()
+                .map(frame -> simpleName(frame.getClassName()) + "." + methodName(frame.getMethodName()))
+                .orElse("unknown"));
+    }
+
+    private static String simpleName(String className) {
+        return className.substring(className.lastIndexOf('.') + 1);
+    }
+
+    // lambda$save$3 -> save
+    private static String methodName(String name) {
+        if (name.startsWith("lambda$")) {
+            int end = name.indexOf('$', 7);
+            return end > 7 ? name.substring(7, end) : name;
+        }
+        return name;
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    private final class TimedStatement implements InvocationHandler {
+
+        private final Statement target;
+        private final String caller;
+        private final List<String> parameterTypes = new ArrayList<>();
+        private String sql;
+        private boolean executed;
+        private Instant startedAt;
+        private long durationNanos;
+        private long rows;
+
+        TimedStatement(Statement target, String sql, String caller) {
+            this.target = target;
+            this.sql = sql;
+            this.caller = caller;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (EXECUTE_METHODS.contains(name)) {
+                return execute(method, args);
+            }
+            if (name.equals("getResultSet")) {
+                Object result = StatementTimingDataSource.invoke(target, method, args);
+                return result instanceof ResultSet resultSet ? countRows(resultSet) : result;
+            }
+            if (name.equals("close")) {
+                try {
+                    return StatementTimingDataSource.invoke(target, method, args);
+                } finally {
+                    publish();
+                }
+            }
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                recordParameter(index, name, args);
+            } else if (name.equals("clearParameters")) {
+                parameterTypes.clear();
+            }
+            return StatementTimingDataSource.invoke(target, method, args);
+        }
+
+        private Object execute(Method method, Object[] args) throws Throwable {
+            if (args != null && args.length > 0 && args[0] instanceof String statementSql) {
+                sql = statementSql;
+            }
+            if (startedAt == null) {
+                startedAt = Instant.now();
+            }
+            long start = System.nanoTime();
+            try {
+                Object result = StatementTimingDataSource.invoke(target, method, args);
+                if (result instanceof ResultSet resultSet) {
+                    return countRows(resultSet);
+                }
+                if (result instanceof Number count) {
+                    rows += count.longValue();
+                } else if (result instanceof int[] counts) {
+                    for (int count : counts) {
+                        rows += Math.max(count, 0);
+                    }
+                } else if (result instanceof long[] counts) {
+                    for (long count : counts) {
+                        rows += Math.max(count, 0);
+                    }
+                }
+                return result;
+            } finally {
+                durationNanos += System.nanoTime() - start;
+                executed = true;
+            }
+        }
+
+        private ResultSet countRows(ResultSet resultSet) {
+            return (ResultSet) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{ResultSet.class},
+                    (proxy, method, args) -> {
+                        Object result = StatementTimingDataSource.invoke(resultSet, method, args);
+                        if (method.getName().equals("next") && Boolean.TRUE.equals(result)) {
+                            rows++;
+                        }
+                        return result;
+                    });
+        }
+
+        private void recordParameter(int index, String setter, Object[] args) {
+            while (parameterTypes.size() < index) {
+                parameterTypes.add("?");
+            }
+            parameterTypes.set(index - 1, shapeOf(setter, args));
+        }
+
+        private String shapeOf(String setter, Object[] args) {
+            Object value = args[1];
+            if (setter.equals("setNull") || value == null) {
+                return "null";
+            }
+            if (value instanceof byte[] bytes) {
+                return "bytes[" + bytes.length + "]";
+            }
+            if (value instanceof InputStream) {
+                return args.length > 2 && args[2] instanceof Number length ? "stream[" + length + "]" : "stream";
+            }
+            if (value instanceof String string) {
+                return "String(" + string.length() + ")";
+            }
+            // = ANY(?) binds, the element count instead of the bare "long[]"
+            if (value.getClass().isArray()) {
+                return value.getClass().getComponentType().getSimpleName() + "[" + Array.getLength(value) + "]";
+            }
+            return value.getClass().getSimpleName();
+        }
+
+        private void publish() {
+            if (!executed || sql == null) {
+                return;
+            }
+            // A second close() must not report the statement again
+            executed = false;
+            ExecutedStatement statement =
+                    new ExecutedStatement(sql, durationNanos, rows, caller, List.copyOf(parameterTypes), startedAt);
+            for (StatementListener listener : listeners) {
+                try {
+                    listener.onStatement(statement);
+                } catch (RuntimeException e) {
+                    log.warn("Statement listener {} failed", listener.getClass().getSimpleName(), e);
+                }
+            }
+        }
+    }
+}
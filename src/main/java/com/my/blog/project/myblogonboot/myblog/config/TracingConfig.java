@@ -0,0 +1,39 @@
+package com.my.blog.project.myblogonboot.myblog.config;
+
+import io.micrometer.tracing.Tracer;
+import io.opentelemetry.exporter.logging.otlp.OtlpStdoutSpanExporter;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// HTTP and @Observed service spans come from Boot's observation support, this adds the JDBC statements below them.
+// Boot hands every SpanExporter bean to the tracer, the OTLP one is created once an endpoint is configured
+@Configuration(proxyBeanMethods = false)
+public class TracingConfig {
+
+    @Bean
+    public TracingStatementListener tracingStatementListener(ObjectProvider<Tracer> tracer) {
+        return new TracingStatementListener(tracer);
+    }
+
+    // Offline runs: spans are appended as OTLP JSON lines, a collector's otlpjsonfile receiver can replay them
+    @Bean
+    @ConditionalOnProperty("tracing.file.path")
+    public SpanExporter fileSpanExporter(@Value("${tracing.file.path}") Path path) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        OutputStream output = Files.newOutputStream(path, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        return OtlpStdoutSpanExporter.builder().setOutput(output).build();
+    }
+}
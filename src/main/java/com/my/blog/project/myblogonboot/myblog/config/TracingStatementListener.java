@@ -0,0 +1,69 @@
+package com.my.blog.project.myblogonboot.myblog.config;
+
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+// Turns each statement of a sampled trace into a client span under the current one. The statement is already closed
+// when listeners run, so the span is recorded after the fact with its real start and end time
+public class TracingStatementListener implements StatementListener {
+
+    private final ObjectProvider<Tracer> tracer;
+
+    public TracingStatementListener(ObjectProvider<Tracer> tracer) {
+        this.tracer = tracer;
+    }
+
+    @Override
+    public void onStatement(ExecutedStatement statement) {
+        Tracer current = tracer.getIfAvailable();
+        if (current == null || statement.startedAt() == null) {
+            return;
+        }
+        Span parent = current.currentSpan();
+        // Outside a request, or the request was not sampled, fingerprinting would be wasted
+        if (parent == null || !Boolean.TRUE.equals(parent.context().sampled())) {
+            return;
+        }
+        String fingerprint = SqlFingerprint.of(statement.sql());
+        Span span = current.spanBuilder()
+                .setParent(parent.context())
+                .name(operationOf(fingerprint))
+                .kind(Span.Kind.CLIENT)
+                .tag("db.system", "postgresql")
+                .tag("db.query.text", fingerprint)
+                .tag("db.rows", String.valueOf(statement.rows()))
+                .tag("db.bind.bytes", String.valueOf(bindBytes(statement)))
+                .tag("db.execute.ms", String.valueOf(statement.durationNanos() / 1_000_000.0))
+                .tag("code.function", statement.caller())
+                .startTimestamp(micros(statement.startedAt()), TimeUnit.MICROSECONDS)
+                .start();
+        span.end(micros(Instant.now()), TimeUnit.MICROSECONDS);
+    }
+
+    private static String operationOf(String fingerprint) {
+        int end = fingerprint.indexOf(' ');
+        return "jdbc " + (end > 0 ? fingerprint.substring(0, end) : fingerprint).toLowerCase(Locale.ROOT);
+    }
+
+    // Sizes of byte[] and stream parameters, as recorded by StatementTimingDataSource ("bytes[1024]", "stream[1024]").
+    // Array binds ("long[20]") carry an element count, not bytes, and a stream without a length has no size at all
+    private static long bindBytes(ExecutedStatement statement) {
+        long bytes = 0;
+        for (String type : statement.parameterTypes()) {
+            if ((type.startsWith("bytes[") || type.startsWith("stream[")) && type.endsWith("]")) {
+                bytes += Long.parseLong(type, type.indexOf('[') + 1, type.length() - 1, 10);
+            }
+        }
+        return bytes;
+    }
+
+    private static long micros(Instant instant) {
+        return ChronoUnit.MICROS.between(Instant.EPOCH, instant);
+    }
+}
@@ -1,13 +1,39 @@
 package com.my.blog.project.myblogonboot.myblog.config;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.converter.HttpMessageConverters;
+import org.springframework.http.converter.cbor.JacksonCborHttpMessageConverter;
+import org.springframework.http.converter.smile.JacksonSmileHttpMessageConverter;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import tools.jackson.dataformat.cbor.CBORMapper;
+import tools.jackson.dataformat.smile.SmileMapper;
 
 @Configuration(proxyBeanMethods = false)
+@Profile("!reactive")
 public class WebConfig implements WebMvcConfigurer {
 
+    private static final String[] BLOB_PATHS = {"/api/posts/*/image", "/api/posts/*/image/uploads/**", "/api/images/**"};
+
+    @Autowired
+    @Qualifier(RequestLimitConfig.BLOB_REQUEST_LIMITER)
+    private ConcurrencyLimitInterceptor blobRequestLimiter;
+
+    @Autowired
+    @Qualifier(RequestLimitConfig.METADATA_REQUEST_LIMITER)
+    private ConcurrencyLimitInterceptor metadataRequestLimiter;
+
+    @Autowired
+    private CBORMapper cborMapper;
+
+    @Autowired
+    private SmileMapper smileMapper;
+
     @Value("${cors.allowed-origins:http://localhost}")
     private String[] allowedOrigins;
 
@@ -23,8 +49,24 @@ public class WebConfig implements WebMvcConfigurer {
                 .allowedOrigins(allowedOrigins)
                 .allowedMethods(allowedMethods)
                 .allowedHeaders("*")
-                .exposedHeaders("Content-Type", "Content-Length", "Content-Disposition")
+                .exposedHeaders("Content-Type", "Content-Length", "Content-Disposition", "Content-Location", "ETag",
+                        "Location", "Upload-Offset")
                 .allowCredentials(true)
                 .maxAge(maxAge);
     }
+
+    // Accept: application/cbor or application/x-jackson-smile, the JSON converter comes first and stays the default.
+    // Request bodies in either format are read too, as on the reactive stack
+    @Override
+    public void configureMessageConverters(HttpMessageConverters.ServerBuilder builder) {
+        builder.withCborConverter(new JacksonCborHttpMessageConverter(cborMapper))
+                .withSmileConverter(new JacksonSmileHttpMessageConverter(smileMapper));
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        // Image metadata (/image/meta) is a small query and counts against the metadata limit
+        registry.addInterceptor(blobRequestLimiter).addPathPatterns(BLOB_PATHS);
+        registry.addInterceptor(metadataRequestLimiter).addPathPatterns("/api/**").excludePathPatterns(BLOB_PATHS);
+    }
 }
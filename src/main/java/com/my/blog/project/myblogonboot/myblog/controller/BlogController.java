@@ -2,14 +2,26 @@ package com.my.blog.project.myblogonboot.myblog.controller;
 
 import com.my.blog.project.myblogonboot.myblog.dto.comment.CommentRequest;
 import com.my.blog.project.myblogonboot.myblog.dto.comment.CommentResponse;
+import com.my.blog.project.myblogonboot.myblog.dto.image.ImageMetaResponse;
+import com.my.blog.project.myblogonboot.myblog.dto.post.PostFields;
+import com.my.blog.project.myblogonboot.myblog.dto.post.PostLookupRequest;
+import com.my.blog.project.myblogonboot.myblog.dto.post.PostLookupResponse;
 import com.my.blog.project.myblogonboot.myblog.dto.post.PostRequest;
 import com.my.blog.project.myblogonboot.myblog.dto.post.PostResponse;
 import com.my.blog.project.myblogonboot.myblog.dto.post.PostsResponse;
-import com.my.blog.project.myblogonboot.myblog.entity.PostImage;
+import com.my.blog.project.myblogonboot.myblog.dto.post.SparsePostResponse;
+import com.my.blog.project.myblogonboot.myblog.dto.post.SparsePostsResponse;
+import com.my.blog.project.myblogonboot.myblog.service.BlogMetrics;
 import com.my.blog.project.myblogonboot.myblog.service.CommentService;
+import com.my.blog.project.myblogonboot.myblog.service.ImageContent;
 import com.my.blog.project.myblogonboot.myblog.service.ImageService;
 import com.my.blog.project.myblogonboot.myblog.service.PostService;
+import com.my.blog.project.myblogonboot.myblog.service.SerializedPost;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -18,16 +30,19 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.io.IOException;
 import java.util.List;
 import java.util.Optional;
 
 @RestController
+@Profile("!reactive")
 @RequestMapping("/api/posts")
 public class BlogController {
 
@@ -37,6 +52,8 @@ public class BlogController {
     private CommentService commentService;
     @Autowired
     private ImageService imageService;
+    @Autowired
+    private BlogMetrics blogMetrics;
 
     @GetMapping
     public PostsResponse getAllPosts(@RequestParam(value = "search", required = false) String search,
@@ -45,9 +62,55 @@ public class BlogController {
         return postService.getPosts(search, pageNumber, pageSize);
     }
 
+    // e.g. /api/posts?fields=id,title,likesCount. With ids the lookup below wins, as it does without fields
+    @GetMapping(params = {"fields", "!ids"})
+    public SparsePostsResponse getSparsePosts(@RequestParam(value = "search", required = false) String search,
+                                              @RequestParam(value = "pageNumber", defaultValue = "0") int pageNumber,
+                                              @RequestParam(value = "pageSize", defaultValue = "20") int pageSize,
+                                              @RequestParam("fields") String fields) {
+        PostFields postFields = parseFields(fields);
+        return SparsePostsResponse.of(postService.getPosts(search, pageNumber, pageSize, postFields), postFields);
+    }
+
+    // Several posts in one call, e.g. /api/posts?ids=3,1,2. Same as POST /api/posts/lookup
+    @GetMapping(params = "ids")
+    public ResponseEntity<PostLookupResponse> getPostsByIds(@RequestParam("ids") List<Long> ids) {
+        return postService.lookupPosts(new PostLookupRequest(ids));
+    }
+
+    @PostMapping("/lookup")
+    public ResponseEntity<PostLookupResponse> lookupPosts(@RequestBody PostLookupRequest request) {
+        return postService.lookupPosts(request);
+    }
+
+    // JSON, the default encoding, comes from the pre-serialized cache
     @GetMapping("/{postId}")
-    public PostResponse getPost(@PathVariable("postId") Long postId) {
-        return postService.getPostById(postId);
+    public ResponseEntity<byte[]> getPost(@PathVariable("postId") Long postId,
+                                          @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false)
+                                          String acceptEncoding) {
+        Optional<SerializedPost> post = postService.getSerializedPost(postId);
+        if (post.isEmpty()) {
+            return okVaryingOnAccept().build();
+        }
+        // Written as is by the byte array converter, no Jackson involved
+        ResponseEntity.BodyBuilder response = okVaryingOnAccept().contentType(MediaType.APPLICATION_JSON);
+        if (post.get().gzip() != null && acceptsGzip(acceptEncoding)) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(post.get().gzip());
+        }
+        return response.body(post.get().json());
+    }
+
+    // Chosen over getPost only when the client ranks CBOR or Smile above JSON, rendered per call by that converter
+    @GetMapping(value = "/{postId}", produces = {MediaType.APPLICATION_CBOR_VALUE, "application/x-jackson-smile"})
+    public ResponseEntity<PostResponse> getEncodedPost(@PathVariable("postId") Long postId) {
+        return okVaryingOnAccept().body(postService.getPostById(postId));
+    }
+
+    @GetMapping(value = "/{postId}", params = "fields")
+    public ResponseEntity<SparsePostResponse> getSparsePost(@PathVariable("postId") Long postId,
+                                                            @RequestParam("fields") String fields) {
+        PostFields postFields = parseFields(fields);
+        return okVaryingOnAccept().body(SparsePostResponse.of(postService.getPostById(postId, postFields), postFields));
     }
 
     @GetMapping("/{postId}/comments")
@@ -62,20 +125,25 @@ public class BlogController {
     }
 
     @GetMapping("/{postId}/image")
-    public ResponseEntity<byte[]> downloadImage(@PathVariable(name = "postId") long postId) {
-        Optional<PostImage> optionalPostImage = imageService.getPostImage(postId);
-        if (optionalPostImage.isEmpty() || optionalPostImage.get().getData() == null || optionalPostImage.get().getData().length == 0) {
-            return ResponseEntity.notFound().build();
+    public ResponseEntity<Resource> downloadImage(@PathVariable(name = "postId") long postId,
+                                                  @RequestParam(value = "w", required = false) Integer width) {
+        if (width != null && width <= 0) {
+            return ResponseEntity.badRequest().build();
         }
-        PostImage postImage = optionalPostImage.get();
-        MediaType mediaType = MediaType.APPLICATION_OCTET_STREAM;
-        if (postImage.getContentType() != null) {
-            mediaType = MediaType.parseMediaType(postImage.getContentType());
+        Optional<ImageContent> image = width != null
+                ? imageService.getPostImageVariantContent(postId, width)
+                : imageService.getPostImageContent(postId);
+        if (image.isEmpty()) {
+            return ResponseEntity.notFound().build();
         }
-        return ResponseEntity.ok()
-                .contentType(mediaType)
-                .contentLength(postImage.getData().length)
-                .body(postImage.getData());
+        blogMetrics.imageServed(width != null ? "variant" : "post", image.get().size());
+        return imageResponse(image.get());
+    }
+
+    @GetMapping("/{postId}/image/meta")
+    public ResponseEntity<ImageMetaResponse> getImageMeta(@PathVariable(name = "postId") long postId) {
+
+        return imageService.getPostImageMeta(postId);
     }
 
     @PostMapping
@@ -123,4 +191,47 @@ public class BlogController {
 
         return postService.deletePost(postId);
     }
+
+    private ResponseEntity<Resource> imageResponse(ImageContent image) {
+        MediaType mediaType = MediaType.APPLICATION_OCTET_STREAM;
+        if (image.contentType() != null) {
+            mediaType = MediaType.parseMediaType(image.contentType());
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (image.hash() != null) {
+            // Points clients at the immutable, cacheable URL of the same bytes
+            response.header(HttpHeaders.CONTENT_LOCATION, "/api/images/" + image.hash());
+        }
+        return response
+                .contentType(mediaType)
+                .contentLength(image.size())
+                .body(new ByteBufferResource(image.data()));
+    }
+
+    // e.g. ?fields=id,title,likesCount
+    private static PostFields parseFields(String fields) {
+        try {
+            return PostFields.parse(fields);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    // Every representation of a post, a shared cache must not hand gzipped JSON to a CBOR client or the other way round
+    private static ResponseEntity.BodyBuilder okVaryingOnAccept() {
+        return ResponseEntity.ok().header(HttpHeaders.VARY, HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING);
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                return parts.length == 1 || !parts[1].replace(" ", "").matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
 }
@@ -0,0 +1,60 @@
+package com.my.blog.project.myblogonboot.myblog.controller;
+
+import org.springframework.core.io.AbstractResource;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+// Streams a (possibly off-heap) buffer to the response without first copying it into a byte[]
+class ByteBufferResource extends AbstractResource {
+
+    private final ByteBuffer buffer;
+
+    ByteBufferResource(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    @Override
+    public boolean exists() {
+        return true;
+    }
+
+    @Override
+    public long contentLength() {
+        return buffer.remaining();
+    }
+
+    @Override
+    public InputStream getInputStream() {
+        ByteBuffer source = buffer.duplicate();
+        return new InputStream() {
+            @Override
+            public int read() {
+                return source.hasRemaining() ? source.get() & 0xFF : -1;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) {
+                if (len == 0) {
+                    return 0;
+                }
+                if (!source.hasRemaining()) {
+                    return -1;
+                }
+                int count = Math.min(len, source.remaining());
+                source.get(b, off, count);
+                return count;
+            }
+
+            @Override
+            public int available() {
+                return source.remaining();
+            }
+        };
+    }
+
+    @Override
+    public String getDescription() {
+        return "ByteBuffer resource [" + buffer.remaining() + " bytes]";
+    }
+}
@@ -0,0 +1,57 @@
+package com.my.blog.project.myblogonboot.myblog.controller;
+
+import com.my.blog.project.myblogonboot.myblog.service.BlogMetrics;
+import com.my.blog.project.myblogonboot.myblog.service.ImageContent;
+import com.my.blog.project.myblogonboot.myblog.service.ImageService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.Optional;
+
+@RestController
+@Profile("!reactive")
+@RequestMapping("/api/images")
+public class ImageController {
+
+    // Content under a hash never changes, so browsers and proxies may keep it forever
+    private static final String IMMUTABLE = "public, max-age=31536000, immutable";
+
+    @Autowired
+    private ImageService imageService;
+
+    @Autowired
+    private BlogMetrics blogMetrics;
+
+    @GetMapping("/{hash}")
+    public ResponseEntity<Resource> getImage(@PathVariable("hash") String hash, WebRequest webRequest) {
+        if (webRequest.checkNotModified(hash)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).header(HttpHeaders.CACHE_CONTROL, IMMUTABLE).build();
+        }
+        Optional<ImageContent> optionalImage = imageService.getImageContentByHash(hash);
+        if (optionalImage.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        ImageContent image = optionalImage.get();
+        blogMetrics.imageServed("hash", image.size());
+        MediaType mediaType = MediaType.APPLICATION_OCTET_STREAM;
+        if (image.contentType() != null) {
+            mediaType = MediaType.parseMediaType(image.contentType());
+        }
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CACHE_CONTROL, IMMUTABLE)
+                .eTag(hash)
+                .contentType(mediaType)
+                .contentLength(image.size())
+                .body(new ByteBufferResource(image.data()));
+    }
+}
@@ -0,0 +1,67 @@
+package com.my.blog.project.myblogonboot.myblog.controller;
+
+import com.my.blog.project.myblogonboot.myblog.dto.upload.CreateUploadRequest;
+import com.my.blog.project.myblogonboot.myblog.dto.upload.UploadResponse;
+import com.my.blog.project.myblogonboot.myblog.service.ChunkedUploadService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+@RestController
+@Profile("!reactive")
+@RequestMapping("/api/posts/{postId}/image/uploads")
+public class ImageUploadController {
+
+    @Autowired
+    private ChunkedUploadService chunkedUploadService;
+
+    @PostMapping
+    public ResponseEntity<UploadResponse> createUpload(@PathVariable("postId") Long postId,
+                                                       @RequestBody CreateUploadRequest request) throws IOException {
+
+        return chunkedUploadService.createUpload(postId, request);
+    }
+
+    // Also answers HEAD, which is how a client asks where to resume
+    @GetMapping("/{uploadId}")
+    public ResponseEntity<UploadResponse> getUpload(@PathVariable("postId") Long postId,
+                                                    @PathVariable("uploadId") String uploadId) {
+
+        return chunkedUploadService.getUpload(postId, uploadId);
+    }
+
+    @PatchMapping("/{uploadId}")
+    public ResponseEntity<Void> appendChunk(@PathVariable("postId") Long postId,
+                                            @PathVariable("uploadId") String uploadId,
+                                            @RequestHeader(ChunkedUploadService.UPLOAD_OFFSET) long offset,
+                                            InputStream body) throws IOException {
+
+        return chunkedUploadService.appendChunk(postId, uploadId, offset, body);
+    }
+
+    @PostMapping("/{uploadId}/complete")
+    public ResponseEntity<Void> completeUpload(@PathVariable("postId") Long postId,
+                                               @PathVariable("uploadId") String uploadId) throws IOException {
+
+        return chunkedUploadService.completeUpload(postId, uploadId);
+    }
+
+    @DeleteMapping("/{uploadId}")
+    public ResponseEntity<Void> cancelUpload(@PathVariable("postId") Long postId,
+                                             @PathVariable("uploadId") String uploadId) {
+
+        return chunkedUploadService.cancelUpload(postId, uploadId);
+    }
+}
@@ -0,0 +1,30 @@
+package com.my.blog.project.myblogonboot.myblog.controller;
+
+import com.my.blog.project.myblogonboot.myblog.config.ConcurrencyLimitInterceptor;
+import com.my.blog.project.myblogonboot.myblog.config.ConnectionPools;
+import com.my.blog.project.myblogonboot.myblog.dto.admin.PoolsResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@Profile("!reactive")
+@RequestMapping("/api/admin")
+public class PoolController {
+
+    @Autowired
+    private ConnectionPools connectionPools;
+
+    @Autowired
+    private List<ConcurrencyLimitInterceptor> requestLimiters;
+
+    @GetMapping("/pools")
+    public PoolsResponse getPools() {
+        return new PoolsResponse(connectionPools.getStats(),
+                requestLimiters.stream().map(ConcurrencyLimitInterceptor::getStats).toList());
+    }
+}
@@ -0,0 +1,41 @@
+package com.my.blog.project.myblogonboot.myblog.controller;
+
+import com.my.blog.project.myblogonboot.myblog.config.QueryStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+@RestController
+@Profile("!reactive")
+@RequestMapping("/api/admin/queries")
+public class QueryController {
+
+    @Autowired
+    private QueryStats queryStats;
+
+    @GetMapping
+    public ResponseEntity<List<QueryStats.QueryStat>> getTopQueries(
+            @RequestParam(value = "limit", defaultValue = "20") int limit,
+            @RequestParam(value = "orderBy", defaultValue = "total") String orderBy) {
+        String order = orderBy.toUpperCase(Locale.ROOT);
+        if (limit <= 0 || Arrays.stream(QueryStats.Order.values()).noneMatch(value -> value.name().equals(order))) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(queryStats.top(limit, QueryStats.Order.valueOf(order)));
+    }
+
+    @DeleteMapping
+    public ResponseEntity<Void> resetQueries() {
+        queryStats.reset();
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,12 @@
+package com.my.blog.project.myblogonboot.myblog.dto.admin;
+
+import com.my.blog.project.myblogonboot.myblog.config.ConcurrencyLimitInterceptor;
+import com.my.blog.project.myblogonboot.myblog.config.ConnectionPools;
+
+import java.util.List;
+
+public record PoolsResponse(
+        List<ConnectionPools.PoolStats> pools,
+        List<ConcurrencyLimitInterceptor.LimitStats> limits
+) {
+}
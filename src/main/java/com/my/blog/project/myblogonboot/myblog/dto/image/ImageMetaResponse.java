@@ -0,0 +1,10 @@
+package com.my.blog.project.myblogonboot.myblog.dto.image;
+
+public record ImageMetaResponse(
+        long postId,
+        String filename,
+        String contentType,
+        long sizeBytes,
+        String hash
+) {
+}
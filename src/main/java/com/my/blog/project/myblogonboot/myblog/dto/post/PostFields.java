@@ -0,0 +1,44 @@
+package com.my.blog.project.myblogonboot.myblog.dto.post;
+
+import java.util.Arrays;
+import java.util.List;
+
+// The PostResponse properties a client asked for with ?fields=title,likesCount. Besides trimming the response it decides
+// which columns the repository selects, whether post_images is joined and whether tags are loaded at all. id is always
+// part of the response
+public record PostFields(boolean title, boolean text, boolean tags, boolean likesCount, boolean commentsCount,
+                         boolean hasImage, boolean imageContentType, boolean imageSizeBytes) {
+
+    public static final PostFields ALL = new PostFields(true, true, true, true, true, true, true, true);
+
+    private static final List<String> NAMES = List.of("id", "title", "text", "tags", "likesCount", "commentsCount",
+            "hasImage", "imageContentType", "imageSizeBytes");
+
+    // Blank means everything, an unknown name is rejected rather than silently dropped
+    public static PostFields parse(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return ALL;
+        }
+        List<String> names = Arrays.stream(fields.split(","))
+                .map(String::trim)
+                .filter(name -> !name.isEmpty())
+                .toList();
+        for (String name : names) {
+            if (!NAMES.contains(name)) {
+                throw new IllegalArgumentException("Unknown field '" + name + "', expected one of " + NAMES);
+            }
+        }
+        return new PostFields(names.contains("title"), names.contains("text"), names.contains("tags"),
+                names.contains("likesCount"), names.contains("commentsCount"), names.contains("hasImage"),
+                names.contains("imageContentType"), names.contains("imageSizeBytes"));
+    }
+
+    public boolean isAll() {
+        return equals(ALL);
+    }
+
+    // Any image property needs the post_images join
+    public boolean image() {
+        return hasImage || imageContentType || imageSizeBytes;
+    }
+}
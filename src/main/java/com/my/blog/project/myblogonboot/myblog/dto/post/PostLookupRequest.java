@@ -0,0 +1,19 @@
+package com.my.blog.project.myblogonboot.myblog.dto.post;
+
+import java.util.List;
+import java.util.Objects;
+
+public record PostLookupRequest(List<Long> ids) {
+
+    public static final int MAX_IDS = 100;
+
+    public boolean isValid() {
+        return ids != null && !ids.isEmpty() && ids.stream().noneMatch(Objects::isNull)
+                && distinctIds().size() <= MAX_IDS;
+    }
+
+    // Request order, repeated ids only once
+    public List<Long> distinctIds() {
+        return ids.stream().distinct().toList();
+    }
+}
@@ -0,0 +1,28 @@
+package com.my.blog.project.myblogonboot.myblog.dto.post;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+public record PostLookupResponse(List<PostResponse> posts, List<Long> missing) {
+
+    // Found posts in the order they were asked for, ids without a post go to missing
+    public static PostLookupResponse inRequestOrder(List<Long> ids, Collection<PostResponse> found) {
+        Map<Long, PostResponse> byId = found.stream()
+                .collect(Collectors.toMap(PostResponse::id, Function.identity()));
+        List<PostResponse> posts = new ArrayList<>(found.size());
+        List<Long> missing = new ArrayList<>();
+        for (Long id : ids) {
+            PostResponse post = byId.get(id);
+            if (post != null) {
+                posts.add(post);
+            } else {
+                missing.add(id);
+            }
+        }
+        return new PostLookupResponse(posts, missing);
+    }
+}
@@ -8,6 +8,9 @@ public record PostResponse(
         String text,
         List<String> tags,
         int likesCount,
-        int commentsCount
+        int commentsCount,
+        boolean hasImage,
+        String imageContentType,
+        Long imageSizeBytes
 ) {
 }
@@ -0,0 +1,36 @@
+package com.my.blog.project.myblogonboot.myblog.dto.post;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+// How a post is rendered for ?fields=..., the properties not asked for are null and omitted. The full PostResponse
+// keeps its null properties, e.g. imageContentType of a post without an image
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record SparsePostResponse(
+        long id,
+        String title,
+        String text,
+        List<String> tags,
+        Integer likesCount,
+        Integer commentsCount,
+        Boolean hasImage,
+        String imageContentType,
+        Long imageSizeBytes
+) {
+
+    public static SparsePostResponse of(PostResponse response, PostFields fields) {
+        if (response == null) {
+            return null;
+        }
+        return new SparsePostResponse(response.id(),
+                fields.title() ? response.title() : null,
+                fields.text() ? response.text() : null,
+                fields.tags() ? response.tags() : null,
+                fields.likesCount() ? response.likesCount() : null,
+                fields.commentsCount() ? response.commentsCount() : null,
+                fields.hasImage() ? response.hasImage() : null,
+                fields.imageContentType() ? response.imageContentType() : null,
+                fields.imageSizeBytes() ? response.imageSizeBytes() : null);
+    }
+}
@@ -0,0 +1,15 @@
+package com.my.blog.project.myblogonboot.myblog.dto.post;
+
+import java.util.List;
+
+public record SparsePostsResponse(List<SparsePostResponse> posts, boolean hasPrev, boolean hasNext,
+                                  int lastPage) {
+
+    public static SparsePostsResponse of(PostsResponse page, PostFields fields) {
+        if (page == null) {
+            return null;
+        }
+        return new SparsePostsResponse(page.posts().stream().map(post -> SparsePostResponse.of(post, fields)).toList(),
+                page.hasPrev(), page.hasNext(), page.lastPage());
+    }
+}
@@ -0,0 +1,8 @@
+package com.my.blog.project.myblogonboot.myblog.dto.upload;
+
+public record CreateUploadRequest(
+        String filename,
+        String contentType,
+        long length
+) {
+}
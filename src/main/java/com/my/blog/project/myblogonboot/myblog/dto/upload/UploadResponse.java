@@ -0,0 +1,12 @@
+package com.my.blog.project.myblogonboot.myblog.dto.upload;
+
+import java.time.Instant;
+
+public record UploadResponse(
+        String uploadId,
+        long postId,
+        long offset,
+        long length,
+        Instant expiresAt
+) {
+}
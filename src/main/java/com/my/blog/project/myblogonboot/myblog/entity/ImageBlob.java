@@ -0,0 +1,17 @@
+package com.my.blog.project.myblogonboot.myblog.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ImageBlob {
+
+    private String hash;
+    private byte[] data;
+    private String contentType;
+    private Long sizeBytes;
+    private Integer refCount;
+}
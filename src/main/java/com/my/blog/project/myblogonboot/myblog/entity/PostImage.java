@@ -14,4 +14,11 @@ public class PostImage {
     private String contentType;
     private Long sizeBytes;
     private String filename;
+    private String hash;
+
+    public void setData(byte[] data) {
+        // A hash computed for the previous bytes no longer describes the image
+        this.data = data;
+        this.hash = null;
+    }
 }
@@ -0,0 +1,17 @@
+package com.my.blog.project.myblogonboot.myblog.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PostImageVariant {
+
+    private Long postId;
+    private Integer width;
+    private byte[] data;
+    private String contentType;
+    private Long sizeBytes;
+}
@@ -0,0 +1,37 @@
+package com.my.blog.project.myblogonboot.myblog.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("myblog.ImageTransfer")
+@Label("Image Transfer")
+@Category({"MyBlog", "Images"})
+@Description("Image bytes read for a download or written by an upload")
+@StackTrace(false)
+public class ImageTransferEvent extends Event {
+
+    public static final String DOWNLOAD = "download";
+    public static final String UPLOAD = "upload";
+
+    @Label("Direction")
+    public String direction;
+
+    @Label("Post Id")
+    public long postId;
+
+    // 0 for the original image
+    @Label("Width")
+    public int width;
+
+    @Label("Served From Cache")
+    public boolean cached;
+
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+}
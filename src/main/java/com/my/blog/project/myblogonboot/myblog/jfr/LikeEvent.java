@@ -0,0 +1,20 @@
+package com.my.blog.project.myblogonboot.myblog.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("myblog.Like")
+@Label("Like")
+@Category({"MyBlog", "Posts"})
+@StackTrace(false)
+public class LikeEvent extends Event {
+
+    @Label("Post Id")
+    public long postId;
+
+    @Label("Likes After")
+    public long likes;
+}
@@ -0,0 +1,29 @@
+package com.my.blog.project.myblogonboot.myblog.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("myblog.RepositoryCall")
+@Label("Repository Call")
+@Category({"MyBlog", "Database"})
+@Description("One call of a public repository method")
+@StackTrace(false)
+public class RepositoryCallEvent extends Event {
+
+    @Label("Repository")
+    public String repository;
+
+    @Label("Method")
+    public String method;
+
+    // Size of a returned list or page, 1 or 0 for a single entity, -1 when the result is not rows
+    @Label("Rows Returned")
+    public int rows;
+
+    @Label("Failed")
+    public boolean failed;
+}
@@ -0,0 +1,55 @@
+package com.my.blog.project.myblogonboot.myblog.jfr;
+
+import com.my.blog.project.myblogonboot.myblog.repository.PostRepository;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Optional;
+
+// Emits a RepositoryCallEvent around every public JDBC repository method. With the event disabled this is a
+// begin/end pair on an object the JIT can scalar-replace
+@Aspect
+@Component
+public class RepositoryEventAspect {
+
+    @Around("execution(public * com.my.blog.project.myblogonboot.myblog.repository.*Repository.*(..))")
+    public Object record(ProceedingJoinPoint joinPoint) throws Throwable {
+        RepositoryCallEvent event = new RepositoryCallEvent();
+        event.begin();
+        Object result = null;
+        boolean failed = true;
+        try {
+            result = joinPoint.proceed();
+            failed = false;
+            return result;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.repository = joinPoint.getSignature().getDeclaringType().getSimpleName();
+                event.method = joinPoint.getSignature().getName();
+                event.rows = failed ? -1 : rowsOf(result);
+                event.failed = failed;
+                event.commit();
+            }
+        }
+    }
+
+    private static int rowsOf(Object result) {
+        if (result instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        if (result instanceof PostRepository.PageResult<?> page) {
+            return page.getContent().size();
+        }
+        if (result instanceof Optional<?> optional) {
+            return optional.isPresent() ? 1 : 0;
+        }
+        if (result == null || result instanceof Boolean || result instanceof Number) {
+            return -1;
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,34 @@
+package com.my.blog.project.myblogonboot.myblog.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("myblog.SearchExecute")
+@Label("Search Execute")
+@Category({"MyBlog", "Search"})
+@Description("Feed page query including count, tags and mapping")
+@StackTrace(false)
+public class SearchExecuteEvent extends Event {
+
+    @Label("Tags")
+    public int tags;
+
+    @Label("Has Title Query")
+    public boolean hasQuery;
+
+    @Label("Page Number")
+    public int pageNumber;
+
+    @Label("Page Size")
+    public int pageSize;
+
+    @Label("Rows Returned")
+    public int rows;
+
+    @Label("Total Matches")
+    public long total;
+}
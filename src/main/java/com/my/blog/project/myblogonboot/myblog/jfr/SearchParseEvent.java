@@ -0,0 +1,25 @@
+package com.my.blog.project.myblogonboot.myblog.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("myblog.SearchParse")
+@Label("Search Parse")
+@Category({"MyBlog", "Search"})
+@Description("Search string split into title query and tags")
+@StackTrace(false)
+public class SearchParseEvent extends Event {
+
+    @Label("Input Length")
+    public int inputLength;
+
+    @Label("Tags")
+    public int tags;
+
+    @Label("Has Title Query")
+    public boolean hasQuery;
+}
@@ -0,0 +1,14 @@
+package com.my.blog.project.myblogonboot.myblog.mapper;
+
+import com.my.blog.project.myblogonboot.myblog.dto.image.ImageMetaResponse;
+import com.my.blog.project.myblogonboot.myblog.entity.PostImage;
+import org.mapstruct.Mapper;
+import org.mapstruct.MappingConstants;
+import org.mapstruct.ReportingPolicy;
+
+@Mapper(componentModel = MappingConstants.ComponentModel.SPRING, unmappedTargetPolicy =
+        ReportingPolicy.IGNORE)
+public interface ImageMapper {
+
+    ImageMetaResponse toMetaDto(PostImage postImage);
+}
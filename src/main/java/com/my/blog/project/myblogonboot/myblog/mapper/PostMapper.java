@@ -5,6 +5,7 @@ import com.my.blog.project.myblogonboot.myblog.dto.post.PostResponse;
 import com.my.blog.project.myblogonboot.myblog.entity.Post;
 import com.my.blog.project.myblogonboot.myblog.entity.Tag;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 import org.mapstruct.MappingConstants;
 import org.mapstruct.ReportingPolicy;
 
@@ -19,6 +20,9 @@ public interface PostMapper {
 
     Post toEntity(PostRequest postRequest);
 
+    @Mapping(target = "hasImage", expression = "java(post.getImage() != null)")
+    @Mapping(target = "imageContentType", source = "image.contentType")
+    @Mapping(target = "imageSizeBytes", source = "image.sizeBytes")
     PostResponse toDto(Post post);
 
     default Set<Tag> map(List<String> list) {
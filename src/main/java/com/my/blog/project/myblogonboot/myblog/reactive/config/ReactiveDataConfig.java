@@ -0,0 +1,58 @@
+package com.my.blog.project.myblogonboot.myblog.reactive.config;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.jdbc.autoconfigure.JdbcConnectionDetails;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+import java.time.Duration;
+
+@Configuration(proxyBeanMethods = false)
+@Profile("reactive")
+public class ReactiveDataConfig {
+
+    // Built from the same connection details as the JDBC pool, Liquibase keeps migrating over JDBC
+    @Bean(destroyMethod = "dispose")
+    public ConnectionPool connectionPool(JdbcConnectionDetails connectionDetails,
+                                         @Value("${reactive.r2dbc.pool.initial-size:5}") int initialSize,
+                                         @Value("${reactive.r2dbc.pool.max-size:20}") int maxSize,
+                                         @Value("${reactive.r2dbc.pool.max-idle-time:PT30M}") Duration maxIdleTime) {
+        ConnectionFactoryOptions options = ConnectionFactoryOptions.parse(toR2dbcUrl(connectionDetails.getJdbcUrl()))
+                .mutate()
+                .option(ConnectionFactoryOptions.USER, connectionDetails.getUsername())
+                .option(ConnectionFactoryOptions.PASSWORD, connectionDetails.getPassword())
+                .build();
+        return new ConnectionPool(ConnectionPoolConfiguration.builder(ConnectionFactories.get(options))
+                .initialSize(initialSize)
+                .maxSize(maxSize)
+                .maxIdleTime(maxIdleTime)
+                .build());
+    }
+
+    @Bean
+    public DatabaseClient databaseClient(ConnectionFactory connectionFactory) {
+        return DatabaseClient.create(connectionFactory);
+    }
+
+    // Deliberately not a TransactionManager bean, that would stop Boot from creating the JDBC one
+    @Bean
+    public TransactionalOperator transactionalOperator(ConnectionFactory connectionFactory) {
+        return TransactionalOperator.create(new R2dbcTransactionManager(connectionFactory));
+    }
+
+    static String toR2dbcUrl(String jdbcUrl) {
+        // jdbc:postgresql://host:5432/db?loggerLevel=OFF -> r2dbc:postgresql://host:5432/db, JDBC-only options are dropped
+        String url = jdbcUrl.startsWith("jdbc:") ? jdbcUrl.substring("jdbc:".length()) : jdbcUrl;
+        int query = url.indexOf('?');
+        return "r2dbc:" + (query >= 0 ? url.substring(0, query) : url);
+    }
+}
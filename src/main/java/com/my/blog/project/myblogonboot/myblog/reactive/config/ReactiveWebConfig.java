@@ -0,0 +1,56 @@
+package com.my.blog.project.myblogonboot.myblog.reactive.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.http.codec.cbor.JacksonCborDecoder;
+import org.springframework.http.codec.cbor.JacksonCborEncoder;
+import org.springframework.http.codec.smile.JacksonSmileDecoder;
+import org.springframework.http.codec.smile.JacksonSmileEncoder;
+import org.springframework.web.reactive.config.CorsRegistry;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+import tools.jackson.dataformat.cbor.CBORMapper;
+import tools.jackson.dataformat.smile.SmileMapper;
+
+@Configuration(proxyBeanMethods = false)
+@Profile("reactive")
+public class ReactiveWebConfig implements WebFluxConfigurer {
+
+    @Autowired
+    private CBORMapper cborMapper;
+
+    @Autowired
+    private SmileMapper smileMapper;
+
+    @Value("${cors.allowed-origins:http://localhost}")
+    private String[] allowedOrigins;
+
+    @Value("${cors.allowed-methods:*}")
+    private String[] allowedMethods;
+
+    @Value("${cors.max-age:3600}")
+    private long maxAge;
+
+    @Override
+    public void addCorsMappings(CorsRegistry registry) {
+        registry.addMapping("/api/**")
+                .allowedOrigins(allowedOrigins)
+                .allowedMethods(allowedMethods)
+                .allowedHeaders("*")
+                .exposedHeaders("Content-Type", "Content-Length", "Content-Disposition", "Content-Location", "ETag")
+                .allowCredentials(true)
+                .maxAge(maxAge);
+    }
+
+    // Custom encoders are consulted after the default JSON one, so JSON is still picked when Accept allows it.
+    // The decoders read CBOR and Smile request bodies, as the servlet converters do
+    @Override
+    public void configureHttpMessageCodecs(ServerCodecConfigurer configurer) {
+        configurer.customCodecs().register(new JacksonCborEncoder(cborMapper));
+        configurer.customCodecs().register(new JacksonCborDecoder(cborMapper));
+        configurer.customCodecs().register(new JacksonSmileEncoder(smileMapper));
+        configurer.customCodecs().register(new JacksonSmileDecoder(smileMapper));
+    }
+}
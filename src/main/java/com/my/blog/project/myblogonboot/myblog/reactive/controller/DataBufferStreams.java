@@ -0,0 +1,30 @@
+package com.my.blog.project.myblogonboot.myblog.reactive.controller;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import reactor.core.publisher.Flux;
+
+import java.nio.ByteBuffer;
+
+final class DataBufferStreams {
+
+    private static final int CHUNK_BYTES = 64 * 1024;
+
+    private DataBufferStreams() {
+    }
+
+    // Emits slices of the (possibly off-heap) buffer as demand arrives, nothing is copied on the way to the socket
+    static Flux<DataBuffer> chunked(ByteBuffer data) {
+        return Flux.generate(data::duplicate, (remaining, sink) -> {
+            if (!remaining.hasRemaining()) {
+                sink.complete();
+                return remaining;
+            }
+            int length = Math.min(CHUNK_BYTES, remaining.remaining());
+            ByteBuffer chunk = remaining.slice(remaining.position(), length);
+            remaining.position(remaining.position() + length);
+            sink.next(DefaultDataBufferFactory.sharedInstance.wrap(chunk));
+            return remaining;
+        });
+    }
+}
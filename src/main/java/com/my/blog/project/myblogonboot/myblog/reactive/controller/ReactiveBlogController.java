@@ -0,0 +1,198 @@
+package com.my.blog.project.myblogonboot.myblog.reactive.controller;
+
+import com.my.blog.project.myblogonboot.myblog.dto.comment.CommentRequest;
+import com.my.blog.project.myblogonboot.myblog.dto.comment.CommentResponse;
+import com.my.blog.project.myblogonboot.myblog.dto.image.ImageMetaResponse;
+import com.my.blog.project.myblogonboot.myblog.dto.post.PostFields;
+import com.my.blog.project.myblogonboot.myblog.dto.post.PostLookupRequest;
+import com.my.blog.project.myblogonboot.myblog.dto.post.PostLookupResponse;
+import com.my.blog.project.myblogonboot.myblog.dto.post.PostRequest;
+import com.my.blog.project.myblogonboot.myblog.dto.post.PostResponse;
+import com.my.blog.project.myblogonboot.myblog.dto.post.PostsResponse;
+import com.my.blog.project.myblogonboot.myblog.dto.post.SparsePostResponse;
+import com.my.blog.project.myblogonboot.myblog.dto.post.SparsePostsResponse;
+import com.my.blog.project.myblogonboot.myblog.reactive.service.ReactiveCommentService;
+import com.my.blog.project.myblogonboot.myblog.reactive.service.ReactiveImageService;
+import com.my.blog.project.myblogonboot.myblog.reactive.service.ReactivePostService;
+import com.my.blog.project.myblogonboot.myblog.service.BlogMetrics;
+import com.my.blog.project.myblogonboot.myblog.service.ImageContent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.multipart.FilePart;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RequestPart;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+// Same contract as BlogController, served by WebFlux and R2DBC when the reactive profile is active
+@RestController
+@Profile("reactive")
+@RequestMapping("/api/posts")
+public class ReactiveBlogController {
+
+    @Autowired
+    private ReactivePostService postService;
+    @Autowired
+    private ReactiveCommentService commentService;
+    @Autowired
+    private ReactiveImageService imageService;
+    @Autowired
+    private BlogMetrics blogMetrics;
+
+    @GetMapping
+    public Mono<PostsResponse> getAllPosts(@RequestParam(value = "search", required = false) String search,
+                                           @RequestParam(value = "pageNumber", defaultValue = "0") int pageNumber,
+                                           @RequestParam(value = "pageSize", defaultValue = "20") int pageSize) {
+        return postService.getPosts(search, pageNumber, pageSize);
+    }
+
+    @GetMapping(params = {"fields", "!ids"})
+    public Mono<SparsePostsResponse> getSparsePosts(@RequestParam(value = "search", required = false) String search,
+                                                    @RequestParam(value = "pageNumber", defaultValue = "0") int pageNumber,
+                                                    @RequestParam(value = "pageSize", defaultValue = "20") int pageSize,
+                                                    @RequestParam("fields") String fields) {
+        PostFields postFields = parseFields(fields);
+        return postService.getPosts(search, pageNumber, pageSize).map(page -> SparsePostsResponse.of(page, postFields));
+    }
+
+    @GetMapping(params = "ids")
+    public Mono<ResponseEntity<PostLookupResponse>> getPostsByIds(@RequestParam("ids") List<Long> ids) {
+        return postService.lookupPosts(new PostLookupRequest(ids));
+    }
+
+    @PostMapping("/lookup")
+    public Mono<ResponseEntity<PostLookupResponse>> lookupPosts(@RequestBody PostLookupRequest request) {
+        return postService.lookupPosts(request);
+    }
+
+    @GetMapping("/{postId}")
+    public Mono<PostResponse> getPost(@PathVariable("postId") Long postId) {
+        return postService.getPostById(postId);
+    }
+
+    @GetMapping(value = "/{postId}", params = "fields")
+    public Mono<SparsePostResponse> getSparsePost(@PathVariable("postId") Long postId,
+                                                  @RequestParam("fields") String fields) {
+        PostFields postFields = parseFields(fields);
+        return postService.getPostById(postId).map(post -> SparsePostResponse.of(post, postFields));
+    }
+
+    @GetMapping("/{postId}/comments")
+    public Mono<ResponseEntity<List<CommentResponse>>> getPostComments(@PathVariable("postId") Long postId) {
+        return commentService.getCommentsByPostId(postId);
+    }
+
+    @GetMapping("/{postId}/comments/{commentId}")
+    public Mono<ResponseEntity<CommentResponse>> getPostComment(@PathVariable("postId") Long postId,
+                                                                @PathVariable("commentId") Long commentId) {
+        return commentService.getCommentByPostIdAndCommentId(postId, commentId);
+    }
+
+    @GetMapping("/{postId}/image")
+    public Mono<ResponseEntity<Flux<DataBuffer>>> downloadImage(@PathVariable(name = "postId") long postId,
+                                                                @RequestParam(value = "w", required = false) Integer width) {
+        if (width != null && width <= 0) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+        Mono<ImageContent> image = width != null
+                ? imageService.getPostImageVariantContent(postId, width)
+                : imageService.getPostImageContent(postId);
+        String source = width != null ? "variant" : "post";
+        return image
+                .doOnNext(content -> blogMetrics.imageServed(source, content.size()))
+                .map(this::imageResponse)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/{postId}/image/meta")
+    public Mono<ResponseEntity<ImageMetaResponse>> getImageMeta(@PathVariable(name = "postId") long postId) {
+
+        return imageService.getPostImageMeta(postId);
+    }
+
+    @PostMapping
+    public Mono<PostResponse> addPost(@RequestBody PostRequest postRequest) {
+
+        return postService.savePost(postRequest);
+    }
+
+    @PostMapping("/{postId}/likes")
+    public Mono<Long> addLikeToPost(@PathVariable(name = "postId") long postId) {
+
+        return postService.incrementLike(postId);
+    }
+
+    @PostMapping("/{postId}/comments")
+    public Mono<ResponseEntity<CommentResponse>> addComment(@PathVariable("postId") Long postId,
+                                                            @RequestBody CommentRequest request) {
+        return commentService.addComment(postId, request);
+    }
+
+    @PutMapping("/{postId}")
+    public Mono<PostResponse> updatePost(@RequestBody PostRequest postRequest,
+                                         @PathVariable("postId") Long postId) {
+
+        return postService.updatePost(postId, postRequest);
+    }
+
+    @PutMapping("/{postId}/image")
+    public Mono<ResponseEntity<Void>> uploadImage(@PathVariable(name = "postId") Long postId,
+                                                  @RequestPart("image") FilePart image) {
+
+        return imageService.uploadImage(postId, image);
+    }
+
+    @PutMapping("/{postId}/comments/{commentId}")
+    public Mono<CommentResponse> updatePostComment(@RequestBody CommentRequest commentRequest,
+                                                   @PathVariable("postId") Long postId,
+                                                   @PathVariable("commentId") Long commentId) {
+
+        return commentService.updatePostComment(postId, commentId, commentRequest);
+    }
+
+    @DeleteMapping("/{postId}")
+    public Mono<ResponseEntity<Void>> deletePost(@PathVariable("postId") Long postId) {
+
+        return postService.deletePost(postId);
+    }
+
+    private ResponseEntity<Flux<DataBuffer>> imageResponse(ImageContent image) {
+        MediaType mediaType = MediaType.APPLICATION_OCTET_STREAM;
+        if (image.contentType() != null) {
+            mediaType = MediaType.parseMediaType(image.contentType());
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (image.hash() != null) {
+            response.header(HttpHeaders.CONTENT_LOCATION, "/api/images/" + image.hash());
+        }
+        return response
+                .contentType(mediaType)
+                .contentLength(image.size())
+                .body(DataBufferStreams.chunked(image.data()));
+    }
+
+    // Only trims the response, the R2DBC queries still read every column
+    private static PostFields parseFields(String fields) {
+        try {
+            return PostFields.parse(fields);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.my.blog.project.myblogonboot.myblog.reactive.controller;
+
+import com.my.blog.project.myblogonboot.myblog.reactive.service.ReactiveImageService;
+import com.my.blog.project.myblogonboot.myblog.service.BlogMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@RestController
+@Profile("reactive")
+@RequestMapping("/api/images")
+public class ReactiveImageController {
+
+    private static final String IMMUTABLE = "public, max-age=31536000, immutable";
+
+    @Autowired
+    private ReactiveImageService imageService;
+
+    @Autowired
+    private BlogMetrics blogMetrics;
+
+    @GetMapping("/{hash}")
+    public Mono<ResponseEntity<Flux<DataBuffer>>> getImage(@PathVariable("hash") String hash,
+                                                           ServerWebExchange exchange) {
+        if (exchange.checkNotModified(hash)) {
+            return Mono.just(ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .header(HttpHeaders.CACHE_CONTROL, IMMUTABLE)
+                    .build());
+        }
+        return imageService.getImageContentByHash(hash)
+                .doOnNext(image -> blogMetrics.imageServed("hash", image.size()))
+                .map(image -> {
+                    MediaType mediaType = MediaType.APPLICATION_OCTET_STREAM;
+                    if (image.contentType() != null) {
+                        mediaType = MediaType.parseMediaType(image.contentType());
+                    }
+                    return ResponseEntity.ok()
+                            .header(HttpHeaders.CACHE_CONTROL, IMMUTABLE)
+                            .eTag(hash)
+                            .contentType(mediaType)
+                            .contentLength(image.size())
+                            .body(DataBufferStreams.chunked(image.data()));
+                })
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+}
@@ -0,0 +1,70 @@
+package com.my.blog.project.myblogonboot.myblog.reactive.repository;
+
+import com.my.blog.project.myblogonboot.myblog.entity.Comment;
+import io.r2dbc.spi.Readable;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.function.Function;
+
+@Repository
+@Profile("reactive")
+@RequiredArgsConstructor
+public class ReactiveCommentRepository {
+
+    private final DatabaseClient databaseClient;
+
+    private final Function<Readable, Comment> commentRowMapper = row -> {
+        Comment comment = new Comment();
+        comment.setId(ReactiveRows.getLong(row, "id"));
+        comment.setPostId(ReactiveRows.getLong(row, "post_id"));
+        comment.setText(row.get("text", String.class));
+        return comment;
+    };
+
+    public Flux<Comment> findByPostIdOrderByIdAsc(Long postId) {
+        return databaseClient.sql("SELECT id, post_id, text FROM comments WHERE post_id = :postId ORDER BY id ASC")
+                .bind("postId", postId)
+                .map(commentRowMapper)
+                .all();
+    }
+
+    public Mono<Comment> findByPostIdAndId(Long postId, Long commentId) {
+        return databaseClient.sql("SELECT id, post_id, text FROM comments WHERE post_id = :postId AND id = :id")
+                .bind("postId", postId)
+                .bind("id", commentId)
+                .map(commentRowMapper)
+                .one();
+    }
+
+    public Mono<Comment> save(Comment comment) {
+        if (comment.getId() == null) {
+            return databaseClient.sql("INSERT INTO comments (post_id, text) VALUES (:postId, :text) RETURNING id")
+                    .bind("postId", comment.getPostId())
+                    .bind("text", ReactiveRows.nullable(comment.getText(), String.class))
+                    .map(row -> ReactiveRows.getLong(row, "id"))
+                    .one()
+                    .map(id -> {
+                        comment.setId(id);
+                        return comment;
+                    });
+        }
+        return databaseClient.sql("UPDATE comments SET post_id = :postId, text = :text WHERE id = :id")
+                .bind("postId", comment.getPostId())
+                .bind("text", ReactiveRows.nullable(comment.getText(), String.class))
+                .bind("id", comment.getId())
+                .then()
+                .thenReturn(comment);
+    }
+
+    public Mono<Long> deleteByPostId(Long postId) {
+        return databaseClient.sql("DELETE FROM comments WHERE post_id = :postId")
+                .bind("postId", postId)
+                .fetch()
+                .rowsUpdated();
+    }
+}
@@ -0,0 +1,172 @@
+package com.my.blog.project.myblogonboot.myblog.reactive.repository;
+
+import com.my.blog.project.myblogonboot.myblog.entity.ImageBlob;
+import com.my.blog.project.myblogonboot.myblog.entity.PostImage;
+import com.my.blog.project.myblogonboot.myblog.entity.PostImageVariant;
+import com.my.blog.project.myblogonboot.myblog.repository.ContentHash;
+import io.r2dbc.spi.Readable;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.util.function.Function;
+
+@Repository
+@Profile("reactive")
+@RequiredArgsConstructor
+public class ReactivePostImageRepository {
+
+    private final DatabaseClient databaseClient;
+
+    private final Function<Readable, PostImage> postImageMetaRowMapper = row -> {
+        PostImage postImage = new PostImage();
+        postImage.setPostId(ReactiveRows.getLong(row, "post_id"));
+        postImage.setContentType(row.get("content_type", String.class));
+        postImage.setSizeBytes(ReactiveRows.getLong(row, "size_bytes"));
+        postImage.setFilename(row.get("filename", String.class));
+        postImage.setHash(row.get("image_hash", String.class));
+        return postImage;
+    };
+
+    private final Function<Readable, PostImage> postImageRowMapper = row -> {
+        PostImage postImage = postImageMetaRowMapper.apply(row);
+        String hash = postImage.getHash();
+        // setData() clears the hash, the bytes still belong to it
+        postImage.setData(row.get("data", byte[].class));
+        postImage.setHash(hash);
+        return postImage;
+    };
+
+    public Mono<PostImage> findByPostId(Long postId) {
+        String sql = """
+            SELECT pi.post_id, b.data, pi.content_type, pi.size_bytes, pi.filename, pi.image_hash
+            FROM post_images pi
+            INNER JOIN image_blobs b ON b.hash = pi.image_hash
+            WHERE pi.post_id = :postId
+            """;
+        return databaseClient.sql(sql).bind("postId", postId).map(postImageRowMapper).one();
+    }
+
+    public Mono<PostImage> findMetaByPostId(Long postId) {
+        String sql = "SELECT post_id, content_type, size_bytes, filename, image_hash FROM post_images WHERE post_id = :postId";
+        return databaseClient.sql(sql).bind("postId", postId).map(postImageMetaRowMapper).one();
+    }
+
+    public Mono<ImageBlob> findBlobByHash(String hash) {
+        return databaseClient.sql("SELECT hash, data, content_type, size_bytes, ref_count FROM image_blobs WHERE hash = :hash")
+                .bind("hash", hash)
+                .map(row -> new ImageBlob(row.get("hash", String.class), row.get("data", byte[].class),
+                        row.get("content_type", String.class), ReactiveRows.getLong(row, "size_bytes"),
+                        ReactiveRows.getInt(row, "ref_count")))
+                .one();
+    }
+
+    public Mono<PostImageVariant> findVariant(Long postId, int width) {
+        String sql = """
+            SELECT post_id, width, data, content_type, size_bytes
+            FROM post_image_variants
+            WHERE post_id = :postId AND width = :width
+            """;
+        return databaseClient.sql(sql)
+                .bind("postId", postId)
+                .bind("width", width)
+                .map(row -> new PostImageVariant(ReactiveRows.getLong(row, "post_id"), ReactiveRows.getInt(row, "width"),
+                        row.get("data", byte[].class), row.get("content_type", String.class),
+                        ReactiveRows.getLong(row, "size_bytes")))
+                .one();
+    }
+
+    public Mono<Void> deleteVariants(Long postId) {
+        return databaseClient.sql("DELETE FROM post_image_variants WHERE post_id = :postId")
+                .bind("postId", postId)
+                .then();
+    }
+
+    // Same reference counting and insert-or-replace as PostImageRepository, expected to run in a transaction
+    public Mono<PostImage> save(PostImage postImage) {
+        if (postImage.getHash() == null) {
+            postImage.setHash(ContentHash.sha256Hex(postImage.getData()));
+        }
+        return acquireBlob(postImage)
+                .then(upsert(postImage))
+                .thenReturn(postImage);
+    }
+
+    // A first upload is a plain insert, otherwise the locked row is replaced and the hash it held is released
+    private Mono<Void> upsert(PostImage postImage) {
+        Mono<Long> insert = databaseClient.sql("""
+                INSERT INTO post_images (post_id, image_hash, content_type, size_bytes, filename)
+                VALUES (:postId, :hash, :contentType, :sizeBytes, :filename)
+                ON CONFLICT (post_id) DO NOTHING
+                """)
+                .bind("postId", postImage.getPostId())
+                .bind("hash", postImage.getHash())
+                .bind("contentType", ReactiveRows.nullable(postImage.getContentType(), String.class))
+                .bind("sizeBytes", ReactiveRows.nullable(postImage.getSizeBytes(), Long.class))
+                .bind("filename", ReactiveRows.nullable(postImage.getFilename(), String.class))
+                .fetch()
+                .rowsUpdated();
+        Mono<String> replace = databaseClient.sql("""
+                UPDATE post_images p SET
+                    image_hash = :hash,
+                    content_type = :contentType,
+                    size_bytes = :sizeBytes,
+                    filename = :filename
+                FROM (SELECT post_id, image_hash FROM post_images WHERE post_id = :postId FOR UPDATE) previous
+                WHERE p.post_id = previous.post_id
+                RETURNING previous.image_hash
+                """)
+                .bind("postId", postImage.getPostId())
+                .bind("hash", postImage.getHash())
+                .bind("contentType", ReactiveRows.nullable(postImage.getContentType(), String.class))
+                .bind("sizeBytes", ReactiveRows.nullable(postImage.getSizeBytes(), Long.class))
+                .bind("filename", ReactiveRows.nullable(postImage.getFilename(), String.class))
+                .map(row -> row.get("image_hash", String.class))
+                .one();
+        return insert.flatMap(inserted -> inserted > 0
+                ? Mono.<Void>empty()
+                : replace.flatMap(hash -> releaseBlob(hash).thenReturn(hash))
+                        // The image was deleted between the two statements, insert again
+                        .switchIfEmpty(Mono.defer(() -> upsert(postImage)).then(Mono.empty()))
+                        .then());
+    }
+
+    public Mono<Boolean> deleteByPostId(Long postId) {
+        return databaseClient.sql("DELETE FROM post_images WHERE post_id = :postId RETURNING image_hash")
+                .bind("postId", postId)
+                .map(row -> row.get("image_hash", String.class))
+                .all()
+                .concatMap(hash -> releaseBlob(hash).thenReturn(hash))
+                .hasElements();
+    }
+
+    private Mono<Void> acquireBlob(PostImage postImage) {
+        byte[] data = postImage.getData();
+        Mono<Void> insert = databaseClient.sql("""
+                INSERT INTO image_blobs (hash, data, content_type, size_bytes, ref_count)
+                VALUES (:hash, :data, :contentType, :sizeBytes, 1)
+                ON CONFLICT (hash) DO UPDATE SET ref_count = image_blobs.ref_count + 1
+                """)
+                .bind("hash", postImage.getHash())
+                .bind("data", data)
+                .bind("contentType", ReactiveRows.nullable(postImage.getContentType(), String.class))
+                .bind("sizeBytes", (long) data.length)
+                .then();
+        return databaseClient.sql("UPDATE image_blobs SET ref_count = ref_count + 1 WHERE hash = :hash")
+                .bind("hash", postImage.getHash())
+                .fetch()
+                .rowsUpdated()
+                .flatMap(updated -> updated > 0 ? Mono.<Void>empty() : insert);
+    }
+
+    private Mono<Void> releaseBlob(String hash) {
+        return databaseClient.sql("UPDATE image_blobs SET ref_count = ref_count - 1 WHERE hash = :hash")
+                .bind("hash", hash)
+                .then()
+                .then(databaseClient.sql("DELETE FROM image_blobs WHERE hash = :hash AND ref_count <= 0")
+                        .bind("hash", hash)
+                        .then());
+    }
+}
@@ -0,0 +1,234 @@
+package com.my.blog.project.myblogonboot.myblog.reactive.repository;
+
+import com.my.blog.project.myblogonboot.myblog.entity.Post;
+import com.my.blog.project.myblogonboot.myblog.entity.PostImage;
+import com.my.blog.project.myblogonboot.myblog.entity.Tag;
+import com.my.blog.project.myblogonboot.myblog.repository.PostRepository.PageResult;
+import io.r2dbc.spi.Readable;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+@Repository
+@Profile("reactive")
+@RequiredArgsConstructor
+public class ReactivePostRepository {
+
+    private static final String SELECT_POSTS = """
+        SELECT p.id, p.title, p.text, p.likes_count, p.comments_count,
+               pi.image_hash, pi.content_type AS image_content_type, pi.size_bytes AS image_size_bytes
+        FROM posts p
+        LEFT JOIN post_images pi ON pi.post_id = p.id
+        """;
+
+    private final DatabaseClient databaseClient;
+
+    private final Function<Readable, Post> postRowMapper = row -> {
+        Post post = new Post();
+        post.setId(ReactiveRows.getLong(row, "id"));
+        post.setTitle(row.get("title", String.class));
+        post.setText(row.get("text", String.class));
+        post.setLikesCount(ReactiveRows.getInt(row, "likes_count"));
+        post.setCommentsCount(ReactiveRows.getInt(row, "comments_count"));
+        post.setTags(new HashSet<>());
+        String imageHash = row.get("image_hash", String.class);
+        if (imageHash != null) {
+            PostImage image = new PostImage();
+            image.setPostId(post.getId());
+            image.setContentType(row.get("image_content_type", String.class));
+            image.setSizeBytes(ReactiveRows.getLong(row, "image_size_bytes"));
+            image.setHash(imageHash);
+            post.setImage(image);
+        }
+        return post;
+    };
+
+    public Mono<PageResult<Post>> searchByTitleAndAllTagNames(String query, boolean hasQuery,
+                                                              List<String> tagNames, boolean hasTags,
+                                                              long tagsCount, int page, int size) {
+        int zeroBasedPage = Math.max(0, page - 1);
+
+        StringBuilder sqlBuilder = new StringBuilder(SELECT_POSTS);
+        Map<String, Object> params = new HashMap<>();
+
+        if (hasTags) {
+            sqlBuilder.append("INNER JOIN posts_tags pt ON p.id = pt.post_id ");
+            sqlBuilder.append("INNER JOIN tags t ON pt.tag_id = t.id ");
+        }
+
+        List<String> whereConditions = new ArrayList<>();
+        if (hasQuery) {
+            whereConditions.add("LOWER(p.title) LIKE LOWER(:query)");
+            params.put("query", "%" + query + "%");
+        }
+        if (hasTags) {
+            // Bound as one text[] rather than a collection, which would expand into a bind marker per element
+            whereConditions.add("LOWER(t.name) = ANY(:tagNames)");
+            params.put("tagNames", tagNames.stream().map(String::toLowerCase).toArray(String[]::new));
+        }
+        if (!whereConditions.isEmpty()) {
+            sqlBuilder.append("WHERE ").append(String.join(" AND ", whereConditions)).append(" ");
+        }
+        if (hasTags) {
+            sqlBuilder.append("GROUP BY p.id, p.title, p.text, p.likes_count, p.comments_count, pi.post_id ");
+            sqlBuilder.append("HAVING COUNT(DISTINCT t.id) = :tagsCount ");
+            params.put("tagsCount", tagsCount);
+        }
+
+        String countSql = "SELECT COUNT(*) AS total FROM (" + sqlBuilder + ") AS count_query";
+        Mono<Long> total = databaseClient.sql(countSql)
+                .bindValues(params)
+                .map(row -> ReactiveRows.getLong(row, "total"))
+                .one()
+                .defaultIfEmpty(0L);
+
+        sqlBuilder.append("ORDER BY p.id DESC LIMIT :limit OFFSET :offset");
+        Map<String, Object> pageParams = new HashMap<>(params);
+        pageParams.put("limit", size);
+        pageParams.put("offset", zeroBasedPage * size);
+        Mono<List<Post>> posts = databaseClient.sql(sqlBuilder.toString())
+                .bindValues(pageParams)
+                .map(postRowMapper)
+                .all()
+                .collectList()
+                .flatMap(this::loadTagsForPosts);
+
+        // Both statements go out at once, each on its own pooled connection
+        return Mono.zip(posts, total)
+                .map(result -> new PageResult<>(result.getT1(), result.getT2(), page, size));
+    }
+
+    public Mono<Post> findPostById(Long id) {
+        return databaseClient.sql(SELECT_POSTS + "WHERE p.id = :id")
+                .bind("id", id)
+                .map(postRowMapper)
+                .one()
+                .flatMap(post -> loadTagsForPosts(List.of(post)).thenReturn(post));
+    }
+
+    public Mono<List<Post>> findPostsByIds(Collection<Long> ids) {
+        return databaseClient.sql(SELECT_POSTS + "WHERE p.id = ANY(:ids)")
+                .bind("ids", ids.toArray(Long[]::new))
+                .map(postRowMapper)
+                .all()
+                .collectList()
+                .flatMap(this::loadTagsForPosts);
+    }
+
+    public Mono<Boolean> existsById(Long id) {
+        return databaseClient.sql("SELECT 1 FROM posts WHERE id = :id")
+                .bind("id", id)
+                .map(row -> Boolean.TRUE)
+                .one()
+                .defaultIfEmpty(Boolean.FALSE);
+    }
+
+    public Mono<Post> save(Post post) {
+        Mono<Post> saved;
+        if (post.getId() == null) {
+            saved = databaseClient.sql("""
+                    INSERT INTO posts (title, text, likes_count, comments_count)
+                    VALUES (:title, :text, :likes, :comments)
+                    RETURNING id
+                    """)
+                    .bind("title", ReactiveRows.nullable(post.getTitle(), String.class))
+                    .bind("text", ReactiveRows.nullable(post.getText(), String.class))
+                    .bind("likes", post.getLikesCount() != null ? post.getLikesCount() : 0)
+                    .bind("comments", post.getCommentsCount() != null ? post.getCommentsCount() : 0)
+                    .map(row -> ReactiveRows.getLong(row, "id"))
+                    .one()
+                    .map(id -> {
+                        post.setId(id);
+                        return post;
+                    });
+        } else {
+            saved = databaseClient.sql("""
+                    UPDATE posts SET title = :title, text = :text, likes_count = :likes, comments_count = :comments
+                    WHERE id = :id
+                    """)
+                    .bind("title", ReactiveRows.nullable(post.getTitle(), String.class))
+                    .bind("text", ReactiveRows.nullable(post.getText(), String.class))
+                    .bind("likes", post.getLikesCount() != null ? post.getLikesCount() : 0)
+                    .bind("comments", post.getCommentsCount() != null ? post.getCommentsCount() : 0)
+                    .bind("id", post.getId())
+                    .then()
+                    .thenReturn(post);
+        }
+        return saved.flatMap(this::saveTags);
+    }
+
+    public Mono<Void> deleteById(Long id) {
+        return databaseClient.sql("DELETE FROM posts_tags WHERE post_id = :id")
+                .bind("id", id)
+                .then()
+                .then(databaseClient.sql("DELETE FROM posts WHERE id = :id").bind("id", id).then());
+    }
+
+    // One statement instead of an update followed by a read
+    public Mono<Long> incrementLikes(long postId) {
+        return databaseClient.sql("UPDATE posts SET likes_count = likes_count + 1 WHERE id = :id RETURNING likes_count")
+                .bind("id", postId)
+                .map(row -> ReactiveRows.getLong(row, "likes_count"))
+                .one();
+    }
+
+    public Mono<Void> incrementComments(long postId) {
+        return databaseClient.sql("UPDATE posts SET comments_count = comments_count + 1 WHERE id = :id")
+                .bind("id", postId)
+                .then();
+    }
+
+    private Mono<Post> saveTags(Post post) {
+        Mono<Void> delete = databaseClient.sql("DELETE FROM posts_tags WHERE post_id = :postId")
+                .bind("postId", post.getId())
+                .then();
+        if (post.getTags() == null || post.getTags().isEmpty()) {
+            return delete.thenReturn(post);
+        }
+        return delete
+                .thenMany(Flux.fromIterable(post.getTags())
+                        .concatMap(tag -> databaseClient.sql("INSERT INTO posts_tags (post_id, tag_id) VALUES (:postId, :tagId)")
+                                .bind("postId", post.getId())
+                                .bind("tagId", tag.getId())
+                                .then()))
+                .then(Mono.just(post));
+    }
+
+    private Mono<List<Post>> loadTagsForPosts(List<Post> posts) {
+        if (posts.isEmpty()) {
+            return Mono.just(posts);
+        }
+        Long[] postIds = posts.stream().map(Post::getId).toArray(Long[]::new);
+        String sql = """
+            SELECT pt.post_id, t.id, t.name
+            FROM tags t
+            INNER JOIN posts_tags pt ON t.id = pt.tag_id
+            WHERE pt.post_id = ANY(:postIds)
+            """;
+        return databaseClient.sql(sql)
+                .bind("postIds", postIds)
+                .map(row -> Map.entry(ReactiveRows.getLong(row, "post_id"),
+                        new Tag(ReactiveRows.getLong(row, "id"), row.get("name", String.class))))
+                .all()
+                .collect(HashMap<Long, Set<Tag>>::new,
+                        (tags, entry) -> tags.computeIfAbsent(entry.getKey(), k -> new HashSet<>()).add(entry.getValue()))
+                .map(postTags -> {
+                    for (Post post : posts) {
+                        post.setTags(postTags.getOrDefault(post.getId(), new HashSet<>()));
+                    }
+                    return posts;
+                });
+    }
+}
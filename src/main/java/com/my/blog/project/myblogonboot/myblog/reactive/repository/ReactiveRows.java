@@ -0,0 +1,26 @@
+package com.my.blog.project.myblogonboot.myblog.reactive.repository;
+
+import io.r2dbc.spi.Parameters;
+import io.r2dbc.spi.Readable;
+
+// The schema mixes INTEGER and BIGINT keys, reading through Number works whichever one a column is
+final class ReactiveRows {
+
+    private ReactiveRows() {
+    }
+
+    static Long getLong(Readable row, String name) {
+        Number value = row.get(name, Number.class);
+        return value != null ? value.longValue() : null;
+    }
+
+    static Integer getInt(Readable row, String name) {
+        Number value = row.get(name, Number.class);
+        return value != null ? value.intValue() : null;
+    }
+
+    // A plain bind() rejects null, a typed parameter keeps the statement the same shape either way
+    static Object nullable(Object value, Class<?> type) {
+        return value != null ? value : Parameters.in(type);
+    }
+}
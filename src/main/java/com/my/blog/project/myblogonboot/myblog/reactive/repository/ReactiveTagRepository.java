@@ -0,0 +1,41 @@
+package com.my.blog.project.myblogonboot.myblog.reactive.repository;
+
+import com.my.blog.project.myblogonboot.myblog.entity.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+@Repository
+@Profile("reactive")
+@RequiredArgsConstructor
+public class ReactiveTagRepository {
+
+    private final DatabaseClient databaseClient;
+
+    public Mono<Tag> findByNameIgnoreCase(String name) {
+        return databaseClient.sql("SELECT id, name FROM tags WHERE LOWER(name) = LOWER(:name)")
+                .bind("name", name)
+                .map(row -> new Tag(ReactiveRows.getLong(row, "id"), row.get("name", String.class)))
+                .first();
+    }
+
+    public Mono<Tag> save(Tag tag) {
+        if (tag.getId() == null) {
+            return databaseClient.sql("INSERT INTO tags (name) VALUES (:name) RETURNING id")
+                    .bind("name", tag.getName())
+                    .map(row -> ReactiveRows.getLong(row, "id"))
+                    .one()
+                    .map(id -> {
+                        tag.setId(id);
+                        return tag;
+                    });
+        }
+        return databaseClient.sql("UPDATE tags SET name = :name WHERE id = :id")
+                .bind("name", tag.getName())
+                .bind("id", tag.getId())
+                .then()
+                .thenReturn(tag);
+    }
+}
@@ -0,0 +1,98 @@
+package com.my.blog.project.myblogonboot.myblog.reactive.service;
+
+import com.my.blog.project.myblogonboot.myblog.dto.comment.CommentRequest;
+import com.my.blog.project.myblogonboot.myblog.dto.comment.CommentResponse;
+import com.my.blog.project.myblogonboot.myblog.entity.Comment;
+import com.my.blog.project.myblogonboot.myblog.mapper.CommentMapper;
+import com.my.blog.project.myblogonboot.myblog.reactive.repository.ReactiveCommentRepository;
+import com.my.blog.project.myblogonboot.myblog.reactive.repository.ReactivePostRepository;
+import com.my.blog.project.myblogonboot.myblog.service.BlogMetrics;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+@Service
+@Profile("reactive")
+@RequiredArgsConstructor
+@Slf4j
+public class ReactiveCommentService {
+
+    private final ReactiveCommentRepository commentRepository;
+    private final ReactivePostRepository postRepository;
+    private final CommentMapper commentMapper;
+    private final TransactionalOperator transactionalOperator;
+    private final BlogMetrics blogMetrics;
+
+    public Mono<ResponseEntity<CommentResponse>> getCommentByPostIdAndCommentId(Long postId, Long commentId) {
+        return postRepository.existsById(postId).flatMap(exists -> {
+            if (!exists) {
+                log.warn("Could get comment by post id: {} and comment id: {}", postId, commentId);
+                return Mono.just(ResponseEntity.status(HttpStatus.BAD_REQUEST).<CommentResponse>build());
+            }
+            return commentRepository.findByPostIdAndId(postId, commentId)
+                    .map(comment -> ResponseEntity.ok(commentMapper.toDto(comment)))
+                    .defaultIfEmpty(ResponseEntity.ok().build());
+        });
+    }
+
+    public Mono<ResponseEntity<List<CommentResponse>>> getCommentsByPostId(Long postId) {
+        return postRepository.existsById(postId).flatMap(exists -> {
+            if (!exists) {
+                log.warn("Could get comment because post with id {} does not exist", postId);
+                return Mono.just(ResponseEntity.status(HttpStatus.BAD_REQUEST).<List<CommentResponse>>build());
+            }
+            return commentRepository.findByPostIdOrderByIdAsc(postId)
+                    .collectList()
+                    .map(comments -> ResponseEntity.ok(commentMapper.toDtoList(comments)));
+        });
+    }
+
+    public Mono<CommentResponse> updatePostComment(Long postId, Long commentId, CommentRequest commentRequest) {
+        if (commentRequest == null || commentRequest.text() == null || commentRequest.text().trim().isEmpty()) {
+            log.warn("Cannot update comment - invalid request");
+            return Mono.empty();
+        }
+        String newText = commentRequest.text().trim();
+        return commentRepository.findByPostIdAndId(postId, commentId)
+                .switchIfEmpty(Mono.fromRunnable(() -> log.warn(
+                        "Cannot update comment - comment with id {} for post {} does not exist", commentId, postId)))
+                .flatMap(comment -> {
+                    comment.setText(newText);
+                    return commentRepository.save(comment);
+                })
+                .doOnNext(comment -> log.info("Updated comment {} for post {}", commentId, postId))
+                .map(commentMapper::toDto)
+                .as(transactionalOperator::transactional);
+    }
+
+    public Mono<ResponseEntity<CommentResponse>> addComment(Long postId, CommentRequest commentRequest) {
+        if (commentRequest == null || commentRequest.text() == null || commentRequest.text().trim().isEmpty()) {
+            return Mono.just(ResponseEntity.status(HttpStatus.BAD_REQUEST).build());
+        }
+        String text = commentRequest.text().trim();
+        return postRepository.existsById(postId)
+                .flatMap(exists -> {
+                    if (!exists) {
+                        log.warn("Could not create comment because post with id {} does not exist", postId);
+                        return Mono.just(ResponseEntity.status(HttpStatus.NOT_FOUND).<CommentResponse>build());
+                    }
+                    // The counter is bumped in place rather than by re-saving the whole post with its tags
+                    return commentRepository.save(new Comment(postId, text))
+                            .flatMap(comment -> postRepository.incrementComments(postId).thenReturn(comment))
+                            .map(comment -> ResponseEntity.ok(commentMapper.toDto(comment)));
+                })
+                .as(transactionalOperator::transactional)
+                .doOnSuccess(response -> {
+                    if (response != null && response.getStatusCode().is2xxSuccessful()) {
+                        blogMetrics.commentAdded();
+                    }
+                });
+    }
+}
@@ -0,0 +1,163 @@
+package com.my.blog.project.myblogonboot.myblog.reactive.service;
+
+import com.my.blog.project.myblogonboot.myblog.dto.image.ImageMetaResponse;
+import com.my.blog.project.myblogonboot.myblog.entity.PostImage;
+import com.my.blog.project.myblogonboot.myblog.mapper.ImageMapper;
+import com.my.blog.project.myblogonboot.myblog.reactive.repository.ReactivePostImageRepository;
+import com.my.blog.project.myblogonboot.myblog.reactive.repository.ReactivePostRepository;
+import com.my.blog.project.myblogonboot.myblog.repository.ContentHash;
+import com.my.blog.project.myblogonboot.myblog.service.ImageCache;
+import com.my.blog.project.myblogonboot.myblog.service.ImageContent;
+import com.my.blog.project.myblogonboot.myblog.service.ThumbnailService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.multipart.FilePart;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Optional;
+
+@Service
+@Profile("reactive")
+@RequiredArgsConstructor
+@Slf4j
+public class ReactiveImageService {
+
+    private static final int MAX_IMAGE_BYTES = 100 * 1024 * 1024;
+
+    private final ReactivePostImageRepository postImageRepository;
+    private final ReactivePostRepository postRepository;
+    private final ThumbnailService thumbnailService;
+    private final ImageCache imageCache;
+    private final ImageMapper imageMapper;
+    private final TransactionalOperator transactionalOperator;
+
+    public Mono<ResponseEntity<Void>> uploadImage(Long postId, FilePart image) {
+        MediaType mediaType = image.headers().getContentType();
+        String contentType = mediaType != null ? mediaType.toString() : null;
+
+        // Joined with a cap, an oversized part fails as soon as the limit is crossed instead of after buffering it all
+        return DataBufferUtils.join(image.content(), MAX_IMAGE_BYTES)
+                .map(ReactiveImageService::toBytes)
+                .defaultIfEmpty(new byte[0])
+                .flatMap(data -> {
+                    if (data.length == 0) {
+                        return Mono.just(ResponseEntity.status(HttpStatus.BAD_REQUEST).<Void>build());
+                    }
+                    PostImage postImage = new PostImage();
+                    postImage.setPostId(postId);
+                    postImage.setData(data);
+                    postImage.setHash(ContentHash.sha256Hex(data));
+                    postImage.setContentType(contentType);
+                    postImage.setSizeBytes((long) data.length);
+                    postImage.setFilename(image.filename());
+                    return store(postImage);
+                })
+                .onErrorResume(DataBufferLimitException.class,
+                        e -> Mono.just(ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build()));
+    }
+
+    public Mono<ResponseEntity<ImageMetaResponse>> getPostImageMeta(Long postId) {
+        return postImageRepository.findMetaByPostId(postId)
+                .map(postImage -> ResponseEntity.ok(imageMapper.toMetaDto(postImage)))
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    public Mono<ImageContent> getPostImageContent(Long postId) {
+        String key = ImageCache.postKey(postId);
+        return Mono.defer(() -> {
+            Optional<ImageContent> cached = imageCache.get(key);
+            if (cached.isPresent()) {
+                return Mono.just(cached.get());
+            }
+            long generation = imageCache.generation();
+            return postImageRepository.findByPostId(postId)
+                    .filter(postImage -> postImage.getData() != null && postImage.getData().length > 0)
+                    .map(postImage -> imageCache.put(key, postImage.getData(), postImage.getContentType(),
+                            postImage.getHash(), generation));
+        });
+    }
+
+    public Mono<ImageContent> getPostImageVariantContent(Long postId, int requestedWidth) {
+        int width = thumbnailService.resolveWidth(requestedWidth);
+        String key = ImageCache.variantKey(postId, width);
+        return Mono.defer(() -> {
+            Optional<ImageContent> cached = imageCache.get(key);
+            if (cached.isPresent()) {
+                return Mono.just(cached.get());
+            }
+            long generation = imageCache.generation();
+            return postImageRepository.findVariant(postId, width)
+                    .map(variant -> imageCache.put(key, variant.getData(), variant.getContentType(), null, generation))
+                    .switchIfEmpty(Mono.defer(() -> resizeOriginal(postId, width)));
+        });
+    }
+
+    public Mono<ImageContent> getImageContentByHash(String hash) {
+        if (!ContentHash.isValid(hash)) {
+            return Mono.empty();
+        }
+        String key = ImageCache.hashKey(hash);
+        return Mono.defer(() -> {
+            Optional<ImageContent> cached = imageCache.get(key);
+            if (cached.isPresent()) {
+                return Mono.just(cached.get());
+            }
+            long generation = imageCache.generation();
+            return postImageRepository.findBlobByHash(hash)
+                    .map(blob -> imageCache.put(key, blob.getData(), blob.getContentType(), blob.getHash(), generation));
+        });
+    }
+
+    private Mono<ResponseEntity<Void>> store(PostImage postImage) {
+        Long postId = postImage.getPostId();
+        byte[] data = postImage.getData();
+        String hash = postImage.getHash();
+        String contentType = postImage.getContentType();
+        return postRepository.existsById(postId)
+                .flatMap(exists -> {
+                    if (!exists) {
+                        log.warn("Could not update image because post with id {} does not exist", postId);
+                        return Mono.just(ResponseEntity.notFound().<Void>build());
+                    }
+                    return postImageRepository.save(postImage)
+                            .then(postImageRepository.deleteVariants(postId))
+                            .thenReturn(ResponseEntity.noContent().<Void>build());
+                })
+                .as(transactionalOperator::transactional)
+                .doOnNext(response -> {
+                    if (response.getStatusCode().is2xxSuccessful()) {
+                        imageCache.invalidatePost(postId);
+                        thumbnailService.scheduleVariants(postId, hash, data, contentType);
+                    }
+                });
+    }
+
+    private Mono<ImageContent> resizeOriginal(Long postId, int width) {
+        // Decoding and scaling is CPU bound and the variant is stored over JDBC, both are kept off the event loop
+        return postImageRepository.findByPostId(postId)
+                .filter(original -> original.getData() != null && original.getData().length > 0)
+                .publishOn(Schedulers.boundedElastic())
+                .map(original -> thumbnailService.createVariant(original, width))
+                .map(variant -> ImageContent.of(variant.getData(), variant.getContentType(), null));
+    }
+
+    private static byte[] toBytes(DataBuffer buffer) {
+        try {
+            byte[] bytes = new byte[buffer.readableByteCount()];
+            buffer.read(bytes);
+            return bytes;
+        } finally {
+            DataBufferUtils.release(buffer);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.my.blog.project.myblogonboot.myblog.reactive.service;
+
+import com.my.blog.project.myblogonboot.myblog.dto.post.PostLookupRequest;
+import com.my.blog.project.myblogonboot.myblog.dto.post.PostLookupResponse;
+import com.my.blog.project.myblogonboot.myblog.dto.post.PostRequest;
+import com.my.blog.project.myblogonboot.myblog.dto.post.PostResponse;
+import com.my.blog.project.myblogonboot.myblog.dto.post.PostsResponse;
+import com.my.blog.project.myblogonboot.myblog.dto.search.SearchQuery;
+import com.my.blog.project.myblogonboot.myblog.entity.Post;
+import com.my.blog.project.myblogonboot.myblog.entity.Tag;
+import com.my.blog.project.myblogonboot.myblog.mapper.PostMapper;
+import com.my.blog.project.myblogonboot.myblog.reactive.repository.ReactiveCommentRepository;
+import com.my.blog.project.myblogonboot.myblog.reactive.repository.ReactivePostImageRepository;
+import com.my.blog.project.myblogonboot.myblog.reactive.repository.ReactivePostRepository;
+import com.my.blog.project.myblogonboot.myblog.reactive.repository.ReactiveTagRepository;
+import com.my.blog.project.myblogonboot.myblog.service.BlogMetrics;
+import com.my.blog.project.myblogonboot.myblog.service.ImageCache;
+import com.my.blog.project.myblogonboot.myblog.service.SearchQueryBuilder;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Service
+@Profile("reactive")
+@RequiredArgsConstructor
+@Slf4j
+public class ReactivePostService {
+
+    private final ReactivePostRepository postRepository;
+    private final ReactiveTagRepository tagRepository;
+    private final ReactivePostImageRepository postImageRepository;
+    private final ReactiveCommentRepository commentRepository;
+    private final PostMapper postMapper;
+    private final BlogMetrics blogMetrics;
+    private final SearchQueryBuilder queryBuilder;
+    private final ImageCache imageCache;
+    private final TransactionalOperator transactionalOperator;
+
+    public Mono<PostsResponse> getPosts(String searchRequest, int pageNumber, int pageSize) {
+        SearchQuery searchQuery = queryBuilder.buildSearchQuery(searchRequest);
+
+        int page = Math.max(pageNumber, 1);
+        int size = pageSize <= 0 ? 20 : Math.min(pageSize, 100);
+
+        return postRepository.searchByTitleAndAllTagNames(
+                        searchQuery.searchQuery(),
+                        searchQuery.hasQuery(),
+                        searchQuery.tagsFromSearch(),
+                        searchQuery.hasTags(),
+                        searchQuery.tagsFromSearch().size(),
+                        page,
+                        size)
+                .map(result -> {
+                    List<PostResponse> items = result.getContent().stream().map(postMapper::toDto).toList();
+                    int totalPages = result.getTotalPages();
+                    return new PostsResponse(items, page > 1 && totalPages > 0, page < totalPages, totalPages);
+                });
+    }
+
+    public Mono<PostResponse> savePost(PostRequest postRequest) {
+        Post post = postMapper.toEntity(postRequest);
+        return resolveTags(post.getTags().stream().map(Tag::getName).toList())
+                .flatMap(tags -> {
+                    post.setTags(tags);
+                    return postRepository.save(post);
+                })
+                .map(postMapper::toDto)
+                .as(transactionalOperator::transactional);
+    }
+
+    public Mono<PostResponse> updatePost(Long id, PostRequest postRequest) {
+        return postRepository.findPostById(id)
+                .flatMap(post -> {
+                    post.setTitle(postRequest.title());
+                    post.setText(postRequest.text());
+                    List<String> tagNames = postRequest.tags() != null ? postRequest.tags() : List.of();
+                    return resolveTags(tagNames).flatMap(tags -> {
+                        post.setTags(tags);
+                        return postRepository.save(post);
+                    });
+                })
+                .map(postMapper::toDto)
+                .as(transactionalOperator::transactional);
+    }
+
+    public Mono<ResponseEntity<Void>> deletePost(Long postId) {
+        Mono<ResponseEntity<Void>> delete = postRepository.existsById(postId)
+                .flatMap(exists -> {
+                    if (!exists) {
+                        log.warn("Cannot delete post with id {} because it does not exist", postId);
+                        return Mono.just(ResponseEntity.notFound().<Void>build());
+                    }
+                    return commentRepository.deleteByPostId(postId)
+                            .doOnNext(deleted -> {
+                                if (deleted > 0) {
+                                    log.info("Deleted {} comments for post {}", deleted, postId);
+                                }
+                            })
+                            .then(postImageRepository.deleteByPostId(postId))
+                            .then(postRepository.deleteById(postId))
+                            .thenReturn(ResponseEntity.noContent().<Void>build());
+                })
+                .as(transactionalOperator::transactional);
+        // Outside the transactional operator, so the cache is only touched once the delete committed
+        return delete.doOnNext(response -> {
+            if (response.getStatusCode().is2xxSuccessful()) {
+                imageCache.invalidatePost(postId);
+            }
+        });
+    }
+
+    public Mono<PostResponse> getPostById(Long id) {
+        return postRepository.findPostById(id).map(postMapper::toDto);
+    }
+
+    public Mono<ResponseEntity<PostLookupResponse>> lookupPosts(PostLookupRequest request) {
+        if (!request.isValid()) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+        List<Long> ids = request.distinctIds();
+        return postRepository.findPostsByIds(ids)
+                .map(posts -> ResponseEntity.ok(PostLookupResponse.inRequestOrder(ids,
+                        posts.stream().map(postMapper::toDto).toList())));
+    }
+
+    // An unknown post completes empty and must not count as a like
+    public Mono<Long> incrementLike(long postId) {
+        return postRepository.incrementLikes(postId)
+                .doOnNext(likes -> blogMetrics.likeAdded());
+    }
+
+    private Mono<Set<Tag>> resolveTags(Collection<String> tagNames) {
+        // Sequential on purpose, two new spellings of the same tag must not race each other into the table
+        return Flux.fromIterable(tagNames)
+                .concatMap(name -> tagRepository.findByNameIgnoreCase(name)
+                        .switchIfEmpty(Mono.defer(() -> tagRepository.save(new Tag(name)))))
+                .collect(Collectors.toSet());
+    }
+}
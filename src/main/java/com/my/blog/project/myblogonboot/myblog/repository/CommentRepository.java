@@ -1,6 +1,7 @@
 package com.my.blog.project.myblogonboot.myblog.repository;
 
 import com.my.blog.project.myblogonboot.myblog.entity.Comment;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
@@ -12,6 +13,7 @@ import java.sql.PreparedStatement;
 import java.util.List;
 
 @Repository
+@Timed(value = "blog.repository", histogram = true)
 @RequiredArgsConstructor
 public class CommentRepository {
 
@@ -1,19 +1,26 @@
 package com.my.blog.project.myblogonboot.myblog.repository;
 
+import com.my.blog.project.myblogonboot.myblog.entity.ImageBlob;
 import com.my.blog.project.myblogonboot.myblog.entity.PostImage;
-import lombok.RequiredArgsConstructor;
+import com.my.blog.project.myblogonboot.myblog.config.DataSourceConfig;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Repository;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-@RequiredArgsConstructor
+@Timed(value = "blog.repository", histogram = true)
 public class PostImageRepository {
 
     private final JdbcTemplate jdbcTemplate;
+    // Anything that moves image bytes runs on the blob pool, metadata and deletes stay on the main one
+    private final JdbcTemplate blobJdbcTemplate;
 
     private final RowMapper<PostImage> postImageRowMapper = (rs, rowNum) -> {
         PostImage postImage = new PostImage();
@@ -22,31 +29,141 @@ public class PostImageRepository {
         postImage.setContentType(rs.getString("content_type"));
         postImage.setSizeBytes(rs.getLong("size_bytes"));
         postImage.setFilename(rs.getString("filename"));
+        postImage.setHash(rs.getString("image_hash"));
         return postImage;
     };
 
+    private final RowMapper<PostImage> postImageMetaRowMapper = (rs, rowNum) -> {
+        PostImage postImage = new PostImage();
+        postImage.setPostId(rs.getLong("post_id"));
+        postImage.setContentType(rs.getString("content_type"));
+        postImage.setSizeBytes(rs.getLong("size_bytes"));
+        postImage.setFilename(rs.getString("filename"));
+        postImage.setHash(rs.getString("image_hash"));
+        return postImage;
+    };
+
+    private final RowMapper<ImageBlob> imageBlobRowMapper = (rs, rowNum) -> {
+        ImageBlob imageBlob = new ImageBlob();
+        imageBlob.setHash(rs.getString("hash"));
+        imageBlob.setData(rs.getBytes("data"));
+        imageBlob.setContentType(rs.getString("content_type"));
+        imageBlob.setSizeBytes(rs.getLong("size_bytes"));
+        imageBlob.setRefCount(rs.getInt("ref_count"));
+        return imageBlob;
+    };
+
+    public PostImageRepository(JdbcTemplate jdbcTemplate,
+                               @Qualifier(DataSourceConfig.BLOB_JDBC_TEMPLATE) JdbcTemplate blobJdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.blobJdbcTemplate = blobJdbcTemplate;
+    }
+
     public Optional<PostImage> findByPostId(Long postId) {
-        String sql = "SELECT post_id, data, content_type, size_bytes, filename FROM post_images WHERE post_id = ?";
-        List<PostImage> postImages = jdbcTemplate.query(sql, postImageRowMapper, postId);
+        String sql = """
+            SELECT pi.post_id, b.data, pi.content_type, pi.size_bytes, pi.filename, pi.image_hash
+            FROM post_images pi
+            INNER JOIN image_blobs b ON b.hash = pi.image_hash
+            WHERE pi.post_id = ?
+            """;
+        List<PostImage> postImages = blobJdbcTemplate.query(sql, postImageRowMapper, postId);
+        return postImages.isEmpty() ? Optional.empty() : Optional.of(postImages.get(0));
+    }
+
+    public Optional<ImageBlob> findBlobByHash(String hash) {
+        String sql = "SELECT hash, data, content_type, size_bytes, ref_count FROM image_blobs WHERE hash = ?";
+        List<ImageBlob> imageBlobs = blobJdbcTemplate.query(sql, imageBlobRowMapper, hash);
+        return imageBlobs.isEmpty() ? Optional.empty() : Optional.of(imageBlobs.get(0));
+    }
+
+    public Optional<PostImage> findMetaByPostId(Long postId) {
+        // Everything but the bytes, no blob is read
+        String sql = "SELECT post_id, content_type, size_bytes, filename, image_hash FROM post_images WHERE post_id = ?";
+        List<PostImage> postImages = jdbcTemplate.query(sql, postImageMetaRowMapper, postId);
         return postImages.isEmpty() ? Optional.empty() : Optional.of(postImages.get(0));
     }
 
     public PostImage save(PostImage postImage) {
-        Optional<PostImage> existing = findByPostId(postImage.getPostId());
-        if (existing.isEmpty()) {
-            String sql = "INSERT INTO post_images (post_id, data, content_type, size_bytes, filename) VALUES (?, ?, ?, ?, ?)";
-            jdbcTemplate.update(sql, postImage.getPostId(), postImage.getData(),
-                               postImage.getContentType(), postImage.getSizeBytes(), postImage.getFilename());
-        } else {
-            String sql = "UPDATE post_images SET data = ?, content_type = ?, size_bytes = ?, filename = ? WHERE post_id = ?";
-            jdbcTemplate.update(sql, postImage.getData(), postImage.getContentType(),
-                               postImage.getSizeBytes(), postImage.getFilename(), postImage.getPostId());
+        if (postImage.getHash() == null) {
+            postImage.setHash(ContentHash.sha256Hex(postImage.getData()));
+        }
+        byte[] data = postImage.getData();
+        return save(postImage, new ByteArrayInputStream(data), data.length);
+    }
+
+    // For content that was never loaded into memory, the hash has to be computed by the caller
+    public PostImage save(PostImage postImage, InputStream data, long length) {
+        // Take the new reference before dropping the old one, re-uploading the same bytes must not free the blob
+        acquireBlob(postImage.getHash(), postImage.getContentType(), data, length);
+
+        // A first upload is a plain insert. Otherwise the row is locked and replaced, and the hash it held is released.
+        // A snapshot read of the old row is not enough: a concurrent first upload commits a row this statement's
+        // snapshot does not see, and its blob reference would never be released
+        String insertSql = """
+            INSERT INTO post_images (post_id, image_hash, content_type, size_bytes, filename)
+            VALUES (?, ?, ?, ?, ?)
+            ON CONFLICT (post_id) DO NOTHING
+            """;
+        String replaceSql = """
+            UPDATE post_images p SET
+                image_hash = ?,
+                content_type = ?,
+                size_bytes = ?,
+                filename = ?
+            FROM (SELECT post_id, image_hash FROM post_images WHERE post_id = ? FOR UPDATE) previous
+            WHERE p.post_id = previous.post_id
+            RETURNING previous.image_hash
+            """;
+        while (true) {
+            if (blobJdbcTemplate.update(insertSql, postImage.getPostId(), postImage.getHash(),
+                    postImage.getContentType(), postImage.getSizeBytes(), postImage.getFilename()) > 0) {
+                break;
+            }
+            List<String> previousHashes = blobJdbcTemplate.queryForList(replaceSql, String.class,
+                    postImage.getHash(), postImage.getContentType(), postImage.getSizeBytes(),
+                    postImage.getFilename(), postImage.getPostId());
+            if (!previousHashes.isEmpty()) {
+                releaseBlob(blobJdbcTemplate, previousHashes.get(0));
+                break;
+            }
+            // The image was deleted between the two statements, insert again
         }
         return postImage;
     }
 
     public void delete(PostImage postImage) {
-        String sql = "DELETE FROM post_images WHERE post_id = ?";
-        jdbcTemplate.update(sql, postImage.getPostId());
+        deleteByPostId(postImage.getPostId());
+    }
+
+    public boolean deleteByPostId(Long postId) {
+        String sql = "DELETE FROM post_images WHERE post_id = ? RETURNING image_hash";
+        List<String> hashes = jdbcTemplate.queryForList(sql, String.class, postId);
+        hashes.forEach(hash -> releaseBlob(jdbcTemplate, hash));
+        return !hashes.isEmpty();
+    }
+
+    private void acquireBlob(String hash, String contentType, InputStream data, long length) {
+        // Known content only bumps the counter, the bytes are sent to the database just once
+        String sql = "UPDATE image_blobs SET ref_count = ref_count + 1 WHERE hash = ?";
+        if (blobJdbcTemplate.update(sql, hash) > 0) {
+            return;
+        }
+        String insertSql = """
+            INSERT INTO image_blobs (hash, data, content_type, size_bytes, ref_count)
+            VALUES (?, ?, ?, ?, 1)
+            ON CONFLICT (hash) DO UPDATE SET ref_count = image_blobs.ref_count + 1
+            """;
+        blobJdbcTemplate.update(insertSql, ps -> {
+            ps.setString(1, hash);
+            ps.setBinaryStream(2, data, length);
+            ps.setString(3, contentType);
+            ps.setLong(4, length);
+        });
+    }
+
+    // Runs on the caller's template so the release commits together with the row that dropped the reference
+    private void releaseBlob(JdbcTemplate template, String hash) {
+        template.update("UPDATE image_blobs SET ref_count = ref_count - 1 WHERE hash = ?", hash);
+        template.update("DELETE FROM image_blobs WHERE hash = ? AND ref_count <= 0", hash);
     }
 }
@@ -0,0 +1,71 @@
+package com.my.blog.project.myblogonboot.myblog.repository;
+
+import com.my.blog.project.myblogonboot.myblog.entity.PostImageVariant;
+import com.my.blog.project.myblogonboot.myblog.config.DataSourceConfig;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+@Timed(value = "blog.repository", histogram = true)
+public class PostImageVariantRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final RowMapper<PostImageVariant> variantRowMapper = (rs, rowNum) -> {
+        PostImageVariant variant = new PostImageVariant();
+        variant.setPostId(rs.getLong("post_id"));
+        variant.setWidth(rs.getInt("width"));
+        variant.setData(rs.getBytes("data"));
+        variant.setContentType(rs.getString("content_type"));
+        variant.setSizeBytes(rs.getLong("size_bytes"));
+        return variant;
+    };
+
+    // Variants are image bytes too, the whole table lives on the blob pool
+    public PostImageVariantRepository(@Qualifier(DataSourceConfig.BLOB_JDBC_TEMPLATE) JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public Optional<PostImageVariant> findByPostIdAndWidth(Long postId, int width) {
+        String sql = "SELECT post_id, width, data, content_type, size_bytes FROM post_image_variants WHERE post_id = ? AND width = ?";
+        List<PostImageVariant> variants = jdbcTemplate.query(sql, variantRowMapper, postId, width);
+        return variants.isEmpty() ? Optional.empty() : Optional.of(variants.get(0));
+    }
+
+    public PostImageVariant save(PostImageVariant variant) {
+        String sql = """
+            INSERT INTO post_image_variants (post_id, width, data, content_type, size_bytes)
+            VALUES (?, ?, ?, ?, ?)
+            ON CONFLICT (post_id, width) DO UPDATE
+            SET data = EXCLUDED.data, content_type = EXCLUDED.content_type, size_bytes = EXCLUDED.size_bytes
+            """;
+        jdbcTemplate.update(sql, variant.getPostId(), variant.getWidth(), variant.getData(),
+                           variant.getContentType(), variant.getSizeBytes());
+        return variant;
+    }
+
+    // Stores the variant only while the post still has the image it was resized from. FOR SHARE waits for an upload
+    // that is replacing the image and then sees its new hash, so a late job cannot overwrite the new image's variants
+    public boolean saveIfCurrent(PostImageVariant variant, String sourceHash) {
+        String sql = """
+            INSERT INTO post_image_variants (post_id, width, data, content_type, size_bytes)
+            SELECT ?, ?, ?, ?, ?
+            WHERE EXISTS (SELECT 1 FROM post_images WHERE post_id = ? AND image_hash = ? FOR SHARE)
+            ON CONFLICT (post_id, width) DO UPDATE
+            SET data = EXCLUDED.data, content_type = EXCLUDED.content_type, size_bytes = EXCLUDED.size_bytes
+            """;
+        return jdbcTemplate.update(sql, variant.getPostId(), variant.getWidth(), variant.getData(),
+                variant.getContentType(), variant.getSizeBytes(), variant.getPostId(), sourceHash) > 0;
+    }
+
+    public void deleteByPostId(Long postId) {
+        String sql = "DELETE FROM post_image_variants WHERE post_id = ?";
+        jdbcTemplate.update(sql, postId);
+    }
+}
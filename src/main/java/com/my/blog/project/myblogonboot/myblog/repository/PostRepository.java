@@ -1,7 +1,11 @@
 package com.my.blog.project.myblogonboot.myblog.repository;
 
+import com.my.blog.project.myblogonboot.myblog.config.ServerTiming;
+import com.my.blog.project.myblogonboot.myblog.dto.post.PostFields;
 import com.my.blog.project.myblogonboot.myblog.entity.Post;
+import com.my.blog.project.myblogonboot.myblog.entity.PostImage;
 import com.my.blog.project.myblogonboot.myblog.entity.Tag;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
@@ -10,21 +14,30 @@ import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
 
 import java.sql.PreparedStatement;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
 import java.util.ArrayList;
 import java.util.Set;
 import java.util.HashSet;
-import java.util.stream.Collectors;
 
 @Repository
+@Timed(value = "blog.repository", histogram = true)
 @RequiredArgsConstructor
 public class PostRepository {
 
+    private static final String SELECT_POSTS = """
+            SELECT p.id, p.title, p.text, p.likes_count, p.comments_count,
+                   pi.image_hash, pi.content_type AS image_content_type, pi.size_bytes AS image_size_bytes
+            FROM posts p
+            LEFT JOIN post_images pi ON pi.post_id = p.id
+            """;
+
     private final JdbcTemplate jdbcTemplate;
 
-    private final RowMapper<Post> postRowMapper = (rs, rowNum) -> {
+    // Row mappers are package-private so the JMH benchmarks can run them against a stub ResultSet
+    final RowMapper<Post> postRowMapper = (rs, rowNum) -> {
         Post post = new Post();
         post.setId(rs.getLong("id"));
         post.setTitle(rs.getString("title"));
@@ -32,12 +45,35 @@ public class PostRepository {
         post.setLikesCount(rs.getInt("likes_count"));
         post.setCommentsCount(rs.getInt("comments_count"));
         post.setTags(new HashSet<>());
+        // Image metadata comes from a LEFT JOIN, the bytes are never part of a post query
+        String imageHash = rs.getString("image_hash");
+        if (imageHash != null) {
+            PostImage image = new PostImage();
+            image.setPostId(post.getId());
+            image.setContentType(rs.getString("image_content_type"));
+            image.setSizeBytes(rs.getLong("image_size_bytes"));
+            image.setHash(imageHash);
+            post.setImage(image);
+        }
         return post;
     };
 
+    final RowMapper<Tag> tagRowMapper = (rs, rowNum) -> {
+        Tag tag = new Tag();
+        tag.setId(rs.getLong("id"));
+        tag.setName(rs.getString("name"));
+        return tag;
+    };
+
     public PageResult<Post> searchByTitleAndAllTagNames(String query, boolean hasQuery,
                                                         List<String> tagNames, boolean hasTags,
                                                         long tagsCount, int page, int size) {
+        return searchByTitleAndAllTagNames(query, hasQuery, tagNames, hasTags, tagsCount, page, size, PostFields.ALL);
+    }
+
+    public PageResult<Post> searchByTitleAndAllTagNames(String query, boolean hasQuery,
+                                                        List<String> tagNames, boolean hasTags,
+                                                        long tagsCount, int page, int size, PostFields fields) {
         // Convert 1-based page number to 0-based for SQL OFFSET
         // Page 1 -> offset 0, Page 2 -> offset 10, etc.
         int zeroBasedPage = Math.max(0, page - 1);
@@ -46,10 +82,7 @@ public class PostRepository {
         List<Object> params = new ArrayList<>();
 
         // Build the base query
-        sqlBuilder.append("""
-            SELECT p.id, p.title, p.text, p.likes_count, p.comments_count
-            FROM posts p
-            """);
+        sqlBuilder.append(selectPosts(fields));
 
         if (hasTags) {
             sqlBuilder.append("INNER JOIN posts_tags pt ON p.id = pt.post_id ");
@@ -63,9 +96,10 @@ public class PostRepository {
             params.add("%" + query + "%");
         }
         if (hasTags) {
-            String placeholders = tagNames.stream().map(n -> "?").collect(Collectors.joining(","));
-            whereConditions.add("LOWER(t.name) IN (" + placeholders + ")");
-            params.addAll(tagNames.stream().map(String::toLowerCase).collect(Collectors.toList()));
+            // One array parameter instead of a placeholder per tag, the statement text does not depend on the tag
+            // count so the server-side prepared statement is reused
+            whereConditions.add("LOWER(t.name) = ANY(?)");
+            params.add(tagNames.stream().map(String::toLowerCase).toArray(String[]::new));
         }
 
         if (!whereConditions.isEmpty()) {
@@ -74,14 +108,18 @@ public class PostRepository {
 
         // Add GROUP BY and HAVING for tag matching
         if (hasTags) {
-            sqlBuilder.append("GROUP BY p.id, p.title, p.text, p.likes_count, p.comments_count ");
+            // p.id and pi.post_id are primary keys, every other selected column depends on them
+            sqlBuilder.append(fields.image() ? "GROUP BY p.id, pi.post_id " : "GROUP BY p.id ");
             sqlBuilder.append("HAVING COUNT(DISTINCT t.id) = ? ");
             params.add(tagsCount);
         }
 
         // Count total results
         String countSql = "SELECT COUNT(*) FROM (" + sqlBuilder + ") AS count_query";
-        Long total = jdbcTemplate.queryForObject(countSql, Long.class, params.toArray());
+        Long total;
+        try (ServerTiming.Phase phase = ServerTiming.start("count")) {
+            total = jdbcTemplate.queryForObject(countSql, Long.class, params.toArray());
+        }
 
         // Add pagination (use 0-based page for SQL OFFSET)
         sqlBuilder.append("ORDER BY p.id DESC ");
@@ -89,26 +127,58 @@ public class PostRepository {
         params.add(size);
         params.add(zeroBasedPage * size);
 
-        List<Post> posts = jdbcTemplate.query(sqlBuilder.toString(), postRowMapper, params.toArray());
-        loadTagsForPosts(posts);
+        List<Post> posts;
+        try (ServerTiming.Phase phase = ServerTiming.start("page")) {
+            posts = jdbcTemplate.query(sqlBuilder.toString(), postRowMapper(fields), params.toArray());
+        }
+        if (fields.tags()) {
+            loadTagsForPosts(posts);
+        }
 
         // Return with original 1-based page number
         return new PageResult<>(posts, total == null ? 0 : total, page, size);
     }
 
     public Post findPostById(Long id) {
-        String sql = "SELECT id, title, text, likes_count, comments_count FROM posts WHERE id = ?";
-        List<Post> posts = jdbcTemplate.query(sql, postRowMapper, id);
+        return findPostById(id, PostFields.ALL);
+    }
+
+    public Post findPostById(Long id, PostFields fields) {
+        String sql = selectPosts(fields) + "WHERE p.id = ?";
+        List<Post> posts;
+        try (ServerTiming.Phase phase = ServerTiming.start("post")) {
+            posts = jdbcTemplate.query(sql, postRowMapper(fields), id);
+        }
         if (posts.isEmpty()) {
             return null;
         }
         Post post = posts.get(0);
-        loadTagsForPost(post);
+        if (fields.tags()) {
+            loadTagsForPost(post);
+        }
         return post;
     }
 
+    // One statement for the posts and one for all their tags, whatever the number of ids
+    public List<Post> findPostsByIds(Collection<Long> ids) {
+        String sql = SELECT_POSTS + "WHERE p.id = ANY(?)";
+        List<Post> posts;
+        try (ServerTiming.Phase phase = ServerTiming.start("posts")) {
+            posts = jdbcTemplate.query(sql, postRowMapper, ids.stream().mapToLong(Long::longValue).toArray());
+        }
+        loadTagsForPosts(posts);
+        return posts;
+    }
+
+    // Existence only, without loading the row and its tags
+    public boolean existsById(Long id) {
+        String sql = "SELECT EXISTS (SELECT 1 FROM posts WHERE id = ?)";
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(sql, Boolean.class, id));
+    }
+
     public Post save(Post post) {
-        if (post.getId() == null) {
+        boolean created = post.getId() == null;
+        if (created) {
             String sql = "INSERT INTO posts (title, text, likes_count, comments_count) VALUES (?, ?, ?, ?)";
             KeyHolder keyHolder = new GeneratedKeyHolder();
             jdbcTemplate.update(connection -> {
@@ -128,21 +198,22 @@ public class PostRepository {
         }
 
         // Update tags relationship
-        saveTags(post);
+        saveTags(post, created);
         return post;
     }
 
-    private void saveTags(Post post) {
-        // Delete existing tag relationships
-        String deleteSql = "DELETE FROM posts_tags WHERE post_id = ?";
-        jdbcTemplate.update(deleteSql, post.getId());
+    private void saveTags(Post post, boolean created) {
+        // Delete existing tag relationships, a post that was just inserted has none
+        if (!created) {
+            String deleteSql = "DELETE FROM posts_tags WHERE post_id = ?";
+            jdbcTemplate.update(deleteSql, post.getId());
+        }
 
-        // Insert new tag relationships
+        // Insert new tag relationships in one statement
         if (post.getTags() != null && !post.getTags().isEmpty()) {
-            String insertSql = "INSERT INTO posts_tags (post_id, tag_id) VALUES (?, ?)";
-            for (Tag tag : post.getTags()) {
-                jdbcTemplate.update(insertSql, post.getId(), tag.getId());
-            }
+            String insertSql = "INSERT INTO posts_tags (post_id, tag_id) SELECT ?, UNNEST(?::bigint[])";
+            long[] tagIds = post.getTags().stream().mapToLong(Tag::getId).toArray();
+            jdbcTemplate.update(insertSql, post.getId(), tagIds);
         }
     }
 
@@ -177,12 +248,10 @@ public class PostRepository {
             INNER JOIN posts_tags pt ON t.id = pt.tag_id
             WHERE pt.post_id = ?
             """;
-        List<Tag> tags = jdbcTemplate.query(sql, (rs, rowNum) -> {
-            Tag tag = new Tag();
-            tag.setId(rs.getLong("id"));
-            tag.setName(rs.getString("name"));
-            return tag;
-        }, post.getId());
+        List<Tag> tags;
+        try (ServerTiming.Phase phase = ServerTiming.start("tags")) {
+            tags = jdbcTemplate.query(sql, tagRowMapper, post.getId());
+        }
         post.setTags(new HashSet<>(tags));
     }
 
@@ -191,30 +260,82 @@ public class PostRepository {
             return;
         }
 
-        String postIds = posts.stream()
-            .map(p -> String.valueOf(p.getId()))
-            .collect(Collectors.joining(","));
+        long[] postIds = posts.stream().mapToLong(Post::getId).toArray();
 
         String sql = """
             SELECT pt.post_id, t.id, t.name
             FROM tags t
             INNER JOIN posts_tags pt ON t.id = pt.tag_id
-            WHERE pt.post_id IN (""" + postIds + ")";
+            WHERE pt.post_id = ANY(?)
+            """;
 
         Map<Long, Set<Tag>> postTagsMap = new HashMap<>();
-        jdbcTemplate.query(sql, rs -> {
-            Long postId = rs.getLong("post_id");
-            Tag tag = new Tag();
-            tag.setId(rs.getLong("id"));
-            tag.setName(rs.getString("name"));
-            postTagsMap.computeIfAbsent(postId, k -> new HashSet<>()).add(tag);
-        });
+        try (ServerTiming.Phase phase = ServerTiming.start("tags")) {
+            jdbcTemplate.query(sql, rs -> {
+                Long postId = rs.getLong("post_id");
+                Tag tag = tagRowMapper.mapRow(rs, 0);
+                postTagsMap.computeIfAbsent(postId, k -> new HashSet<>()).add(tag);
+            }, postIds);
+        }
 
         for (Post post : posts) {
             post.setTags(postTagsMap.getOrDefault(post.getId(), new HashSet<>()));
         }
     }
 
+    // The full select is the same text as before sparse fieldsets, so it keeps sharing prepared statements
+    private static String selectPosts(PostFields fields) {
+        if (fields.isAll()) {
+            return SELECT_POSTS;
+        }
+        StringBuilder sql = new StringBuilder("SELECT p.id");
+        if (fields.title()) {
+            sql.append(", p.title");
+        }
+        if (fields.text()) {
+            sql.append(", p.text");
+        }
+        if (fields.likesCount()) {
+            sql.append(", p.likes_count");
+        }
+        if (fields.commentsCount()) {
+            sql.append(", p.comments_count");
+        }
+        if (fields.image()) {
+            sql.append(", pi.image_hash, pi.content_type AS image_content_type, pi.size_bytes AS image_size_bytes");
+        }
+        sql.append("\nFROM posts p\n");
+        if (fields.image()) {
+            sql.append("LEFT JOIN post_images pi ON pi.post_id = p.id\n");
+        }
+        return sql.toString();
+    }
+
+    // Reads only the selected columns, the rest of the entity stays null
+    private RowMapper<Post> postRowMapper(PostFields fields) {
+        if (fields.isAll()) {
+            return postRowMapper;
+        }
+        return (rs, rowNum) -> {
+            Post post = new Post();
+            post.setId(rs.getLong("id"));
+            post.setTitle(fields.title() ? rs.getString("title") : null);
+            post.setText(fields.text() ? rs.getString("text") : null);
+            post.setLikesCount(fields.likesCount() ? rs.getInt("likes_count") : null);
+            post.setCommentsCount(fields.commentsCount() ? rs.getInt("comments_count") : null);
+            post.setTags(new HashSet<>());
+            if (fields.image() && rs.getString("image_hash") != null) {
+                PostImage image = new PostImage();
+                image.setPostId(post.getId());
+                image.setContentType(rs.getString("image_content_type"));
+                image.setSizeBytes(rs.getLong("image_size_bytes"));
+                image.setHash(rs.getString("image_hash"));
+                post.setImage(image);
+            }
+            return post;
+        };
+    }
+
     public static class PageResult<T> {
         private final List<T> content;
         private final long totalElements;
@@ -1,6 +1,7 @@
 package com.my.blog.project.myblogonboot.myblog.repository;
 
 import com.my.blog.project.myblogonboot.myblog.entity.Tag;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
@@ -9,10 +10,12 @@ import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
 
 import java.sql.PreparedStatement;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
+@Timed(value = "blog.repository", histogram = true)
 @RequiredArgsConstructor
 public class TagRepository {
 
@@ -31,6 +34,26 @@ public class TagRepository {
         return tags.isEmpty() ? Optional.empty() : Optional.of(tags.get(0));
     }
 
+    // One statement for any number of names, served by the LOWER(name) unique index
+    public List<Tag> findByNamesIgnoreCase(Collection<String> names) {
+        if (names.isEmpty()) {
+            return List.of();
+        }
+        String sql = "SELECT id, name FROM tags WHERE LOWER(name) = ANY(?)";
+        String[] lowerNames = names.stream().map(String::toLowerCase).toArray(String[]::new);
+        return jdbcTemplate.query(sql, tagRowMapper, (Object) lowerNames);
+    }
+
+    // Names another writer inserted in the meantime are skipped, not returned
+    public List<Tag> saveAll(Collection<String> names) {
+        if (names.isEmpty()) {
+            return List.of();
+        }
+        String sql = "INSERT INTO tags (name) SELECT UNNEST(?::text[]) " +
+                "ON CONFLICT ((LOWER(name))) DO NOTHING RETURNING id, name";
+        return jdbcTemplate.query(sql, tagRowMapper, (Object) names.toArray(String[]::new));
+    }
+
     public Tag save(Tag tag) {
         if (tag.getId() == null) {
             String sql = "INSERT INTO tags (name) VALUES (?)";
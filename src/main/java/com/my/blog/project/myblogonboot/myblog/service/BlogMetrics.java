@@ -0,0 +1,38 @@
+package com.my.blog.project.myblogonboot.myblog.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+// Business counters, request latencies and query timings come from Micrometer's own instrumentation
+@Component
+public class BlogMetrics {
+
+    private final Counter likes;
+    private final Counter comments;
+    private final MeterRegistry meterRegistry;
+
+    public BlogMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.likes = Counter.builder("blog.likes").description("Likes added to posts").register(meterRegistry);
+        this.comments = Counter.builder("blog.comments").description("Comments added to posts").register(meterRegistry);
+    }
+
+    public void likeAdded() {
+        likes.increment();
+    }
+
+    public void commentAdded() {
+        comments.increment();
+    }
+
+    // source is post, variant or hash, depending on the URL the image was served from
+    public void imageServed(String source, long bytes) {
+        Counter.builder("blog.image.served.bytes")
+                .description("Image bytes written to responses")
+                .baseUnit("bytes")
+                .tag("source", source)
+                .register(meterRegistry)
+                .increment(bytes);
+    }
+}
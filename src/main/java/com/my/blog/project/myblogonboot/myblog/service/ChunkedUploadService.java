@@ -0,0 +1,233 @@
+package com.my.blog.project.myblogonboot.myblog.service;
+
+import com.my.blog.project.myblogonboot.myblog.dto.upload.CreateUploadRequest;
+import com.my.blog.project.myblogonboot.myblog.dto.upload.UploadResponse;
+import com.my.blog.project.myblogonboot.myblog.repository.ContentHash;
+import com.my.blog.project.myblogonboot.myblog.repository.PostRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+@Service
+@Slf4j
+public class ChunkedUploadService {
+
+    public static final String UPLOAD_OFFSET = "Upload-Offset";
+
+    private static final String PART_SUFFIX = ".part";
+
+    private final PostRepository postRepository;
+    private final ImageService imageService;
+    private final Path directory;
+    private final long maxBytes;
+    private final Duration ttl;
+    // Sessions live in memory, an upload has to be resumed against the same instance
+    private final Map<String, UploadSession> sessions = new ConcurrentHashMap<>();
+
+    public ChunkedUploadService(PostRepository postRepository,
+                                ImageService imageService,
+                                @Value("${image.uploads.dir:${java.io.tmpdir}/myblog-uploads}") String directory,
+                                @Value("${image.uploads.max-bytes:104857600}") long maxBytes,
+                                @Value("${image.uploads.ttl:PT1H}") Duration ttl) throws IOException {
+        this.postRepository = postRepository;
+        this.imageService = imageService;
+        this.directory = Files.createDirectories(Path.of(directory));
+        this.maxBytes = maxBytes;
+        this.ttl = ttl;
+    }
+
+    public ResponseEntity<UploadResponse> createUpload(Long postId, CreateUploadRequest request) throws IOException {
+        // The type is checked now, not once the last chunk is in, so a bad one never costs a full transfer
+        if (request == null || request.length() <= 0 || !ImageService.isImageContentType(request.contentType())) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+        if (request.length() > maxBytes) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+        }
+        if (postRepository.findPostById(postId) == null) {
+            log.warn("Could not start upload because post with id {} does not exist", postId);
+            return ResponseEntity.notFound().build();
+        }
+
+        String uploadId = UUID.randomUUID().toString();
+        Path file = Files.createFile(directory.resolve(uploadId + PART_SUFFIX));
+        UploadSession session = new UploadSession(uploadId, postId, request.filename(), request.contentType(),
+                request.length(), file);
+        session.setLastActivity(Instant.now());
+        sessions.put(uploadId, session);
+        log.info("Started upload {} of {} bytes for post {}", uploadId, request.length(), postId);
+
+        return ResponseEntity.created(URI.create("/api/posts/" + postId + "/image/uploads/" + uploadId))
+                .body(toResponse(session));
+    }
+
+    public ResponseEntity<UploadResponse> getUpload(Long postId, String uploadId) {
+        UploadSession session = findSession(postId, uploadId);
+        if (session == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok()
+                .header(UPLOAD_OFFSET, String.valueOf(session.getOffset()))
+                .cacheControl(CacheControl.noStore())
+                .body(toResponse(session));
+    }
+
+    public ResponseEntity<Void> appendChunk(Long postId, String uploadId, long offset, InputStream body) throws IOException {
+        UploadSession session = findSession(postId, uploadId);
+        if (session == null) {
+            return ResponseEntity.notFound().build();
+        }
+        if (!session.getLock().tryLock()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        try {
+            if (offset != session.getOffset()) {
+                return offsetResponse(HttpStatus.CONFLICT, session);
+            }
+            try (FileChannel channel = FileChannel.open(session.getFile(), StandardOpenOption.WRITE)) {
+                // Anything past the acknowledged offset is a leftover of a failed chunk, the retry overwrites it
+                channel.truncate(offset);
+                try {
+                    // Copied through a small fixed buffer, memory does not grow with the chunk size
+                    channel.transferFrom(Channels.newChannel(body), offset, session.getLength() - offset);
+                } finally {
+                    // Whatever reached the file counts, an interrupted client resumes from here
+                    session.setOffset(channel.size());
+                    session.setLastActivity(Instant.now());
+                }
+            }
+            if (body.read() != -1) {
+                return offsetResponse(HttpStatus.PAYLOAD_TOO_LARGE, session);
+            }
+            return offsetResponse(HttpStatus.NO_CONTENT, session);
+        } finally {
+            session.getLock().unlock();
+        }
+    }
+
+    public ResponseEntity<Void> completeUpload(Long postId, String uploadId) throws IOException {
+        UploadSession session = findSession(postId, uploadId);
+        if (session == null) {
+            return ResponseEntity.notFound().build();
+        }
+        if (!session.getLock().tryLock()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        try {
+            if (session.getOffset() != session.getLength()) {
+                return offsetResponse(HttpStatus.CONFLICT, session);
+            }
+            String hash = hash(session.getFile());
+            ResponseEntity<Void> response = imageService.storeImage(postId, session.getFile(), hash,
+                    session.getContentType(), session.getFilename());
+            discard(session);
+            log.info("Completed upload {} for post {}", uploadId, postId);
+            return response;
+        } finally {
+            session.getLock().unlock();
+        }
+    }
+
+    public ResponseEntity<Void> cancelUpload(Long postId, String uploadId) {
+        UploadSession session = findSession(postId, uploadId);
+        if (session == null) {
+            return ResponseEntity.notFound().build();
+        }
+        if (!session.getLock().tryLock()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        try {
+            discard(session);
+        } finally {
+            session.getLock().unlock();
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    @Scheduled(fixedDelayString = "${image.uploads.cleanup-interval:PT5M}")
+    public void removeExpiredUploads() {
+        Instant cutoff = Instant.now().minus(ttl);
+        for (UploadSession session : sessions.values()) {
+            if (!session.getLastActivity().isAfter(cutoff) && session.getLock().tryLock()) {
+                try {
+                    discard(session);
+                    log.info("Removed abandoned upload {} for post {}", session.getId(), session.getPostId());
+                } finally {
+                    session.getLock().unlock();
+                }
+            }
+        }
+
+        // Leftovers of sessions lost on restart
+        Set<Path> activeFiles = sessions.values().stream().map(UploadSession::getFile).collect(Collectors.toSet());
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + PART_SUFFIX)) {
+            for (Path file : files) {
+                if (!activeFiles.contains(file) && !Files.getLastModifiedTime(file).toInstant().isAfter(cutoff)) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Could not clean up upload directory {}: {}", directory, e.getMessage());
+        }
+    }
+
+    private UploadSession findSession(Long postId, String uploadId) {
+        UploadSession session = sessions.get(uploadId);
+        if (session == null || !session.getPostId().equals(postId)) {
+            return null;
+        }
+        return session;
+    }
+
+    private void discard(UploadSession session) {
+        sessions.remove(session.getId());
+        try {
+            Files.deleteIfExists(session.getFile());
+        } catch (IOException e) {
+            log.warn("Could not delete upload file {}: {}", session.getFile(), e.getMessage());
+        }
+    }
+
+    private String hash(Path file) throws IOException {
+        MessageDigest digest = ContentHash.newDigest();
+        try (InputStream in = new DigestInputStream(Files.newInputStream(file), digest)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        return ContentHash.toHex(digest.digest());
+    }
+
+    private ResponseEntity<Void> offsetResponse(HttpStatus status, UploadSession session) {
+        return ResponseEntity.status(status)
+                .header(UPLOAD_OFFSET, String.valueOf(session.getOffset()))
+                .build();
+    }
+
+    private UploadResponse toResponse(UploadSession session) {
+        return new UploadResponse(session.getId(), session.getPostId(), session.getOffset(), session.getLength(),
+                session.getLastActivity().plus(ttl));
+    }
+}
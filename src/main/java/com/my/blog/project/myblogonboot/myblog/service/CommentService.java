@@ -5,6 +5,7 @@ import com.my.blog.project.myblogonboot.myblog.dto.comment.CommentResponse;
 import com.my.blog.project.myblogonboot.myblog.entity.Comment;
 import com.my.blog.project.myblogonboot.myblog.entity.Post;
 import com.my.blog.project.myblogonboot.myblog.mapper.CommentMapper;
+import io.micrometer.observation.annotation.Observed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import com.my.blog.project.myblogonboot.myblog.repository.CommentRepository;
@@ -12,11 +13,15 @@ import com.my.blog.project.myblogonboot.myblog.repository.PostRepository;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.List;
+import java.util.Optional;
 
 @Service
+@Observed(name = "blog.service")
 @Slf4j
 @RequiredArgsConstructor
 public class CommentService {
@@ -24,11 +29,14 @@ public class CommentService {
     private final CommentRepository commentRepository;
     private final PostRepository postRepository;
     private final CommentMapper commentMapper;
+    private final BlogMetrics blogMetrics;
+    private final SingleFlight singleFlight;
+    private final PostResponseCache postResponseCache;
+    private final PlatformTransactionManager transactionManager;
 
     @Transactional(readOnly = true)
     public ResponseEntity<CommentResponse> getCommentByPostIdAndCommentId(Long postId, Long commentId) {
-        Post post = postRepository.findPostById(postId);
-        if (post == null) {
+        if (!postRepository.existsById(postId)) {
             log.warn("Could get comment by post id: {} and comment id: {}", postId, commentId);
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
         }
@@ -36,15 +44,29 @@ public class CommentService {
         return ResponseEntity.ok(commentMapper.toDto(comment));
     }
 
-    @Transactional(readOnly = true)
+    // Coalesced before the transaction starts, callers waiting on a shared fetch must not hold a connection meanwhile
     public ResponseEntity<List<CommentResponse>> getCommentsByPostId(Long postId) {
-        Post post = postRepository.findPostById(postId);
-        if (post == null) {
+        Optional<List<CommentResponse>> comments = singleFlight.load(SingleFlight.commentsKey(postId),
+                () -> readOnlyTransaction().execute(status -> loadComments(postId)));
+        if (comments == null || comments.isEmpty()) {
             log.warn("Could get comment because post with id {} does not exist", postId);
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
         }
+        return ResponseEntity.ok(comments.get());
+    }
+
+    private Optional<List<CommentResponse>> loadComments(Long postId) {
+        if (!postRepository.existsById(postId)) {
+            return Optional.empty();
+        }
         List<Comment> comments = commentRepository.findByPostIdOrderByIdAsc(postId);
-        return ResponseEntity.ok(commentMapper.toDtoList(comments));
+        return Optional.of(List.copyOf(commentMapper.toDtoList(comments)));
+    }
+
+    private TransactionTemplate readOnlyTransaction() {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(true);
+        return template;
     }
 
     @Transactional
@@ -55,9 +77,8 @@ public class CommentService {
             return null;
         }
 
-        // Find the post
-        Post post = postRepository.findPostById(postId);
-        if (post == null) {
+        // Check the post
+        if (!postRepository.existsById(postId)) {
             log.warn("Cannot update comment - post with id {} does not exist", postId);
             return null;
         }
@@ -75,6 +96,7 @@ public class CommentService {
         Comment comment1 = commentRepository.save(comment);
 
         log.info("Updated comment {} for post {}", commentId, postId);
+        AfterCommit.run(() -> singleFlight.invalidate(SingleFlight.commentsKey(postId)));
 
         // Return the updated post
         return commentMapper.toDto(comment1);
@@ -96,6 +118,13 @@ public class CommentService {
         int current = post.getCommentsCount();
         post.setCommentsCount(current + 1);
         postRepository.save(post);
+        AfterCommit.run(blogMetrics::commentAdded);
+        // The post carries the comment count
+        AfterCommit.run(() -> {
+            singleFlight.invalidate(SingleFlight.commentsKey(postId));
+            singleFlight.invalidate(SingleFlight.postKey(postId));
+            postResponseCache.invalidate(postId);
+        });
 
         return ResponseEntity.status(HttpStatus.OK).body(commentMapper.toDto(comment));
     }
@@ -0,0 +1,141 @@
+package com.my.blog.project.myblogonboot.myblog.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+@Component
+public class ImageCache {
+
+    private final long maxBytes;
+    private final long maxEntryBytes;
+
+    // Access ordered, the first entry is always the least recently used one
+    private final LinkedHashMap<String, ImageContent> entries = new LinkedHashMap<>(16, 0.75f, true);
+    // A lock instead of synchronized so virtual threads waiting here do not pin their carrier
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private long usedBytes;
+    private long generation;
+
+    public ImageCache(@Value("${image.cache.max-bytes:67108864}") long maxBytes,
+                      @Value("${image.cache.max-entry-bytes:4194304}") long maxEntryBytes) {
+        this.maxBytes = maxBytes;
+        this.maxEntryBytes = Math.min(maxEntryBytes, maxBytes);
+    }
+
+    public static String postKey(Long postId) {
+        return "post:" + postId;
+    }
+
+    public static String variantKey(Long postId, int width) {
+        return postKey(postId) + ":w" + width;
+    }
+
+    public static String hashKey(String hash) {
+        return "sha256:" + hash;
+    }
+
+    public Optional<ImageContent> get(String key) {
+        ImageContent content;
+        lock.lock();
+        try {
+            content = entries.get(key);
+        } finally {
+            lock.unlock();
+        }
+        if (content == null) {
+            misses.increment();
+            return Optional.empty();
+        }
+        hits.increment();
+        return Optional.of(content.duplicate());
+    }
+
+    // Read before loading from the database, put() drops the value if an invalidation happened meanwhile
+    public long generation() {
+        lock.lock();
+        try {
+            return generation;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public ImageContent put(String key, byte[] data, String contentType, String hash, long loadedAtGeneration) {
+        if (data.length == 0 || data.length > maxEntryBytes) {
+            return ImageContent.of(data, contentType, hash);
+        }
+        // Off-heap copy, cached images neither grow the heap nor get scanned by the collector
+        ByteBuffer buffer = ByteBuffer.allocateDirect(data.length).put(data).flip().asReadOnlyBuffer();
+        ImageContent content = new ImageContent(buffer, contentType, hash);
+
+        lock.lock();
+        try {
+            if (loadedAtGeneration != generation) {
+                return content.duplicate();
+            }
+            ImageContent previous = entries.put(key, content);
+            if (previous != null) {
+                usedBytes -= previous.size();
+            }
+            usedBytes += content.size();
+            evict();
+        } finally {
+            lock.unlock();
+        }
+        return content.duplicate();
+    }
+
+    public void invalidatePost(Long postId) {
+        String key = postKey(postId);
+        String variantPrefix = key + ":";
+        lock.lock();
+        try {
+            generation++;
+            Iterator<Map.Entry<String, ImageContent>> iterator = entries.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<String, ImageContent> entry = iterator.next();
+                if (entry.getKey().equals(key) || entry.getKey().startsWith(variantPrefix)) {
+                    usedBytes -= entry.getValue().size();
+                    iterator.remove();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    public long usedBytes() {
+        lock.lock();
+        try {
+            return usedBytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void evict() {
+        Iterator<ImageContent> iterator = entries.values().iterator();
+        while (usedBytes > maxBytes && iterator.hasNext()) {
+            usedBytes -= iterator.next().size();
+            iterator.remove();
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.my.blog.project.myblogonboot.myblog.service;
+
+import java.nio.ByteBuffer;
+
+public record ImageContent(ByteBuffer data, String contentType, String hash) {
+
+    public static ImageContent of(byte[] data, String contentType, String hash) {
+        return new ImageContent(ByteBuffer.wrap(data).asReadOnlyBuffer(), contentType, hash);
+    }
+
+    public int size() {
+        return data.remaining();
+    }
+
+    // Every reader gets its own position over the same shared bytes
+    public ImageContent duplicate() {
+        return new ImageContent(data.duplicate(), contentType, hash);
+    }
+}
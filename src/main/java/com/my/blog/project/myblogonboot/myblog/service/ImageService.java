@@ -1,29 +1,50 @@
 package com.my.blog.project.myblogonboot.myblog.service;
 
+import com.my.blog.project.myblogonboot.myblog.config.DataSourceConfig;
+import com.my.blog.project.myblogonboot.myblog.dto.image.ImageMetaResponse;
+import com.my.blog.project.myblogonboot.myblog.entity.ImageBlob;
 import com.my.blog.project.myblogonboot.myblog.entity.Post;
 import com.my.blog.project.myblogonboot.myblog.entity.PostImage;
+import com.my.blog.project.myblogonboot.myblog.entity.PostImageVariant;
+import com.my.blog.project.myblogonboot.myblog.jfr.ImageTransferEvent;
+import com.my.blog.project.myblogonboot.myblog.mapper.ImageMapper;
+import io.micrometer.observation.annotation.Observed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import com.my.blog.project.myblogonboot.myblog.repository.ContentHash;
 import com.my.blog.project.myblogonboot.myblog.repository.PostImageRepository;
 import com.my.blog.project.myblogonboot.myblog.repository.PostRepository;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
 import java.util.Optional;
 
 @Service
+@Observed(name = "blog.service")
 @Slf4j
 @RequiredArgsConstructor
 public class ImageService {
 
     private final PostImageRepository postImageRepository;
     private final PostRepository postRepository;
+    private final ThumbnailService thumbnailService;
+    private final ImageCache imageCache;
+    private final ImageMapper imageMapper;
+    private final SingleFlight singleFlight;
+    private final PostResponseCache postResponseCache;
 
-    @Transactional
+    @Transactional(transactionManager = DataSourceConfig.BLOB_TRANSACTION_MANAGER)
     public ResponseEntity<Void> uploadImage(Long postId, MultipartFile image) throws IOException {
         if (image == null || image.isEmpty()) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
@@ -35,6 +56,8 @@ public class ImageService {
             return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
         }
         String contentType = image.getContentType();
+        ImageTransferEvent event = new ImageTransferEvent();
+        event.begin();
 
         Post post = postRepository.findPostById(postId);
         if (post == null) {
@@ -42,22 +65,203 @@ public class ImageService {
             return ResponseEntity.notFound().build();
         }
 
-        PostImage postImage = postImageRepository.findByPostId(postId).orElseGet(() -> {
-            PostImage pi = new PostImage();
-            pi.setPostId(postId);
-            return pi;
-        });
-        postImage.setData(image.getBytes());
+        // The repository upserts, no need to load the current row (and its blob) first
+        PostImage postImage = new PostImage();
+        postImage.setPostId(postId);
+        // Hash while the upload streams in so identical images end up stored once
+        MessageDigest digest = ContentHash.newDigest();
+        try (InputStream in = new DigestInputStream(image.getInputStream(), digest)) {
+            postImage.setData(in.readAllBytes());
+        }
+        postImage.setHash(ContentHash.toHex(digest.digest()));
         postImage.setContentType(contentType);
         postImage.setSizeBytes(size);
         postImage.setFilename(image.getOriginalFilename());
         postImageRepository.save(postImage);
+        transferred(event, ImageTransferEvent.UPLOAD, postId, 0, false, size);
+
+        // Old variants belong to the replaced image, new ones are resized in the background once committed
+        thumbnailService.deleteVariants(postId);
+        byte[] data = postImage.getData();
+        String hash = postImage.getHash();
+        AfterCommit.run(() -> {
+            imageCache.invalidatePost(postId);
+            invalidateFlights(postId);
+            thumbnailService.scheduleVariants(postId, hash, data, contentType);
+        });
 
         return ResponseEntity.noContent().build();
     }
 
-    @Transactional(readOnly = true)
+    // Stores an upload that was assembled on disk, the bytes are streamed to the database and never held in memory
+    @Transactional(transactionManager = DataSourceConfig.BLOB_TRANSACTION_MANAGER)
+    public ResponseEntity<Void> storeImage(Long postId, Path file, String hash, String contentType, String filename)
+            throws IOException {
+        if (!isImageContentType(contentType)) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+        ImageTransferEvent event = new ImageTransferEvent();
+        event.begin();
+        Post post = postRepository.findPostById(postId);
+        if (post == null) {
+            log.warn("Could not store uploaded image because post with id {} does not exist", postId);
+            return ResponseEntity.notFound().build();
+        }
+
+        long size = Files.size(file);
+        PostImage postImage = new PostImage();
+        postImage.setPostId(postId);
+        postImage.setHash(hash);
+        postImage.setContentType(contentType);
+        postImage.setSizeBytes(size);
+        postImage.setFilename(filename);
+        try (InputStream in = Files.newInputStream(file)) {
+            postImageRepository.save(postImage, in, size);
+        }
+        transferred(event, ImageTransferEvent.UPLOAD, postId, 0, false, size);
+
+        // Variants are resized lazily on first request, the background job would need the bytes in memory
+        thumbnailService.deleteVariants(postId);
+        AfterCommit.run(() -> {
+            imageCache.invalidatePost(postId);
+            invalidateFlights(postId);
+        });
+
+        return ResponseEntity.noContent().build();
+    }
+
+    // The stored type is sent back as Content-Type on every download, one that does not parse would fail them all
+    public static boolean isImageContentType(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        try {
+            MediaType mediaType = MediaType.parseMediaType(contentType);
+            return "image".equals(mediaType.getType()) && !mediaType.isWildcardSubtype();
+        } catch (InvalidMediaTypeException e) {
+            return false;
+        }
+    }
+
+    // Single statement, no transaction: callers waiting on a shared fetch must not hold a blob connection meanwhile
     public Optional<PostImage> getPostImage(Long id) {
-        return postImageRepository.findByPostId(id);
+        return singleFlight.load(SingleFlight.imageKey(id), () -> postImageRepository.findByPostId(id));
+    }
+
+    // Metadata is a regular small query, it stays on the main pool
+    @Transactional(readOnly = true)
+    public ResponseEntity<ImageMetaResponse> getPostImageMeta(Long postId) {
+        Optional<PostImage> postImage = postImageRepository.findMetaByPostId(postId);
+        if (postImage.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(imageMapper.toMetaDto(postImage.get()));
+    }
+
+    @Transactional(transactionManager = DataSourceConfig.BLOB_TRANSACTION_MANAGER, readOnly = true)
+    public Optional<ImageBlob> getImageByHash(String hash) {
+        if (!ContentHash.isValid(hash)) {
+            return Optional.empty();
+        }
+        return postImageRepository.findBlobByHash(hash);
+    }
+
+    @Transactional(transactionManager = DataSourceConfig.BLOB_TRANSACTION_MANAGER)
+    public Optional<PostImageVariant> getPostImageVariant(Long postId, int requestedWidth) {
+        int width = thumbnailService.resolveWidth(requestedWidth);
+        Optional<PostImageVariant> variant = thumbnailService.findVariant(postId, width);
+        if (variant.isPresent()) {
+            return variant;
+        }
+
+        return resizeOriginal(postId, width);
+    }
+
+    // The *Content methods serve downloads, they stay outside a transaction so a cache hit never borrows a connection
+    public Optional<ImageContent> getPostImageContent(Long postId) {
+        ImageTransferEvent event = new ImageTransferEvent();
+        event.begin();
+        String key = ImageCache.postKey(postId);
+        Optional<ImageContent> cached = imageCache.get(key);
+        if (cached.isPresent()) {
+            return downloaded(event, postId, 0, true, cached);
+        }
+        long generation = imageCache.generation();
+        Optional<PostImage> postImage = getPostImage(postId);
+        if (postImage.isEmpty() || postImage.get().getData() == null || postImage.get().getData().length == 0) {
+            return Optional.empty();
+        }
+        return downloaded(event, postId, 0, false, Optional.of(imageCache.put(key, postImage.get().getData(),
+                postImage.get().getContentType(), postImage.get().getHash(), generation)));
+    }
+
+    public Optional<ImageContent> getPostImageVariantContent(Long postId, int requestedWidth) {
+        ImageTransferEvent event = new ImageTransferEvent();
+        event.begin();
+        int width = thumbnailService.resolveWidth(requestedWidth);
+        String key = ImageCache.variantKey(postId, width);
+        Optional<ImageContent> cached = imageCache.get(key);
+        if (cached.isPresent()) {
+            return downloaded(event, postId, width, true, cached);
+        }
+        long generation = imageCache.generation();
+        Optional<PostImageVariant> stored = thumbnailService.findVariant(postId, width);
+        if (stored.isPresent()) {
+            return downloaded(event, postId, width, false, Optional.of(
+                    imageCache.put(key, stored.get().getData(), stored.get().getContentType(), null, generation)));
+        }
+        // Resized on the fly, or the original as a fallback, not cached since the background job may still replace it
+        return downloaded(event, postId, width, false, resizeOriginal(postId, width)
+                .map(variant -> ImageContent.of(variant.getData(), variant.getContentType(), null)));
+    }
+
+    public Optional<ImageContent> getImageContentByHash(String hash) {
+        if (!ContentHash.isValid(hash)) {
+            return Optional.empty();
+        }
+        String key = ImageCache.hashKey(hash);
+        Optional<ImageContent> cached = imageCache.get(key);
+        if (cached.isPresent()) {
+            return cached;
+        }
+        // Content under a hash never changes, these entries are only ever dropped by eviction
+        long generation = imageCache.generation();
+        return getImageByHash(hash)
+                .map(blob -> imageCache.put(key, blob.getData(), blob.getContentType(), blob.getHash(), generation));
+    }
+
+    private static Optional<ImageContent> downloaded(ImageTransferEvent event, Long postId, int width, boolean cached,
+                                                     Optional<ImageContent> content) {
+        content.ifPresent(image -> transferred(event, ImageTransferEvent.DOWNLOAD, postId, width, cached, image.size()));
+        return content;
+    }
+
+    private static void transferred(ImageTransferEvent event, String direction, Long postId, int width, boolean cached,
+                                    long bytes) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.direction = direction;
+            event.postId = postId;
+            event.width = width;
+            event.cached = cached;
+            event.bytes = bytes;
+            event.commit();
+        }
+    }
+
+    // The post response carries the image metadata, so it is stale as well
+    private void invalidateFlights(Long postId) {
+        singleFlight.invalidate(SingleFlight.imageKey(postId));
+        singleFlight.invalidate(SingleFlight.postKey(postId));
+        postResponseCache.invalidate(postId);
+    }
+
+    private Optional<PostImageVariant> resizeOriginal(Long postId, int width) {
+        // Background job has not finished yet (or was dropped), resize synchronously
+        Optional<PostImage> original = postImageRepository.findByPostId(postId);
+        if (original.isEmpty() || original.get().getData() == null || original.get().getData().length == 0) {
+            return Optional.empty();
+        }
+        return Optional.of(thumbnailService.createVariant(original.get(), width));
     }
 }
@@ -0,0 +1,155 @@
+package com.my.blog.project.myblogonboot.myblog.service;
+
+import com.my.blog.project.myblogonboot.myblog.dto.post.PostResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.GZIPOutputStream;
+
+// Full post responses kept as the bytes the JSON converter would write, so a hit skips the query, the mapping and
+// Jackson. Every write to a post, its likes, comments or image, removes its entry after commit
+@Component
+public class PostResponseCache {
+
+    private final JsonMapper jsonMapper;
+    private final long maxBytes;
+    private final int gzipMinBytes;
+
+    // Access ordered, the first entry is always the least recently used one
+    private final LinkedHashMap<Long, SerializedPost> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    // Per post, so a like on one post does not throw away fills of all the others. One entry per post ever
+    // written, which is bounded by the posts table and far smaller than the responses themselves
+    private final Map<Long, Long> generations = new HashMap<>();
+    private long usedBytes;
+
+    public PostResponseCache(JsonMapper jsonMapper,
+                             @Value("${post.cache.max-bytes:16777216}") long maxBytes,
+                             @Value("${post.cache.gzip-min-bytes:1024}") int gzipMinBytes) {
+        this.jsonMapper = jsonMapper;
+        this.maxBytes = maxBytes;
+        this.gzipMinBytes = gzipMinBytes;
+    }
+
+    public Optional<SerializedPost> get(Long postId) {
+        if (inWriteTransaction()) {
+            return Optional.empty();
+        }
+        SerializedPost post;
+        lock.lock();
+        try {
+            post = entries.get(postId);
+        } finally {
+            lock.unlock();
+        }
+        if (post == null) {
+            misses.increment();
+            return Optional.empty();
+        }
+        hits.increment();
+        return Optional.of(post);
+    }
+
+    // Read before loading the post, put() drops the bytes if an invalidation happened meanwhile
+    public long generation(Long postId) {
+        lock.lock();
+        try {
+            return generations.getOrDefault(postId, 0L);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public SerializedPost put(Long postId, PostResponse response, long loadedAtGeneration) {
+        byte[] json = jsonMapper.writeValueAsBytes(response);
+        byte[] gzip = json.length >= gzipMinBytes ? gzip(json) : null;
+        SerializedPost post = new SerializedPost(json, gzip != null && gzip.length < json.length ? gzip : null);
+        if (post.size() > maxBytes || inWriteTransaction()) {
+            return post;
+        }
+
+        lock.lock();
+        try {
+            if (loadedAtGeneration != generations.getOrDefault(postId, 0L)) {
+                return post;
+            }
+            SerializedPost previous = entries.put(postId, post);
+            if (previous != null) {
+                usedBytes -= previous.size();
+            }
+            usedBytes += post.size();
+            evict();
+        } finally {
+            lock.unlock();
+        }
+        return post;
+    }
+
+    public void invalidate(Long postId) {
+        lock.lock();
+        try {
+            generations.merge(postId, 1L, Long::sum);
+            SerializedPost removed = entries.remove(postId);
+            if (removed != null) {
+                usedBytes -= removed.size();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    public long usedBytes() {
+        lock.lock();
+        try {
+            return usedBytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void evict() {
+        Iterator<SerializedPost> iterator = entries.values().iterator();
+        while (usedBytes > maxBytes && iterator.hasNext()) {
+            usedBytes -= iterator.next().size();
+            iterator.remove();
+        }
+    }
+
+    // Same rule as SingleFlight, a write transaction may have read its own uncommitted rows
+    private static boolean inWriteTransaction() {
+        return TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    private static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 2);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
@@ -1,14 +1,21 @@
 package com.my.blog.project.myblogonboot.myblog.service;
 
+import com.my.blog.project.myblogonboot.myblog.config.ServerTiming;
+import com.my.blog.project.myblogonboot.myblog.dto.post.PostFields;
+import com.my.blog.project.myblogonboot.myblog.dto.post.PostLookupRequest;
+import com.my.blog.project.myblogonboot.myblog.dto.post.PostLookupResponse;
 import com.my.blog.project.myblogonboot.myblog.dto.post.PostRequest;
 import com.my.blog.project.myblogonboot.myblog.dto.post.PostResponse;
 import com.my.blog.project.myblogonboot.myblog.dto.post.PostsResponse;
 import com.my.blog.project.myblogonboot.myblog.dto.search.SearchQuery;
 import com.my.blog.project.myblogonboot.myblog.entity.Comment;
 import com.my.blog.project.myblogonboot.myblog.entity.Post;
-import com.my.blog.project.myblogonboot.myblog.entity.PostImage;
 import com.my.blog.project.myblogonboot.myblog.entity.Tag;
+import com.my.blog.project.myblogonboot.myblog.jfr.LikeEvent;
+import com.my.blog.project.myblogonboot.myblog.jfr.SearchExecuteEvent;
+import com.my.blog.project.myblogonboot.myblog.jfr.SearchParseEvent;
 import com.my.blog.project.myblogonboot.myblog.mapper.PostMapper;
+import io.micrometer.observation.annotation.Observed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import com.my.blog.project.myblogonboot.myblog.repository.CommentRepository;
@@ -19,12 +26,16 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
 @Service
+@Observed(name = "blog.service")
 @RequiredArgsConstructor
 @Slf4j
 public class PostService {
@@ -35,11 +46,32 @@ public class PostService {
     private final CommentRepository commentRepository;
     private final PostMapper postMapper;
     private final SearchQueryBuilder queryBuilder;
+    private final ImageCache imageCache;
+    private final BlogMetrics blogMetrics;
+    private final SingleFlight singleFlight;
+    private final PostResponseCache postResponseCache;
 
     @Transactional(readOnly = true)
     public PostsResponse getPosts(String searchRequest, int pageNumber, int pageSize) {
+        return getPosts(searchRequest, pageNumber, pageSize, PostFields.ALL);
+    }
+
+    @Transactional(readOnly = true)
+    public PostsResponse getPosts(String searchRequest, int pageNumber, int pageSize, PostFields fields) {
 
-        SearchQuery searchQuery = queryBuilder.buildSearchQuery(searchRequest);
+        SearchParseEvent parseEvent = new SearchParseEvent();
+        parseEvent.begin();
+        SearchQuery searchQuery;
+        try (ServerTiming.Phase phase = ServerTiming.start("search")) {
+            searchQuery = queryBuilder.buildSearchQuery(searchRequest);
+        }
+        parseEvent.end();
+        if (parseEvent.shouldCommit()) {
+            parseEvent.inputLength = searchRequest != null ? searchRequest.length() : 0;
+            parseEvent.tags = searchQuery.tagsFromSearch().size();
+            parseEvent.hasQuery = searchQuery.hasQuery();
+            parseEvent.commit();
+        }
 
         // Ensure valid page number and size (1-based pagination)
         if (pageNumber < 1) pageNumber = 1;
@@ -48,6 +80,9 @@ public class PostService {
 
         long tagsCount = searchQuery.tagsFromSearch().size();
 
+        SearchExecuteEvent executeEvent = new SearchExecuteEvent();
+        executeEvent.begin();
+
         // Repository now accepts 1-based page numbers
         PostRepository.PageResult<Post> page = postRepository.searchByTitleAndAllTagNames(
                 searchQuery.searchQuery(),
@@ -56,11 +91,26 @@ public class PostService {
                 searchQuery.hasTags(),
                 tagsCount,
                 pageNumber,
-                pageSize);
+                pageSize,
+                fields);
 
-        List<PostResponse> items = page.getContent().stream()
-                .map(postMapper::toDto)
-                .collect(java.util.stream.Collectors.toList());
+        List<PostResponse> items;
+        try (ServerTiming.Phase phase = ServerTiming.start("map")) {
+            items = page.getContent().stream()
+                    .map(postMapper::toDto)
+                    .collect(java.util.stream.Collectors.toList());
+        }
+
+        executeEvent.end();
+        if (executeEvent.shouldCommit()) {
+            executeEvent.tags = (int) tagsCount;
+            executeEvent.hasQuery = searchQuery.hasQuery();
+            executeEvent.pageNumber = pageNumber;
+            executeEvent.pageSize = pageSize;
+            executeEvent.rows = items.size();
+            executeEvent.total = page.getTotalElements();
+            executeEvent.commit();
+        }
 
         int totalPages = page.getTotalPages();
         boolean hasPrev = pageNumber > 1 && totalPages > 0;
@@ -72,13 +122,7 @@ public class PostService {
     @Transactional
     public PostResponse savePost(PostRequest postRequest) {
         Post post = postMapper.toEntity(postRequest);
-        Set<Tag> managedTags = new HashSet<>();
-        for (Tag tag : post.getTags()) {
-            Tag managedTag = tagRepository.findByNameIgnoreCase(tag.getName())
-                    .orElseGet(() -> tagRepository.save(tag)); // persist new tag
-            managedTags.add(managedTag);
-        }
-        post.setTags(managedTags);
+        post.setTags(resolveTags(post.getTags().stream().map(Tag::getName).toList()));
         Post save = postRepository.save(post);
 
         return postMapper.toDto(save);
@@ -94,17 +138,36 @@ public class PostService {
         post.setTitle(postRequest.title());
         post.setText(postRequest.text());
 
-        Set<Tag> managedTags = new HashSet<>();
-        if (postRequest.tags() != null) {
-            for (String tagName : postRequest.tags()) {
-                Tag managedTag = tagRepository.findByNameIgnoreCase(tagName)
-                        .orElseGet(() -> tagRepository.save(new Tag(tagName)));
-                managedTags.add(managedTag);
+        post.setTags(postRequest.tags() != null ? resolveTags(postRequest.tags()) : new HashSet<>());
+        PostResponse response = postMapper.toDto(postRepository.save(post));
+        AfterCommit.run(() -> invalidatePost(id));
+
+        return response;
+    }
+
+    // One lookup for all the names and one insert for the missing ones, however many tags the post has
+    private Set<Tag> resolveTags(Collection<String> tagNames) {
+        Map<String, String> namesByKey = new LinkedHashMap<>();
+        for (String tagName : tagNames) {
+            if (tagName != null) {
+                namesByKey.putIfAbsent(tagName.toLowerCase(), tagName);
             }
         }
-        post.setTags(managedTags);
 
-        return postMapper.toDto(postRepository.save(post));
+        Set<Tag> managedTags = new HashSet<>(tagRepository.findByNamesIgnoreCase(namesByKey.keySet()));
+        managedTags.forEach(tag -> namesByKey.remove(tag.getName().toLowerCase()));
+        if (namesByKey.isEmpty()) {
+            return managedTags;
+        }
+
+        List<Tag> inserted = tagRepository.saveAll(namesByKey.values());
+        managedTags.addAll(inserted);
+        if (inserted.size() < namesByKey.size()) {
+            // A concurrent post created some of them first
+            inserted.forEach(tag -> namesByKey.remove(tag.getName().toLowerCase()));
+            managedTags.addAll(tagRepository.findByNamesIgnoreCase(namesByKey.keySet()));
+        }
+        return managedTags;
     }
 
     @Transactional
@@ -123,26 +186,90 @@ public class PostService {
         }
 
         // Delete post image if exists
-        Optional<PostImage> postImage = postImageRepository.findByPostId(postId);
-        postImage.ifPresent(image -> {
-            postImageRepository.delete(image);
+        if (postImageRepository.deleteByPostId(postId)) {
             log.info("Deleted image for post {}", postId);
-        });
+        }
 
         // Delete the post
         postRepository.delete(post);
         log.info("Deleted post with id {}", postId);
+        AfterCommit.run(() -> {
+            imageCache.invalidatePost(postId);
+            singleFlight.invalidatePost(postId);
+            postResponseCache.invalidate(postId);
+        });
 
         return ResponseEntity.noContent().build();
     }
 
+    // The mapped response is immutable, so concurrent requests for one post can all be handed the same fetch
     public PostResponse getPostById(Long postId) {
-        return postMapper.toDto(postRepository.findPostById(postId));
+        return singleFlight.load(SingleFlight.postKey(postId), () -> toDto(postRepository.findPostById(postId)));
+    }
+
+    // Only the full response is coalesced, sparse reads are cheap and keyed on too many combinations. Properties outside
+    // fields were not selected and hold defaults, SparsePostResponse.of leaves them out
+    public PostResponse getPostById(Long postId, PostFields fields) {
+        if (fields.isAll()) {
+            return getPostById(postId);
+        }
+        return toDto(postRepository.findPostById(postId, fields));
+    }
+
+    // The same post as getPostById, already serialized. Empty when the post does not exist
+    public Optional<SerializedPost> getSerializedPost(Long postId) {
+        Optional<SerializedPost> cached = postResponseCache.get(postId);
+        if (cached.isPresent()) {
+            return cached;
+        }
+        long generation = postResponseCache.generation(postId);
+        PostResponse post = getPostById(postId);
+        if (post == null) {
+            return Optional.empty();
+        }
+        try (ServerTiming.Phase phase = ServerTiming.start("render")) {
+            return Optional.of(postResponseCache.put(postId, post, generation));
+        }
+    }
+
+    private void invalidatePost(Long postId) {
+        singleFlight.invalidate(SingleFlight.postKey(postId));
+        postResponseCache.invalidate(postId);
+    }
+
+    private PostResponse toDto(Post post) {
+        try (ServerTiming.Phase phase = ServerTiming.start("map")) {
+            return postMapper.toDto(post);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public ResponseEntity<PostLookupResponse> lookupPosts(PostLookupRequest request) {
+        if (!request.isValid()) {
+            return ResponseEntity.badRequest().build();
+        }
+        List<Long> ids = request.distinctIds();
+        List<Post> posts = postRepository.findPostsByIds(ids);
+        try (ServerTiming.Phase phase = ServerTiming.start("map")) {
+            return ResponseEntity.ok(PostLookupResponse.inRequestOrder(ids,
+                    posts.stream().map(postMapper::toDto).toList()));
+        }
     }
 
     @Transactional
     public Long incrementLike(long postId) {
+        LikeEvent event = new LikeEvent();
+        event.begin();
         postRepository.incrementLikes(postId);
-        return postRepository.getCurrentLikes(postId);
+        AfterCommit.run(blogMetrics::likeAdded);
+        AfterCommit.run(() -> invalidatePost(postId));
+        Long likes = postRepository.getCurrentLikes(postId);
+        event.end();
+        if (event.shouldCommit()) {
+            event.postId = postId;
+            event.likes = likes != null ? likes : 0;
+            event.commit();
+        }
+        return likes;
     }
 }
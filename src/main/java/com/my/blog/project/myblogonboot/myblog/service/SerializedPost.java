@@ -0,0 +1,9 @@
+package com.my.blog.project.myblogonboot.myblog.service;
+
+// A post rendered as the JSON GET /api/posts/{id} returns, gzip is null when compressing did not pay off
+public record SerializedPost(byte[] json, byte[] gzip) {
+
+    public int size() {
+        return json.length + (gzip != null ? gzip.length : 0);
+    }
+}
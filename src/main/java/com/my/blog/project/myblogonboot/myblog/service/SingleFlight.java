@@ -0,0 +1,113 @@
+package com.my.blog.project.myblogonboot.myblog.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+// Coalesces identical concurrent reads: the first caller for a key runs the fetch on its own thread, callers arriving
+// while it runs wait for and share its result. Nothing is kept once the fetch completes, this is not a cache
+@Component
+public class SingleFlight {
+
+    private final Duration maxWait;
+    private final boolean enabled;
+    private final ConcurrentHashMap<String, CompletableFuture<Object>> flights = new ConcurrentHashMap<>();
+    private final LongAdder leaders = new LongAdder();
+    private final LongAdder shared = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+
+    public SingleFlight(@Value("${single-flight.max-wait:PT2S}") Duration maxWait,
+                        @Value("${single-flight.enabled:true}") boolean enabled) {
+        this.maxWait = maxWait;
+        this.enabled = enabled;
+    }
+
+    public static String postKey(Long postId) {
+        return "post:" + postId;
+    }
+
+    public static String commentsKey(Long postId) {
+        return "comments:" + postId;
+    }
+
+    public static String imageKey(Long postId) {
+        return "image:" + postId;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T load(String key, Supplier<T> loader) {
+        // A write transaction may see its own uncommitted rows, those must not leak to other callers
+        if (!enabled || (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly())) {
+            return loader.get();
+        }
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> running = flights.putIfAbsent(key, flight);
+        if (running == null) {
+            leaders.increment();
+            try {
+                T value = loader.get();
+                flight.complete(value);
+                return value;
+            } catch (RuntimeException | Error e) {
+                flight.completeExceptionally(e);
+                throw e;
+            } finally {
+                flights.remove(key, flight);
+            }
+        }
+
+        shared.increment();
+        try {
+            return (T) running.get(maxWait.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            // The shared fetch is stuck, queueing more callers behind it would only spread the stall
+            timeouts.increment();
+            return loader.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for " + key, e);
+        }
+    }
+
+    // Called once a write has committed, later callers start a fresh fetch instead of joining one that may have read
+    // the previous row
+    public void invalidate(String key) {
+        flights.remove(key);
+    }
+
+    public void invalidatePost(Long postId) {
+        invalidate(postKey(postId));
+        invalidate(commentsKey(postId));
+        invalidate(imageKey(postId));
+    }
+
+    public long leaderCount() {
+        return leaders.sum();
+    }
+
+    public long sharedCount() {
+        return shared.sum();
+    }
+
+    public long timeoutCount() {
+        return timeouts.sum();
+    }
+}
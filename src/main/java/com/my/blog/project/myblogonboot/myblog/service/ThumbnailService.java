@@ -0,0 +1,169 @@
+package com.my.blog.project.myblogonboot.myblog.service;
+
+import com.my.blog.project.myblogonboot.myblog.entity.PostImage;
+import com.my.blog.project.myblogonboot.myblog.entity.PostImageVariant;
+import com.my.blog.project.myblogonboot.myblog.repository.PostImageVariantRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+@Service
+@Slf4j
+public class ThumbnailService {
+
+    // Refuse to decode anything bigger than this, a small file can still expand to gigabytes of pixels
+    private static final long MAX_SOURCE_PIXELS = 50_000_000L;
+
+    private final PostImageVariantRepository variantRepository;
+    private final int[] widths;
+    private final ThreadPoolExecutor executor;
+
+    public ThumbnailService(PostImageVariantRepository variantRepository,
+                            @Value("${image.thumbnails.widths:200,400,800}") int[] widths,
+                            @Value("${image.thumbnails.workers:2}") int workers,
+                            @Value("${image.thumbnails.queue-capacity:100}") int queueCapacity) {
+        this.variantRepository = variantRepository;
+        this.widths = Arrays.stream(widths).filter(w -> w > 0).sorted().distinct().toArray();
+        this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                Thread.ofVirtual().name("thumbnail-", 0).factory(),
+                (task, pool) -> log.warn("Thumbnail queue is full, variants will be generated on first request"));
+    }
+
+    public int resolveWidth(int requestedWidth) {
+        // Snap to a configured width so the number of stored variants per image stays fixed
+        for (int width : widths) {
+            if (width >= requestedWidth) {
+                return width;
+            }
+        }
+        return widths[widths.length - 1];
+    }
+
+    // sourceHash identifies the image the bytes belong to, variants are dropped if it was replaced in the meantime
+    public void scheduleVariants(Long postId, String sourceHash, byte[] source, String contentType) {
+        executor.execute(() -> generateVariants(postId, sourceHash, source, contentType));
+    }
+
+    public void deleteVariants(Long postId) {
+        variantRepository.deleteByPostId(postId);
+    }
+
+    public Optional<PostImageVariant> findVariant(Long postId, int width) {
+        return variantRepository.findByPostIdAndWidth(postId, width);
+    }
+
+    public PostImageVariant createVariant(PostImage original, int width) {
+        Optional<byte[]> resized = resize(original.getData(), original.getContentType(), width);
+        if (resized.isEmpty()) {
+            // Not decodable or already narrower than requested, the original is the best we can serve
+            return new PostImageVariant(original.getPostId(), width, original.getData(),
+                    original.getContentType(), original.getSizeBytes());
+        }
+        PostImageVariant variant = toVariant(original.getPostId(), width, resized.get(), original.getContentType());
+        // Stored only while the original is still the post's image, a replacing upload may have committed meanwhile.
+        // The resized bytes are served either way
+        if (!variantRepository.saveIfCurrent(variant, original.getHash())) {
+            log.debug("Image of post {} was replaced, not storing the {}px variant of {}", original.getPostId(), width,
+                    original.getHash());
+        }
+        return variant;
+    }
+
+    Optional<byte[]> resize(byte[] source, String contentType, int width) {
+        try {
+            BufferedImage image = read(source);
+            if (image == null || image.getWidth() <= width) {
+                return Optional.empty();
+            }
+            int height = Math.max(1, (int) Math.round((double) image.getHeight() * width / image.getWidth()));
+            String format = outputFormat(contentType);
+            int type = "jpeg".equals(format) ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB;
+
+            BufferedImage scaled = new BufferedImage(width, height, type);
+            Graphics2D graphics = scaled.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                graphics.drawImage(image, 0, 0, width, height, null);
+            } finally {
+                graphics.dispose();
+            }
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            if (!ImageIO.write(scaled, format, out)) {
+                return Optional.empty();
+            }
+            return Optional.of(out.toByteArray());
+        } catch (IOException | RuntimeException e) {
+            log.debug("Could not resize image to width {}: {}", width, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private BufferedImage read(byte[] source) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(new ByteArrayInputStream(source))) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                if ((long) reader.getWidth(0) * reader.getHeight(0) > MAX_SOURCE_PIXELS) {
+                    log.warn("Skipping resize of {}x{} image, too many pixels", reader.getWidth(0), reader.getHeight(0));
+                    return null;
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    void generateVariants(Long postId, String sourceHash, byte[] source, String contentType) {
+        for (int width : widths) {
+            try {
+                Optional<byte[]> resized = resize(source, contentType, width);
+                if (resized.isPresent()
+                        && !variantRepository.saveIfCurrent(toVariant(postId, width, resized.get(), contentType), sourceHash)) {
+                    log.debug("Image of post {} was replaced, dropping variants of {}", postId, sourceHash);
+                    return;
+                }
+            } catch (RuntimeException e) {
+                log.warn("Could not store {}px variant for post {}: {}", width, postId, e.getMessage());
+            }
+        }
+    }
+
+    private PostImageVariant toVariant(Long postId, int width, byte[] data, String sourceContentType) {
+        String contentType = "jpeg".equals(outputFormat(sourceContentType)) ? "image/jpeg" : "image/png";
+        return new PostImageVariant(postId, width, data, contentType, (long) data.length);
+    }
+
+    private String outputFormat(String contentType) {
+        return "image/jpeg".equalsIgnoreCase(contentType) || "image/jpg".equalsIgnoreCase(contentType) ? "jpeg" : "png";
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
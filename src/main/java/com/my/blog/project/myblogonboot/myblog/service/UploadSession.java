@@ -0,0 +1,28 @@
+package com.my.blog.project.myblogonboot.myblog.service;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.concurrent.locks.ReentrantLock;
+
+@Getter
+@RequiredArgsConstructor
+class UploadSession {
+
+    private final String id;
+    private final Long postId;
+    private final String filename;
+    private final String contentType;
+    private final long length;
+    private final Path file;
+    // Chunks of one upload are written one at a time, a second writer is turned away instead of queued
+    private final ReentrantLock lock = new ReentrantLock();
+
+    @Setter
+    private volatile long offset;
+    @Setter
+    private volatile Instant lastActivity;
+}
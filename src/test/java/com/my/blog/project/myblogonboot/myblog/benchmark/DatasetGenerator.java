@@ -0,0 +1,372 @@
+package com.my.blog.project.myblogonboot.myblog.benchmark;
+
+import com.my.blog.project.myblogonboot.myblog.repository.ContentHash;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.SplittableRandom;
+
+// Loads a synthetic blog into an empty, migrated schema through COPY. Tag use, comment counts, likes, image sizes and
+// image reuse are Zipf distributed, everything derives from the seed so the same options produce the same rows.
+// Scale factor 1 is 100k posts and 1k tags, ./gradlew generateDataset -Pdataset.scale=10 loads a million posts
+public final class DatasetGenerator {
+
+    private static final int POSTS_PER_SCALE = 100_000;
+    private static final int TAGS_PER_SCALE = 1_000;
+    private static final int MAX_TAGS_PER_POST = 5;
+    private static final int MAX_COMMENTS = 500;
+    private static final int MAX_LIKES = 100_000;
+    private static final double IMAGE_SHARE = 0.1;
+    private static final int IMAGE_SIZE_STEP = 4 * 1024;
+    private static final int IMAGE_SIZE_STEPS = 256;
+    private static final int VOCABULARY = 5_000;
+    private static final int FLUSH_BYTES = 1 << 20;
+    private static final String[] SYLLABLES = {"ka", "lo", "mi", "ne", "ru", "ta", "vo", "shi", "dan", "per", "ex",
+            "qua", "zen", "bri", "cor", "sol", "fen", "gra", "hul", "jin", "tro", "ple", "wix", "yon"};
+
+    private final double scale;
+    private final long seed;
+
+    public DatasetGenerator(double scale, long seed) {
+        if (scale <= 0) {
+            throw new IllegalArgumentException("Scale factor must be positive: " + scale);
+        }
+        this.scale = scale;
+        this.seed = seed;
+    }
+
+    public record Summary(long posts, long tags, long postTags, long comments, long images, long imageBlobs,
+                          Duration elapsed) {
+    }
+
+    public static void main(String[] args) throws SQLException {
+        String url = System.getProperty("dataset.url", "jdbc:postgresql://localhost:5432/testdb");
+        String username = System.getProperty("dataset.username", "user");
+        String password = System.getProperty("dataset.password", "password");
+        double scale = Double.parseDouble(System.getProperty("dataset.scale", "1"));
+        long seed = Long.getLong("dataset.seed", 42);
+        boolean truncate = Boolean.getBoolean("dataset.truncate");
+
+        try (Connection connection = DriverManager.getConnection(url, username, password)) {
+            DatasetGenerator generator = new DatasetGenerator(scale, seed);
+            if (truncate) {
+                generator.truncate(connection);
+            }
+            System.out.println("Generated " + generator.generate(connection));
+        }
+    }
+
+    public int posts() {
+        return Math.max(1, (int) Math.round(POSTS_PER_SCALE * scale));
+    }
+
+    public int tags() {
+        return Math.max(1, (int) Math.round(TAGS_PER_SCALE * scale));
+    }
+
+    public void truncate(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("TRUNCATE posts_tags, comments, post_image_variants, post_images, image_blobs, tags, posts "
+                    + "RESTART IDENTITY CASCADE");
+        }
+    }
+
+    public Summary generate(Connection connection) throws SQLException {
+        long start = System.nanoTime();
+        try (Statement statement = connection.createStatement();
+             ResultSet existing = statement.executeQuery("SELECT EXISTS (SELECT 1 FROM posts)")) {
+            existing.next();
+            if (existing.getBoolean(1)) {
+                throw new IllegalStateException("The posts table is not empty, set dataset.truncate=true to replace it");
+            }
+        }
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try {
+            Summary summary = load(connection, start);
+            connection.commit();
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SELECT setval(pg_get_serial_sequence('posts', 'id'), " + summary.posts() + ")");
+                statement.execute("SELECT setval(pg_get_serial_sequence('tags', 'id'), " + summary.tags() + ")");
+            }
+            connection.commit();
+            connection.setAutoCommit(true);
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("ANALYZE");
+            }
+            return new Summary(summary.posts(), summary.tags(), summary.postTags(), summary.comments(),
+                    summary.images(), summary.imageBlobs(), Duration.ofNanos(System.nanoTime() - start));
+        } catch (SQLException | RuntimeException e) {
+            // Past the data commits the connection is in auto-commit, there is nothing left to roll back
+            if (!connection.getAutoCommit()) {
+                connection.rollback();
+            }
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    private Summary load(Connection connection, long start) throws SQLException {
+        int posts = posts();
+        int tags = tags();
+        // Separate streams per table, adding a column to one table does not reshuffle the others
+        SplittableRandom root = new SplittableRandom(seed);
+        SplittableRandom postRandom = root.split();
+        SplittableRandom tagRandom = root.split();
+        SplittableRandom commentRandom = root.split();
+        SplittableRandom imageRandom = root.split();
+
+        Zipf words = new Zipf(VOCABULARY, 1.0);
+        Zipf tagUse = new Zipf(tags, 1.0);
+        Zipf commentCounts = new Zipf(MAX_COMMENTS + 1, 1.2);
+        Zipf likeCounts = new Zipf(MAX_LIKES + 1, 1.1);
+        String[] vocabulary = vocabulary(new SplittableRandom(seed));
+
+        try (Copy copy = new Copy(connection, "COPY tags (id, name) FROM STDIN")) {
+            for (int id = 1; id <= tags; id++) {
+                copy.row(id, "tag" + id);
+            }
+            copy.end();
+        }
+
+        // comments_count has to match the comments table, so the counts are drawn before the posts are written
+        int[] comments = new int[posts];
+        long commentTotal = 0;
+        for (int i = 0; i < posts; i++) {
+            comments[i] = commentCounts.sample(commentRandom) - 1;
+            commentTotal += comments[i];
+        }
+
+        try (Copy copy = new Copy(connection, "COPY posts (id, title, text, likes_count, comments_count) FROM STDIN")) {
+            for (int id = 1; id <= posts; id++) {
+                String title = sentence(vocabulary, words, postRandom, 3 + postRandom.nextInt(6), 100);
+                String text = sentence(vocabulary, words, postRandom, 20 + postRandom.nextInt(300), Integer.MAX_VALUE);
+                copy.row(id, title, text, likeCounts.sample(postRandom) - 1, comments[id - 1]);
+            }
+            copy.end();
+        }
+
+        long postTags = 0;
+        try (Copy copy = new Copy(connection, "COPY posts_tags (post_id, tag_id) FROM STDIN")) {
+            int[] chosen = new int[MAX_TAGS_PER_POST];
+            for (int id = 1; id <= posts; id++) {
+                int count = Math.min(tags, 1 + tagRandom.nextInt(MAX_TAGS_PER_POST));
+                int distinct = 0;
+                // Redraw collisions, popular tags collide often
+                for (int attempt = 0; distinct < count && attempt < 4 * count; attempt++) {
+                    int tagId = tagUse.sample(tagRandom);
+                    if (!contains(chosen, distinct, tagId)) {
+                        chosen[distinct++] = tagId;
+                        copy.row(id, tagId);
+                    }
+                }
+                postTags += distinct;
+            }
+            copy.end();
+        }
+
+        try (Copy copy = new Copy(connection, "COPY comments (post_id, text) FROM STDIN")) {
+            for (int id = 1; id <= posts; id++) {
+                for (int i = 0; i < comments[id - 1]; i++) {
+                    copy.row(id, sentence(vocabulary, words, commentRandom, 5 + commentRandom.nextInt(30),
+                            Integer.MAX_VALUE));
+                }
+            }
+            copy.end();
+        }
+
+        // A few hundred distinct images at most, reused by many posts the way a popular picture is
+        int blobs = Math.max(1, Math.min(500, (int) Math.round(50 * scale)));
+        Zipf imageSizes = new Zipf(IMAGE_SIZE_STEPS, 1.0);
+        Zipf imageReuse = new Zipf(blobs, 1.0);
+        String[] hashes = new String[blobs];
+        long[] sizes = new long[blobs];
+        try (Copy copy = new Copy(connection,
+                "COPY image_blobs (hash, data, content_type, size_bytes, ref_count) FROM STDIN")) {
+            for (int i = 0; i < blobs; i++) {
+                byte[] image = png(imageRandom, imageSizes.sample(imageRandom) * IMAGE_SIZE_STEP);
+                hashes[i] = ContentHash.sha256Hex(image);
+                sizes[i] = image.length;
+                // ref_count is fixed up below, once the post images exist
+                copy.row(hashes[i], image, "image/png", image.length, 0);
+            }
+            copy.end();
+        }
+        long images = 0;
+        try (Copy copy = new Copy(connection,
+                "COPY post_images (post_id, content_type, size_bytes, filename, image_hash) FROM STDIN")) {
+            for (int id = 1; id <= posts; id++) {
+                if (imageRandom.nextDouble() < IMAGE_SHARE) {
+                    int blob = imageReuse.sample(imageRandom) - 1;
+                    copy.row(id, "image/png", sizes[blob], "image-" + blob + ".png", hashes[blob]);
+                    images++;
+                }
+            }
+            copy.end();
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("UPDATE image_blobs b SET ref_count = "
+                    + "(SELECT COUNT(*) FROM post_images i WHERE i.image_hash = b.hash)");
+        }
+
+        return new Summary(posts, tags, postTags, commentTotal, images, blobs, Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    private static boolean contains(int[] values, int length, int value) {
+        for (int i = 0; i < length; i++) {
+            if (values[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String[] vocabulary(SplittableRandom random) {
+        String[] vocabulary = new String[VOCABULARY];
+        for (int i = 0; i < VOCABULARY; i++) {
+            StringBuilder word = new StringBuilder();
+            int syllables = 1 + random.nextInt(3);
+            for (int s = 0; s < syllables; s++) {
+                word.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+            }
+            vocabulary[i] = word.toString();
+        }
+        return vocabulary;
+    }
+
+    private static String sentence(String[] vocabulary, Zipf words, SplittableRandom random, int length, int maxChars) {
+        StringBuilder sentence = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            String word = vocabulary[words.sample(random) - 1];
+            if (sentence.length() + word.length() + 1 > maxChars) {
+                break;
+            }
+            if (!sentence.isEmpty()) {
+                sentence.append(' ');
+            }
+            sentence.append(word);
+        }
+        return sentence.toString();
+    }
+
+    // Noise compresses badly, so a square of about targetBytes / 3 pixels gives a PNG of roughly that size
+    private static byte[] png(SplittableRandom random, int targetBytes) {
+        int side = Math.max(8, (int) Math.sqrt(targetBytes / 3.0));
+        BufferedImage image = new BufferedImage(side, side, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < side; y++) {
+            for (int x = 0; x < side; x++) {
+                image.setRGB(x, y, random.nextInt(0x1000000));
+            }
+        }
+        try (ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            ImageIO.write(image, "png", out);
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Ranks 1..n with P(k) proportional to 1 / k^exponent, sampled by binary search over the cumulative weights
+    static final class Zipf {
+
+        private final double[] cumulative;
+
+        Zipf(int n, double exponent) {
+            cumulative = new double[n];
+            double sum = 0;
+            for (int k = 1; k <= n; k++) {
+                sum += 1 / Math.pow(k, exponent);
+                cumulative[k - 1] = sum;
+            }
+            for (int i = 0; i < n; i++) {
+                cumulative[i] /= sum;
+            }
+        }
+
+        int sample(SplittableRandom random) {
+            int index = Arrays.binarySearch(cumulative, random.nextDouble());
+            return Math.min(cumulative.length, (index >= 0 ? index : -index - 1) + 1);
+        }
+    }
+
+    // Streams rows in COPY text format, buffering about a megabyte between writes
+    private static final class Copy implements AutoCloseable {
+
+        private final CopyIn copyIn;
+        private final StringBuilder buffer = new StringBuilder();
+
+        Copy(Connection connection, String sql) throws SQLException {
+            this.copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(sql);
+        }
+
+        void row(Object... values) throws SQLException {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    buffer.append('\t');
+                }
+                append(values[i]);
+            }
+            buffer.append('\n');
+            if (buffer.length() >= FLUSH_BYTES) {
+                flush();
+            }
+        }
+
+        private void append(Object value) {
+            if (value == null) {
+                buffer.append("\\N");
+            } else if (value instanceof byte[] bytes) {
+                // bytea hex input, the backslash itself is escaped for the text format
+                buffer.append("\\\\x").append(HexFormat.of().formatHex(bytes));
+            } else if (value instanceof String string) {
+                for (int i = 0; i < string.length(); i++) {
+                    char c = string.charAt(i);
+                    switch (c) {
+                        case '\\' -> buffer.append("\\\\");
+                        case '\t' -> buffer.append("\\t");
+                        case '\n' -> buffer.append("\\n");
+                        case '\r' -> buffer.append("\\r");
+                        default -> buffer.append(c);
+                    }
+                }
+            } else {
+                buffer.append(value);
+            }
+        }
+
+        private void flush() throws SQLException {
+            byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+            copyIn.writeToCopy(bytes, 0, bytes.length);
+            buffer.setLength(0);
+        }
+
+        // Sends the buffered rows and completes the COPY, called once every row is written
+        void end() throws SQLException {
+            flush();
+            copyIn.endCopy();
+        }
+
+        // Still active here means the rows were not all written, the COPY is abandoned rather than committed half way
+        @Override
+        public void close() throws SQLException {
+            if (copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+        }
+    }
+}
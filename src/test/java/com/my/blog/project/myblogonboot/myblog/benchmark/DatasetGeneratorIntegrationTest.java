@@ -0,0 +1,100 @@
+package com.my.blog.project.myblogonboot.myblog.benchmark;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.postgresql.PostgreSQLContainer;
+import org.testcontainers.utility.DockerImageName;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Loads a few hundred posts through COPY into the migrated schema. Uses its own container since the generator needs
+// an empty schema
+@SpringBootTest
+@ActiveProfiles("test")
+@Testcontainers
+class DatasetGeneratorIntegrationTest {
+
+    private static final double SCALE = 0.005;
+
+    // Every generated column in a fixed order, a second run with the same seed has to give the same text
+    private static final Map<String, String> FINGERPRINTS = Map.of(
+            "tags", "SELECT md5(string_agg(t::text, ',' ORDER BY t.id)) FROM tags t",
+            "posts", "SELECT md5(string_agg(p::text, ',' ORDER BY p.id)) FROM posts p",
+            "posts_tags", "SELECT md5(string_agg(pt::text, ',' ORDER BY pt.post_id, pt.tag_id)) FROM posts_tags pt",
+            "comments", "SELECT md5(string_agg(c::text, ',' ORDER BY c.id)) FROM comments c",
+            "image_blobs", "SELECT md5(string_agg(b::text, ',' ORDER BY b.hash)) FROM image_blobs b",
+            "post_images", "SELECT md5(string_agg(i::text, ',' ORDER BY i.post_id)) FROM post_images i");
+
+    @Container
+    static final PostgreSQLContainer postgres = new PostgreSQLContainer(DockerImageName.parse("postgres:latest"));
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Test
+    void generate_shouldLoadConsistentRows_andRepeatThemForTheSameSeed() throws SQLException {
+        // Given
+        DatasetGenerator generator = new DatasetGenerator(SCALE, 42);
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+
+        // When
+        DatasetGenerator.Summary summary;
+        Map<String, String> first;
+        Map<String, String> second;
+        try (Connection connection = dataSource.getConnection()) {
+            summary = generator.generate(connection);
+            first = fingerprints(jdbc);
+            assertThatThrownBy(() -> generator.generate(connection)).isInstanceOf(IllegalStateException.class);
+            generator.truncate(connection);
+            generator.generate(connection);
+            second = fingerprints(jdbc);
+        }
+
+        // Then
+        assertThat(summary.posts()).isEqualTo(generator.posts()).isEqualTo(count(jdbc, "posts"));
+        assertThat(summary.tags()).isEqualTo(generator.tags()).isEqualTo(count(jdbc, "tags"));
+        assertThat(summary.postTags()).isEqualTo(count(jdbc, "posts_tags"));
+        assertThat(summary.comments()).isEqualTo(count(jdbc, "comments"));
+        assertThat(summary.images()).isPositive().isEqualTo(count(jdbc, "post_images"));
+        assertThat(summary.imageBlobs()).isEqualTo(count(jdbc, "image_blobs"));
+        assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM posts p WHERE p.comments_count <> "
+                + "(SELECT COUNT(*) FROM comments c WHERE c.post_id = p.id)", Long.class)).isZero();
+        assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM image_blobs b WHERE b.ref_count <> "
+                + "(SELECT COUNT(*) FROM post_images i WHERE i.image_hash = b.hash)", Long.class)).isZero();
+        // The sequences continue after the copied ids, the application can insert right away
+        assertThat(jdbc.queryForObject("SELECT nextval(pg_get_serial_sequence('posts', 'id'))", Long.class))
+                .isEqualTo(summary.posts() + 1);
+        assertThat(second).isEqualTo(first);
+    }
+
+    private static long count(JdbcTemplate jdbc, String table) {
+        return jdbc.queryForObject("SELECT COUNT(*) FROM " + table, Long.class);
+    }
+
+    private static Map<String, String> fingerprints(JdbcTemplate jdbc) {
+        Map<String, String> fingerprints = new LinkedHashMap<>();
+        FINGERPRINTS.forEach((table, sql) -> fingerprints.put(table, jdbc.queryForObject(sql, String.class)));
+        return fingerprints;
+    }
+}
@@ -0,0 +1,54 @@
+package com.my.blog.project.myblogonboot.myblog.benchmark;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DatasetGeneratorTest {
+
+    @Test
+    void zipf_shouldStayInRangeAndFavourLowRanks() {
+        // Given
+        DatasetGenerator.Zipf zipf = new DatasetGenerator.Zipf(1_000, 1.0);
+        SplittableRandom random = new SplittableRandom(1);
+        int[] counts = new int[1_001];
+
+        // When
+        for (int i = 0; i < 100_000; i++) {
+            counts[zipf.sample(random)]++;
+        }
+
+        // Then
+        assertThat(counts[0]).isZero();
+        assertThat(counts[1]).isGreaterThan(counts[2]).isGreaterThan(counts[10]);
+        // Rank 1 of 1000 with exponent 1 carries about 1 / H(1000) = 13% of the mass
+        assertThat(counts[1] / 100_000.0).isBetween(0.12, 0.15);
+    }
+
+    @Test
+    void zipf_shouldBeReproducibleForSameSeed() {
+        // Given
+        DatasetGenerator.Zipf zipf = new DatasetGenerator.Zipf(50, 1.2);
+        SplittableRandom first = new SplittableRandom(42);
+        SplittableRandom second = new SplittableRandom(42);
+
+        // When / Then
+        for (int i = 0; i < 1_000; i++) {
+            assertThat(zipf.sample(first)).isEqualTo(zipf.sample(second));
+        }
+    }
+
+    @Test
+    void sizes_shouldFollowScaleFactor() {
+        // Given
+        DatasetGenerator generator = new DatasetGenerator(2.5, 42);
+
+        // Then
+        assertThat(generator.posts()).isEqualTo(250_000);
+        assertThat(generator.tags()).isEqualTo(2_500);
+        assertThatThrownBy(() -> new DatasetGenerator(0, 42)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
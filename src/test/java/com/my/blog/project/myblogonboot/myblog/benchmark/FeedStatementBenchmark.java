@@ -0,0 +1,245 @@
+package com.my.blog.project.myblogonboot.myblog.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.my.blog.project.myblogonboot.MyblogonbootApplication;
+import com.my.blog.project.myblogonboot.myblog.entity.Post;
+import com.my.blog.project.myblogonboot.myblog.entity.Tag;
+import com.my.blog.project.myblogonboot.myblog.repository.PostRepository;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.testcontainers.postgresql.PostgreSQLContainer;
+import org.testcontainers.utility.DockerImageName;
+
+import javax.sql.DataSource;
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Run with ./gradlew statementBenchmark, excluded from the regular test task.
+// Replays the same sequence of feed requests twice over a single connection: with the statements built the way they
+// used to be (post ids inlined into the SQL, one placeholder per tag, driver defaults) and through PostRepository with
+// array parameters and the configured driver properties. pg_stat_statements reports how often the server planned
+@org.junit.jupiter.api.Tag("statements")
+class FeedStatementBenchmark {
+
+    private static final int WARMUP = Integer.getInteger("statements.warmup", 1_000);
+    private static final int ITERATIONS = Integer.getInteger("statements.iterations", 10_000);
+    private static final double SCALE = Double.parseDouble(System.getProperty("statements.scale", "0.1"));
+    private static final long SEED = Long.getLong("statements.seed", 42);
+    private static final DatasetGenerator GENERATOR = new DatasetGenerator(SCALE, SEED);
+    private static final int PAGE_SIZE = 10;
+
+    // Count, page and tags for the plain feed, count and page once more with a tag filter
+    private static final int FEED_STATEMENTS = 5;
+
+    private static final String SELECT_POSTS = """
+            SELECT p.id, p.title, p.text, p.likes_count, p.comments_count,
+                   pi.image_hash, pi.content_type AS image_content_type, pi.size_bytes AS image_size_bytes
+            FROM posts p
+            LEFT JOIN post_images pi ON pi.post_id = p.id
+            """;
+
+    private static final RowMapper<Post> POST_ROW_MAPPER = (rs, rowNum) -> {
+        Post post = new Post();
+        post.setId(rs.getLong("id"));
+        post.setTitle(rs.getString("title"));
+        post.setText(rs.getString("text"));
+        post.setLikesCount(rs.getInt("likes_count"));
+        post.setCommentsCount(rs.getInt("comments_count"));
+        return post;
+    };
+
+    private static PostgreSQLContainer postgres;
+
+    @BeforeAll
+    static void startDatabase() {
+        postgres = new PostgreSQLContainer(DockerImageName.parse("postgres:latest"))
+                .withCommand("postgres", "-c", "shared_preload_libraries=pg_stat_statements",
+                        "-c", "pg_stat_statements.track_planning=on");
+        postgres.start();
+    }
+
+    @AfterAll
+    static void stopDatabase() {
+        postgres.stop();
+    }
+
+    @FunctionalInterface
+    interface Feed {
+        void load(JdbcTemplate jdbc, List<String> tags, int page);
+    }
+
+    @Test
+    void compareStatementShapes() throws Exception {
+        Map<String, String> driverProperties;
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(MyblogonbootApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=" + postgres.getJdbcUrl(),
+                        "spring.datasource.username=" + postgres.getUsername(),
+                        "spring.datasource.password=" + postgres.getPassword(),
+                        "logging.level.com.my.blog.project.myblogonboot=WARN")
+                .run()) {
+            try (Connection connection = context.getBean(DataSource.class).getConnection();
+                 Statement statement = connection.createStatement()) {
+                System.out.println("Seeded " + GENERATOR.generate(connection));
+                statement.execute("CREATE EXTENSION IF NOT EXISTS pg_stat_statements");
+            }
+            driverProperties = Binder.get(context.getEnvironment())
+                    .bind("spring.datasource.hikari.data-source-properties",
+                            Bindable.mapOf(String.class, String.class))
+                    .orElse(Map.of());
+        }
+
+        List<Map<String, Object>> results = new ArrayList<>();
+        Map<String, Object> inline = run("inline", Map.of(), FeedStatementBenchmark::inlineFeed);
+        Map<String, Object> array = run("array", driverProperties, (jdbc, tags, page) ->
+                new PostRepository(jdbc).searchByTitleAndAllTagNames("", false, tags, !tags.isEmpty(), tags.size(),
+                        page, PAGE_SIZE));
+        results.add(inline);
+        results.add(array);
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("warmup", WARMUP);
+        report.put("iterations", ITERATIONS);
+        report.put("scale", SCALE);
+        report.put("seed", SEED);
+        report.put("driverProperties", driverProperties);
+        report.put("javaVersion", Runtime.version().toString());
+        report.put("results", results);
+
+        File reportFile = new File(System.getProperty("statements.report", "build/reports/benchmark/feed-statements.json"));
+        reportFile.getParentFile().mkdirs();
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(reportFile, report);
+        System.out.println("Feed statement report written to " + reportFile.getAbsolutePath());
+
+        // Every execution of the array variant reuses one of a fixed set of server-side statements
+        assertThat((long) array.get("serverPreparedStatements")).isBetween(1L, (long) FEED_STATEMENTS);
+        assertThat((long) array.get("distinctStatements")).isLessThanOrEqualTo((long) inline.get("distinctStatements"));
+    }
+
+    private Map<String, Object> run(String name, Map<String, String> driverProperties, Feed feed) throws SQLException {
+        Properties properties = new Properties();
+        properties.putAll(driverProperties);
+        properties.setProperty("user", postgres.getUsername());
+        properties.setProperty("password", postgres.getPassword());
+        try (Connection connection = DriverManager.getConnection(postgres.getJdbcUrl(), properties)) {
+            JdbcTemplate jdbc = new JdbcTemplate(new SingleConnectionDataSource(connection, true));
+            // Same request sequence for both variants
+            SplittableRandom random = new SplittableRandom(SEED);
+            for (int i = 0; i < WARMUP; i++) {
+                request(jdbc, feed, random);
+            }
+            jdbc.execute("SELECT pg_stat_statements_reset()");
+
+            Histogram latencies = new Histogram(3);
+            long start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                long requestStart = System.nanoTime();
+                request(jdbc, feed, random);
+                latencies.recordValue((System.nanoTime() - requestStart) / 1_000);
+            }
+            long elapsedNanos = System.nanoTime() - start;
+
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("variant", name);
+            result.put("requestsPerSecond", Math.round(ITERATIONS / (elapsedNanos / 1e9)));
+            result.put("p50Micros", latencies.getValueAtPercentile(50.0));
+            result.put("p99Micros", latencies.getValueAtPercentile(99.0));
+            result.put("maxMicros", latencies.getMaxValue());
+            // Feed statements only, the bookkeeping queries all touch pg_* views
+            result.put("serverPreparedStatements", jdbc.queryForObject(
+                    "SELECT COUNT(*) FROM pg_prepared_statements WHERE statement NOT LIKE '%pg\\_%'", Long.class));
+            // Planning as seen by the server, parsing is not broken out there but shows in the client latency
+            result.putAll(jdbc.queryForMap("""
+                    SELECT COUNT(*) AS "distinctStatements", COALESCE(SUM(calls), 0) AS calls,
+                           COALESCE(SUM(plans), 0) AS plans,
+                           ROUND(COALESCE(SUM(total_plan_time), 0)::numeric, 3) AS "planMillis",
+                           ROUND(COALESCE(SUM(total_exec_time), 0)::numeric, 3) AS "executeMillis"
+                    FROM pg_stat_statements
+                    WHERE dbid = (SELECT oid FROM pg_database WHERE datname = current_database())
+                      AND query NOT LIKE '%pg\\_%'
+                    """));
+            System.out.println("Feed statements " + result);
+            return result;
+        }
+    }
+
+    // Mostly the plain feed, sometimes filtered by up to three tags, pages and tags skewed toward the head
+    private void request(JdbcTemplate jdbc, Feed feed, SplittableRandom random) {
+        int page = 1 + (int) (50 * Math.pow(random.nextDouble(), 3));
+        List<String> tags = new ArrayList<>();
+        if (random.nextInt(10) < 3) {
+            int count = 1 + random.nextInt(3);
+            for (int i = 0; i < count; i++) {
+                tags.add("tag" + (1 + (int) (GENERATOR.tags() * Math.pow(random.nextDouble(), 3))));
+            }
+        }
+        feed.load(jdbc, tags.stream().distinct().toList(), page);
+    }
+
+    // The feed queries as PostRepository built them before array parameters
+    private static void inlineFeed(JdbcTemplate jdbc, List<String> tags, int page) {
+        StringBuilder sql = new StringBuilder(SELECT_POSTS);
+        List<Object> params = new ArrayList<>();
+        if (!tags.isEmpty()) {
+            sql.append("INNER JOIN posts_tags pt ON p.id = pt.post_id ");
+            sql.append("INNER JOIN tags t ON pt.tag_id = t.id ");
+            sql.append("WHERE LOWER(t.name) IN (")
+                    .append(tags.stream().map(tag -> "?").collect(Collectors.joining(",")))
+                    .append(") ");
+            params.addAll(tags);
+            sql.append("GROUP BY p.id, p.title, p.text, p.likes_count, p.comments_count, pi.post_id ");
+            sql.append("HAVING COUNT(DISTINCT t.id) = ? ");
+            params.add((long) tags.size());
+        }
+        jdbc.queryForObject("SELECT COUNT(*) FROM (" + sql + ") AS count_query", Long.class, params.toArray());
+
+        sql.append("ORDER BY p.id DESC LIMIT ? OFFSET ?");
+        params.add(PAGE_SIZE);
+        params.add((page - 1) * PAGE_SIZE);
+        List<Post> posts = jdbc.query(sql.toString(), POST_ROW_MAPPER, params.toArray());
+        if (posts.isEmpty()) {
+            return;
+        }
+
+        String postIds = posts.stream().map(post -> String.valueOf(post.getId())).collect(Collectors.joining(","));
+        Map<Long, Set<Tag>> postTags = new HashMap<>();
+        jdbc.query("""
+                SELECT pt.post_id, t.id, t.name
+                FROM tags t
+                INNER JOIN posts_tags pt ON t.id = pt.tag_id
+                WHERE pt.post_id IN (""" + postIds + ")", rs -> {
+            postTags.computeIfAbsent(rs.getLong("post_id"), k -> new HashSet<>())
+                    .add(new Tag(rs.getLong("id"), rs.getString("name")));
+        });
+        for (Post post : posts) {
+            post.setTags(postTags.getOrDefault(post.getId(), new HashSet<>()));
+        }
+    }
+}
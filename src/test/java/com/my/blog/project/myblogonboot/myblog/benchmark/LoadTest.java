@@ -0,0 +1,328 @@
+package com.my.blog.project.myblogonboot.myblog.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.my.blog.project.myblogonboot.MyblogonbootApplication;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.postgresql.PostgreSQLContainer;
+import org.testcontainers.utility.DockerImageName;
+
+import javax.imageio.ImageIO;
+import javax.sql.DataSource;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Run with ./gradlew loadTest, excluded from the regular test task.
+// Open model: requests arrive at a fixed rate whether or not earlier ones have completed, and latency is measured from
+// the moment a request was due, so a stalled server shows up in the percentiles instead of slowing the client down
+@Tag("loadtest")
+class LoadTest {
+
+    private static final int RATE = Integer.getInteger("loadtest.rate", 200);
+    private static final Duration WARMUP = Duration.ofSeconds(Long.getLong("loadtest.warmup", 10));
+    private static final Duration DURATION = Duration.ofSeconds(Long.getLong("loadtest.duration", 60));
+    private static final double SCALE = Double.parseDouble(System.getProperty("loadtest.scale", "0.1"));
+    private static final long SEED = Long.getLong("loadtest.seed", 42);
+    private static final DatasetGenerator GENERATOR = new DatasetGenerator(SCALE, SEED);
+    private static final String MIX = System.getProperty("loadtest.mix",
+            "feed=35,feed-tags=15,post=20,comments=12,like=8,image=8,upload=2");
+    private static final int UPLOAD_IMAGES = 20;
+    private static final String BOUNDARY = "load-test-boundary";
+
+    private static PostgreSQLContainer postgres;
+
+    @BeforeAll
+    static void startDatabase() {
+        postgres = new PostgreSQLContainer(DockerImageName.parse("postgres:latest"));
+        postgres.start();
+    }
+
+    @AfterAll
+    static void stopDatabase() {
+        postgres.stop();
+    }
+
+    enum Operation {
+        FEED("feed"),
+        FEED_TAGS("feed-tags"),
+        POST("post"),
+        COMMENTS("comments"),
+        LIKE("like"),
+        IMAGE("image"),
+        UPLOAD("upload");
+
+        private final String key;
+
+        Operation(String key) {
+            this.key = key;
+        }
+
+        static Operation of(String key) {
+            for (Operation operation : values()) {
+                if (operation.key.equals(key)) {
+                    return operation;
+                }
+            }
+            throw new IllegalArgumentException("Unknown operation '" + key + "' in loadtest.mix");
+        }
+    }
+
+    record Dataset(long[] postIds, long[] imagePostIds, List<byte[]> images) {
+    }
+
+    record Result(Map<Operation, Histogram> latencies, Map<Operation, LongAdder> errors, long sent) {
+    }
+
+    @Test
+    void runWorkload() throws Exception {
+        Map<Operation, Integer> mix = parseMix(MIX);
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(MyblogonbootApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.datasource.url=" + postgres.getJdbcUrl(),
+                        "spring.datasource.username=" + postgres.getUsername(),
+                        "spring.datasource.password=" + postgres.getPassword(),
+                        "logging.level.org.springframework.jdbc.core=WARN",
+                        "logging.level.com.my.blog.project.myblogonboot=WARN")
+                .run()) {
+            Dataset dataset = seed(context.getBean(DataSource.class));
+            String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/api/posts";
+            try (ExecutorService httpExecutor = Executors.newVirtualThreadPerTaskExecutor()) {
+                HttpClient http = HttpClient.newBuilder()
+                        .executor(httpExecutor)
+                        .connectTimeout(Duration.ofSeconds(10))
+                        .build();
+
+                run(http, baseUrl, dataset, mix, WARMUP, new SplittableRandom(SEED));
+                Result result = run(http, baseUrl, dataset, mix, DURATION, new SplittableRandom(SEED + 1));
+                Map<String, Object> report = report(mix, result);
+                System.out.println("Load test: " + report.get("total"));
+
+                File reportFile = new File(System.getProperty("loadtest.report", "build/reports/loadtest/load-test.json"));
+                reportFile.getParentFile().mkdirs();
+                new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(reportFile, report);
+                System.out.println("Load test report written to " + reportFile.getAbsolutePath());
+
+                assertThat(result.latencies().values().stream().mapToLong(Histogram::getTotalCount).sum()).isPositive();
+            }
+        }
+    }
+
+    private Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String part : mix.split(",")) {
+            String[] keyValue = part.trim().split("=");
+            int weight = Integer.parseInt(keyValue[1].trim());
+            if (weight > 0) {
+                weights.put(Operation.of(keyValue[0].trim()), weight);
+            }
+        }
+        assertThat(weights).as("loadtest.mix").isNotEmpty();
+        return weights;
+    }
+
+    private Dataset seed(DataSource dataSource) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            DatasetGenerator.Summary summary = GENERATOR.generate(connection);
+            System.out.println("Seeded " + summary);
+        }
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        long[] postIds = jdbc.queryForList("SELECT id FROM posts ORDER BY id", Long.class).stream()
+                .mapToLong(Long::longValue)
+                .toArray();
+        long[] imagePostIds = jdbc.queryForList("SELECT post_id FROM post_images ORDER BY post_id", Long.class).stream()
+                .mapToLong(Long::longValue)
+                .toArray();
+        // Uploads send fresh bytes, a stored hash would only bump a reference count
+        SplittableRandom random = new SplittableRandom(SEED);
+        List<byte[]> uploads = new ArrayList<>();
+        for (int i = 0; i < UPLOAD_IMAGES; i++) {
+            uploads.add(png(random, 160 + 40 * i, 120 + 30 * i));
+        }
+        return new Dataset(postIds, imagePostIds, uploads);
+    }
+
+    private Result run(HttpClient http, String baseUrl, Dataset dataset, Map<Operation, Integer> mix,
+                       Duration duration, SplittableRandom random) {
+        Map<Operation, Histogram> latencies = new EnumMap<>(Operation.class);
+        Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+        for (Operation operation : mix.keySet()) {
+            // Microseconds, auto-resizing so a multi-second stall is still recorded exactly
+            latencies.put(operation, new ConcurrentHistogram(3));
+            errors.put(operation, new LongAdder());
+        }
+        int totalWeight = mix.values().stream().mapToInt(Integer::intValue).sum();
+        long intervalNanos = 1_000_000_000L / RATE;
+        long sent = 0;
+
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            long start = System.nanoTime();
+            long end = start + duration.toNanos();
+            while (true) {
+                long due = start + sent * intervalNanos;
+                if (due >= end) {
+                    break;
+                }
+                long wait = due - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                // Decided on the scheduling thread so the request sequence only depends on the seed
+                Operation operation = pick(mix, totalWeight, random);
+                HttpRequest request = request(operation, baseUrl, dataset, random);
+                clients.submit(() -> {
+                    try {
+                        HttpResponse<Void> response = http.send(request, HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() >= 400) {
+                            errors.get(operation).increment();
+                            return;
+                        }
+                    } catch (Exception e) {
+                        errors.get(operation).increment();
+                        return;
+                    }
+                    latencies.get(operation).recordValue((System.nanoTime() - due) / 1_000);
+                });
+                sent++;
+            }
+        }
+        return new Result(latencies, errors, sent);
+    }
+
+    private Operation pick(Map<Operation, Integer> mix, int totalWeight, SplittableRandom random) {
+        int ticket = random.nextInt(totalWeight);
+        for (Map.Entry<Operation, Integer> entry : mix.entrySet()) {
+            ticket -= entry.getValue();
+            if (ticket < 0) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalStateException("Empty mix");
+    }
+
+    private HttpRequest request(Operation operation, String baseUrl, Dataset dataset, SplittableRandom random) {
+        long postId = dataset.postIds()[skewed(random, dataset.postIds().length)];
+        HttpRequest.Builder builder = switch (operation) {
+            case FEED -> HttpRequest.newBuilder(URI.create(baseUrl + "?pageNumber=" + (1 + skewed(random, 50))
+                    + "&pageSize=10"));
+            case FEED_TAGS -> HttpRequest.newBuilder(URI.create(baseUrl + "?search=%23tag"
+                    + (1 + skewed(random, GENERATOR.tags())) + "&pageNumber=1&pageSize=10"));
+            case POST -> HttpRequest.newBuilder(URI.create(baseUrl + "/" + postId));
+            case COMMENTS -> HttpRequest.newBuilder(URI.create(baseUrl + "/" + postId + "/comments"));
+            case LIKE -> HttpRequest.newBuilder(URI.create(baseUrl + "/" + postId + "/likes"))
+                    .POST(HttpRequest.BodyPublishers.noBody());
+            case IMAGE -> HttpRequest.newBuilder(URI.create(baseUrl + "/"
+                    + dataset.imagePostIds()[skewed(random, dataset.imagePostIds().length)] + "/image"));
+            case UPLOAD -> HttpRequest.newBuilder(URI.create(baseUrl + "/" + postId + "/image"))
+                    .header("Content-Type", "multipart/form-data; boundary=" + BOUNDARY)
+                    .PUT(HttpRequest.BodyPublishers.ofByteArray(
+                            multipart(dataset.images().get(random.nextInt(dataset.images().size())))));
+        };
+        return builder.timeout(Duration.ofSeconds(30)).build();
+    }
+
+    // Index in [0, size) with roughly the head-heavy shape of real traffic
+    private static int skewed(SplittableRandom random, int size) {
+        return (int) (size * Math.pow(random.nextDouble(), 3));
+    }
+
+    private static byte[] png(SplittableRandom random, int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setRGB(x, y, random.nextInt(0x1000000));
+            }
+        }
+        try (ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            ImageIO.write(image, "png", out);
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] multipart(byte[] image) {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        body.writeBytes(("--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"image\"; filename=\"load.png\"\r\n"
+                + "Content-Type: image/png\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+        body.writeBytes(image);
+        body.writeBytes(("\r\n--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.US_ASCII));
+        return body.toByteArray();
+    }
+
+    private Map<String, Object> report(Map<Operation, Integer> mix, Result result) {
+        Histogram total = new Histogram(3);
+        long totalErrors = 0;
+        Map<String, Object> operations = new LinkedHashMap<>();
+        for (Operation operation : mix.keySet()) {
+            Histogram histogram = result.latencies().get(operation);
+            long errors = result.errors().get(operation).sum();
+            total.add(histogram);
+            totalErrors += errors;
+            Map<String, Object> summary = summarize(histogram, errors);
+            summary.put("weight", mix.get(operation));
+            operations.put(operation.key, summary);
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("targetRatePerSecond", RATE);
+        report.put("warmupSeconds", WARMUP.toSeconds());
+        report.put("durationSeconds", DURATION.toSeconds());
+        report.put("scale", SCALE);
+        report.put("posts", GENERATOR.posts());
+        report.put("tags", GENERATOR.tags());
+        report.put("seed", SEED);
+        report.put("mix", MIX);
+        report.put("javaVersion", Runtime.version().toString());
+        report.put("availableProcessors", Runtime.getRuntime().availableProcessors());
+        report.put("sent", result.sent());
+        Map<String, Object> totals = summarize(total, totalErrors);
+        totals.put("throughputPerSecond", Math.round(total.getTotalCount() / (double) DURATION.toSeconds()));
+        report.put("total", totals);
+        report.put("operations", operations);
+        return report;
+    }
+
+    private Map<String, Object> summarize(Histogram histogram, long errors) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("requests", histogram.getTotalCount());
+        summary.put("errors", errors);
+        summary.put("p50Millis", histogram.getValueAtPercentile(50.0) / 1_000.0);
+        summary.put("p99Millis", histogram.getValueAtPercentile(99.0) / 1_000.0);
+        summary.put("p999Millis", histogram.getValueAtPercentile(99.9) / 1_000.0);
+        summary.put("maxMillis", histogram.getMaxValue() / 1_000.0);
+        return summary;
+    }
+}
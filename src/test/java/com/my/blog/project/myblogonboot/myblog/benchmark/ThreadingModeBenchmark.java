@@ -0,0 +1,307 @@
+package com.my.blog.project.myblogonboot.myblog.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.my.blog.project.myblogonboot.MyblogonbootApplication;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryMetadata;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.testcontainers.postgresql.PostgreSQLContainer;
+import org.testcontainers.utility.DockerImageName;
+import reactor.core.publisher.Mono;
+
+import javax.sql.DataSource;
+import java.io.File;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Run with ./gradlew benchmark, excluded from the regular test task
+@Tag("benchmark")
+class ThreadingModeBenchmark {
+
+    private static final int CONCURRENCY = Integer.getInteger("benchmark.concurrency", 1000);
+    private static final Duration WARMUP = Duration.ofSeconds(Long.getLong("benchmark.warmup", 10));
+    private static final Duration DURATION = Duration.ofSeconds(Long.getLong("benchmark.duration", 30));
+    private static final long DB_LATENCY_MILLIS = Long.getLong("benchmark.db-latency", 20);
+    private static final int POOL_SIZE = Integer.getInteger("benchmark.pool-size", 100);
+    private static final int POSTS = 50;
+
+    private static PostgreSQLContainer postgres;
+
+    @BeforeAll
+    static void startDatabase() {
+        postgres = new PostgreSQLContainer(DockerImageName.parse("postgres:latest"))
+                .withCommand("postgres", "-c", "max_connections=" + (2 * POOL_SIZE + 20));
+        postgres.start();
+    }
+
+    @AfterAll
+    static void stopDatabase() {
+        postgres.stop();
+    }
+
+    @Test
+    void compareThreadingModes() throws Exception {
+        List<Map<String, Object>> results = new ArrayList<>();
+        results.add(run("platform", false, false));
+        results.add(run("virtual", true, false));
+        results.add(run("reactive", false, true));
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("concurrency", CONCURRENCY);
+        report.put("warmupSeconds", WARMUP.toSeconds());
+        report.put("durationSeconds", DURATION.toSeconds());
+        report.put("dbLatencyMillis", DB_LATENCY_MILLIS);
+        report.put("poolSize", POOL_SIZE);
+        report.put("javaVersion", Runtime.version().toString());
+        report.put("availableProcessors", Runtime.getRuntime().availableProcessors());
+        report.put("results", results);
+
+        File reportFile = new File(System.getProperty("benchmark.report", "build/reports/benchmark/threading-mode.json"));
+        reportFile.getParentFile().mkdirs();
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(reportFile, report);
+        System.out.println("Benchmark report written to " + reportFile.getAbsolutePath());
+
+        assertThat(results).allSatisfy(result -> assertThat((long) result.get("requests")).isPositive());
+    }
+
+    private Map<String, Object> run(String mode, boolean virtualThreads, boolean reactive) throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(MyblogonbootApplication.class,
+                SlowDatabaseConfiguration.class)
+                .profiles(reactive ? new String[]{"reactive"} : new String[0])
+                .properties(
+                        "server.port=0",
+                        "spring.threads.virtual.enabled=" + virtualThreads,
+                        "spring.datasource.url=" + postgres.getJdbcUrl(),
+                        "spring.datasource.username=" + postgres.getUsername(),
+                        "spring.datasource.password=" + postgres.getPassword(),
+                        // In reactive mode requests go through R2DBC, JDBC is left with Liquibase and thumbnails
+                        "spring.datasource.hikari.maximum-pool-size=" + (reactive ? 5 : POOL_SIZE),
+                        "reactive.r2dbc.pool.max-size=" + POOL_SIZE,
+                        "benchmark.db-latency=" + DB_LATENCY_MILLIS,
+                        "logging.level.org.springframework.jdbc.core=WARN",
+                        "logging.level.com.my.blog.project.myblogonboot=WARN")
+                .run()) {
+            String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/api/posts";
+            try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+                HttpClient http = HttpClient.newBuilder()
+                        .executor(clients)
+                        .connectTimeout(Duration.ofSeconds(10))
+                        .build();
+                long[] postIds = seed(http, baseUrl);
+
+                load(http, clients, baseUrl, postIds, WARMUP);
+                List<long[]> samples = load(http, clients, baseUrl, postIds, DURATION);
+                Map<String, Object> result = summarize(mode, samples);
+                System.out.println("Threading mode benchmark: " + result);
+                return result;
+            }
+        }
+    }
+
+    private long[] seed(HttpClient http, String baseUrl) throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        long[] postIds = new long[POSTS];
+        for (int i = 0; i < POSTS; i++) {
+            String body = mapper.writeValueAsString(Map.of(
+                    "title", "Benchmark post " + i,
+                    "text", "Benchmark content ".repeat(50),
+                    "tags", List.of("bench", "tag" + (i % 5))));
+            HttpResponse<String> response = http.send(HttpRequest.newBuilder(URI.create(baseUrl))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body))
+                    .build(), HttpResponse.BodyHandlers.ofString());
+            postIds[i] = mapper.readTree(response.body()).get("id").asLong();
+        }
+        return postIds;
+    }
+
+    // Closed model: every worker sends its next request as soon as the previous one completes
+    private List<long[]> load(HttpClient http, ExecutorService clients, String baseUrl,
+                              long[] postIds, Duration duration) throws Exception {
+        long deadline = System.nanoTime() + duration.toNanos();
+        List<Future<long[]>> workers = new ArrayList<>();
+        for (int i = 0; i < CONCURRENCY; i++) {
+            workers.add(clients.submit(() -> {
+                long[] latencies = new long[1024];
+                int count = 0;
+                long errors = 0;
+                while (System.nanoTime() < deadline) {
+                    HttpRequest request = HttpRequest.newBuilder(nextUri(baseUrl, postIds))
+                            .timeout(Duration.ofSeconds(30))
+                            .GET()
+                            .build();
+                    long start = System.nanoTime();
+                    try {
+                        HttpResponse<Void> response = http.send(request, HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() != 200) {
+                            errors++;
+                            continue;
+                        }
+                    } catch (Exception e) {
+                        errors++;
+                        continue;
+                    }
+                    if (count == latencies.length) {
+                        latencies = Arrays.copyOf(latencies, count * 2);
+                    }
+                    latencies[count++] = System.nanoTime() - start;
+                }
+                long[] sample = Arrays.copyOf(latencies, count + 1);
+                sample[count] = errors;
+                return sample;
+            }));
+        }
+        List<long[]> samples = new ArrayList<>();
+        for (Future<long[]> worker : workers) {
+            samples.add(worker.get());
+        }
+        return samples;
+    }
+
+    private URI nextUri(String baseUrl, long[] postIds) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long postId = postIds[random.nextInt(postIds.length)];
+        return switch (random.nextInt(3)) {
+            case 0 -> URI.create(baseUrl + "?search=bench&pageNumber=1&pageSize=10");
+            case 1 -> URI.create(baseUrl + "/" + postId);
+            default -> URI.create(baseUrl + "/" + postId + "/comments");
+        };
+    }
+
+    private Map<String, Object> summarize(String mode, List<long[]> samples) {
+        long errors = 0;
+        int total = 0;
+        for (long[] sample : samples) {
+            errors += sample[sample.length - 1];
+            total += sample.length - 1;
+        }
+        long[] latencies = new long[total];
+        int position = 0;
+        for (long[] sample : samples) {
+            System.arraycopy(sample, 0, latencies, position, sample.length - 1);
+            position += sample.length - 1;
+        }
+        Arrays.sort(latencies);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("mode", mode);
+        result.put("requests", (long) total);
+        result.put("errors", errors);
+        result.put("throughputPerSecond", Math.round(total / (double) DURATION.toSeconds()));
+        result.put("p50Millis", percentile(latencies, 0.50));
+        result.put("p90Millis", percentile(latencies, 0.90));
+        result.put("p99Millis", percentile(latencies, 0.99));
+        result.put("maxMillis", latencies.length == 0 ? 0 : latencies[latencies.length - 1] / 1_000_000.0);
+        return result;
+    }
+
+    private double percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1_000_000.0;
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    static class SlowDatabaseConfiguration {
+
+        // Holds every pooled connection a little longer, as a slow query would
+        @Bean
+        static BeanPostProcessor slowDataSourcePostProcessor(
+                @Value("${benchmark.db-latency:0}") long latencyMillis) {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (latencyMillis <= 0) {
+                        return bean;
+                    }
+                    if (bean instanceof DataSource dataSource) {
+                        return new SlowDataSource(dataSource, latencyMillis);
+                    }
+                    if (bean instanceof ConnectionPool connectionPool) {
+                        return new SlowConnectionFactory(connectionPool, latencyMillis);
+                    }
+                    return bean;
+                }
+            };
+        }
+    }
+
+    static class SlowDataSource extends DelegatingDataSource {
+
+        private final long latencyMillis;
+
+        SlowDataSource(DataSource target, long latencyMillis) {
+            super(target);
+            this.latencyMillis = latencyMillis;
+        }
+
+        @Override
+        public java.sql.Connection getConnection() throws SQLException {
+            java.sql.Connection connection = super.getConnection();
+            try {
+                Thread.sleep(latencyMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return connection;
+        }
+    }
+
+    // Same delay for the reactive stack, the connection is handed out late without blocking any thread
+    static class SlowConnectionFactory implements ConnectionFactory {
+
+        private final ConnectionPool target;
+        private final Duration latency;
+
+        SlowConnectionFactory(ConnectionPool target, long latencyMillis) {
+            this.target = target;
+            this.latency = Duration.ofMillis(latencyMillis);
+        }
+
+        @Override
+        public Publisher<? extends Connection> create() {
+            return Mono.from(target.create()).delayElement(latency);
+        }
+
+        @Override
+        public ConnectionFactoryMetadata getMetadata() {
+            return target.getMetadata();
+        }
+
+        // The pool bean is declared with destroyMethod = "dispose", which now resolves against this wrapper
+        public void dispose() {
+            target.dispose();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.my.blog.project.myblogonboot.myblog.config;
+
+import com.my.blog.project.myblogonboot.myblog.dto.post.PostRequest;
+import com.my.blog.project.myblogonboot.myblog.dto.post.PostResponse;
+import com.my.blog.project.myblogonboot.myblog.service.ImageService;
+import com.my.blog.project.myblogonboot.myblog.service.PostService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.TestPropertySource;
+
+import java.sql.Connection;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Not @Transactional, the blob pool runs on its own connections and has to see committed rows
+@TestPropertySource(properties = {
+        "datasource.blob.enabled=true",
+        "datasource.blob.pool-size=2",
+        "datasource.blob.connection-timeout=PT0.5S"
+})
+class BlobPoolIsolationIntegrationTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private ConnectionPools connectionPools;
+
+    @Autowired
+    private ImageService imageService;
+
+    @Autowired
+    private PostService postService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private PostResponse post;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        jdbcTemplate.execute("DELETE FROM comments");
+        jdbcTemplate.execute("DELETE FROM post_image_variants");
+        jdbcTemplate.execute("DELETE FROM post_images");
+        jdbcTemplate.execute("DELETE FROM image_blobs");
+        jdbcTemplate.execute("DELETE FROM posts_tags");
+        jdbcTemplate.execute("DELETE FROM posts");
+        jdbcTemplate.execute("DELETE FROM tags");
+
+        post = postService.savePost(new PostRequest("Bulkhead", "Text", List.of("Java")));
+        imageService.uploadImage(post.id(), new MockMultipartFile("image", "test.png", "image/png", new byte[]{1, 2, 3}));
+    }
+
+    @Test
+    void exhaustedBlobPool_shouldNotBlockMetadataQueries() throws Exception {
+        // Given
+        try (Connection first = connectionPools.getBlobDataSource().getConnection();
+             Connection second = connectionPools.getBlobDataSource().getConnection()) {
+
+            // When & Then
+            assertThat(connectionPools.getStats())
+                    .filteredOn(stats -> stats.name().equals("blob"))
+                    .singleElement()
+                    .satisfies(stats -> assertThat(stats.active()).isEqualTo(2));
+            assertThat(postService.getPostById(post.id()).title()).isEqualTo("Bulkhead");
+            assertThat(imageService.getPostImageMeta(post.id()).getStatusCode()).isEqualTo(HttpStatus.OK);
+            // getPostImage runs without a transaction, the blob template fails to get a connection itself
+            assertThatThrownBy(() -> imageService.getPostImage(post.id()))
+                    .isInstanceOf(CannotGetJdbcConnectionException.class);
+        }
+
+        assertThat(imageService.getPostImage(post.id())).isPresent();
+    }
+
+    @Test
+    void getStats_shouldReportBothPools() {
+        // When
+        List<ConnectionPools.PoolStats> stats = connectionPools.getStats();
+
+        // Then
+        assertThat(stats).extracting(ConnectionPools.PoolStats::name).containsExactly("metadata", "blob");
+        assertThat(stats).filteredOn(pool -> pool.name().equals("blob"))
+                .singleElement()
+                .satisfies(pool -> assertThat(pool.maxSize()).isEqualTo(2));
+    }
+}
@@ -0,0 +1,69 @@
+package com.my.blog.project.myblogonboot.myblog.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConcurrencyLimitInterceptorTest {
+
+    private final ConcurrencyLimitInterceptor limiter =
+            new ConcurrencyLimitInterceptor("blob", 1, Duration.ofMillis(10));
+
+    @Test
+    void preHandle_shouldRejectWith503_whenAllPermitsAreTaken() {
+        // Given
+        MockHttpServletRequest first = new MockHttpServletRequest("GET", "/api/images/abc");
+        MockHttpServletRequest second = new MockHttpServletRequest("GET", "/api/images/def");
+        MockHttpServletResponse rejectedResponse = new MockHttpServletResponse();
+
+        // When
+        boolean firstAdmitted = limiter.preHandle(first, new MockHttpServletResponse(), new Object());
+        boolean secondAdmitted = limiter.preHandle(second, rejectedResponse, new Object());
+
+        // Then
+        assertThat(firstAdmitted).isTrue();
+        assertThat(secondAdmitted).isFalse();
+        assertThat(rejectedResponse.getStatus()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE.value());
+        assertThat(rejectedResponse.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+        assertThat(limiter.getStats().inFlight()).isEqualTo(1);
+        assertThat(limiter.getStats().rejected()).isEqualTo(1);
+    }
+
+    @Test
+    void afterCompletion_shouldReleasePermit() {
+        // Given
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/images/abc");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        limiter.preHandle(request, response, new Object());
+
+        // When
+        limiter.afterCompletion(request, response, new Object(), null);
+
+        // Then
+        assertThat(limiter.getStats().inFlight()).isZero();
+        assertThat(limiter.preHandle(new MockHttpServletRequest(), new MockHttpServletResponse(), new Object())).isTrue();
+    }
+
+    @Test
+    void afterCompletion_shouldNotReleaseMoreThanWasAcquired() {
+        // Given
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/images/abc");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        limiter.preHandle(request, response, new Object());
+
+        // When
+        limiter.afterCompletion(request, response, new Object(), null);
+        limiter.afterCompletion(request, response, new Object(), null);
+        limiter.afterCompletion(new MockHttpServletRequest(), response, new Object(), null);
+
+        // Then
+        assertThat(limiter.getStats().inFlight()).isZero();
+        assertThat(limiter.getStats().maxConcurrent()).isEqualTo(1);
+    }
+}
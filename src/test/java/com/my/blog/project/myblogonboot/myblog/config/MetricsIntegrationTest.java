@@ -0,0 +1,40 @@
+package com.my.blog.project.myblogonboot.myblog.config;
+
+import com.my.blog.project.myblogonboot.myblog.repository.PostRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MetricsIntegrationTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Test
+    void repositoryCalls_shouldBeTimedPerMethod() {
+        // When
+        postRepository.findPostById(-1L);
+
+        // Then
+        Timer timer = meterRegistry.find("blog.repository")
+                .tag("class", PostRepository.class.getName())
+                .tag("method", "findPostById")
+                .timer();
+        assertThat(timer).isNotNull();
+        assertThat(timer.count()).isPositive();
+    }
+
+    @Test
+    void registry_shouldContainPoolAndCacheMeters() {
+        // Then
+        assertThat(meterRegistry.find("hikaricp.connections.active").tag("pool", "main").gauge()).isNotNull();
+        assertThat(meterRegistry.find("blog.image.cache.size").gauge()).isNotNull();
+        assertThat(meterRegistry.find("blog.requests.in-flight").tag("limit", "blob").gauge()).isNotNull();
+    }
+}
@@ -0,0 +1,30 @@
+package com.my.blog.project.myblogonboot.myblog.config;
+
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Fails a test when the action runs more statements than budgeted, listing what ran so an N+1 is easy to spot
+public final class QueryBudget {
+
+    private QueryBudget() {
+    }
+
+    public static void assertWithinBudget(RequestQueryCounter queryCounter, int maxStatements, Action action)
+            throws Exception {
+        try (RequestQueryCounter.Scope scope = queryCounter.open()) {
+            action.run();
+            assertThat(scope.statements())
+                    .as(() -> "Statements executed:\n" + scope.recorded().stream()
+                            .map(statement -> statement.caller() + ": " + SqlFingerprint.of(statement.sql()))
+                            .collect(Collectors.joining("\n")))
+                    .isLessThanOrEqualTo(maxStatements);
+        }
+    }
+
+    @FunctionalInterface
+    public interface Action {
+
+        void run() throws Exception;
+    }
+}
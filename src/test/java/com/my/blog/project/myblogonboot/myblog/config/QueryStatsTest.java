@@ -0,0 +1,53 @@
+package com.my.blog.project.myblogonboot.myblog.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class QueryStatsTest {
+
+    @Test
+    void top_shouldAggregateStatementsByFingerprint() {
+        // Given
+        QueryStats stats = new QueryStats(10);
+        stats.onStatement(statement("SELECT * FROM posts WHERE id = 1", 2_000_000, 1));
+        stats.onStatement(statement("SELECT * FROM posts WHERE id = 2", 4_000_000, 1));
+        stats.onStatement(statement("SELECT * FROM tags", 1_000_000, 5));
+
+        // When
+        List<QueryStats.QueryStat> top = stats.top(10, QueryStats.Order.TOTAL);
+
+        // Then
+        assertThat(top).hasSize(2);
+        assertThat(top.get(0).fingerprint()).isEqualTo("SELECT * FROM posts WHERE id = ?");
+        assertThat(top.get(0).calls()).isEqualTo(2);
+        assertThat(top.get(0).rows()).isEqualTo(2);
+        assertThat(top.get(0).totalMillis()).isEqualTo(6.0);
+        assertThat(top.get(0).meanMillis()).isEqualTo(3.0);
+        assertThat(top.get(0).maxMillis()).isEqualTo(4.0);
+        assertThat(stats.top(1, QueryStats.Order.CALLS)).extracting(QueryStats.QueryStat::calls).containsExactly(2L);
+    }
+
+    @Test
+    void onStatement_shouldFoldNewFingerprintsIntoOverflow_whenFull() {
+        // Given
+        QueryStats stats = new QueryStats(1);
+
+        // When
+        stats.onStatement(statement("SELECT * FROM posts", 1_000_000, 0));
+        stats.onStatement(statement("SELECT * FROM tags", 1_000_000, 0));
+        stats.onStatement(statement("SELECT * FROM comments", 1_000_000, 0));
+
+        // Then
+        assertThat(stats.top(10, QueryStats.Order.CALLS))
+                .extracting(QueryStats.QueryStat::fingerprint)
+                .containsExactly(QueryStats.OVERFLOW_FINGERPRINT, "SELECT * FROM posts");
+    }
+
+    private ExecutedStatement statement(String sql, long nanos, long rows) {
+        return new ExecutedStatement(sql, nanos, rows, "PostRepository.findPostById", List.of("Long"), Instant.now());
+    }
+}
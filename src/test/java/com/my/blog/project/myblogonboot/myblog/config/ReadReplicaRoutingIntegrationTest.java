@@ -0,0 +1,147 @@
+package com.my.blog.project.myblogonboot.myblog.config;
+
+import com.my.blog.project.myblogonboot.myblog.dto.post.PostRequest;
+import com.my.blog.project.myblogonboot.myblog.dto.post.PostResponse;
+import com.my.blog.project.myblogonboot.myblog.dto.post.PostsResponse;
+import com.my.blog.project.myblogonboot.myblog.service.PostService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.Network;
+import org.testcontainers.containers.wait.strategy.Wait;
+import org.testcontainers.images.builder.Transferable;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.postgresql.PostgreSQLContainer;
+import org.testcontainers.utility.DockerImageName;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// A primary and a hot standby fed by streaming replication, not using BaseTestConfiguration's single container
+@SpringBootTest
+@ActiveProfiles("test")
+@Testcontainers
+class ReadReplicaRoutingIntegrationTest {
+
+    // Pinned, the standby is cloned with pg_basebackup into the data directory layout of this major version
+    private static final DockerImageName POSTGRES = DockerImageName.parse("postgres:16");
+    private static final int POSTGRES_PORT = 5432;
+
+    private static final String PG_HBA = """
+        local all all trust
+        host all all all scram-sha-256
+        host replication all all scram-sha-256
+        """;
+
+    private static final Network network = Network.newNetwork();
+
+    @Container
+    static final PostgreSQLContainer primary = new PostgreSQLContainer(POSTGRES)
+            .withNetwork(network)
+            .withNetworkAliases("primary")
+            .withCopyToContainer(Transferable.of(PG_HBA), "/etc/postgresql/pg_hba.conf")
+            .withCommand("postgres", "-c", "wal_level=replica", "-c", "max_wal_senders=4",
+                    "-c", "hba_file=/etc/postgresql/pg_hba.conf");
+
+    @Container
+    static final GenericContainer<?> replica = new GenericContainer<>(POSTGRES)
+            .withNetwork(network)
+            .dependsOn(primary)
+            .withExposedPorts(POSTGRES_PORT)
+            .withEnv("PGDATA", "/var/lib/postgresql/data")
+            .withEnv("PGPASSWORD", "test")
+            .withCreateContainerCmdModifier(cmd -> cmd.withEntrypoint("bash", "-c"))
+            // Clone the primary, -R leaves standby.signal and primary_conninfo behind, then start as a hot standby
+            .withCommand(new String[]{
+                    "until pg_basebackup -h primary -U test -D \"$PGDATA\" -R -X stream; do rm -rf \"$PGDATA\"/*; sleep 1; done"
+                            + " && exec docker-entrypoint.sh postgres"})
+            .waitingFor(Wait.forLogMessage(".*ready to accept read-only connections.*\\s", 1)
+                    .withStartupTimeout(Duration.ofMinutes(2)));
+
+    @DynamicPropertySource
+    static void datasources(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", primary::getJdbcUrl);
+        registry.add("spring.datasource.username", primary::getUsername);
+        registry.add("spring.datasource.password", primary::getPassword);
+        registry.add("datasource.replicas.urls", () -> "jdbc:postgresql://" + replica.getHost() + ":"
+                + replica.getMappedPort(POSTGRES_PORT) + "/" + primary.getDatabaseName());
+        registry.add("datasource.replicas.health-check-interval", () -> "PT1S");
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ReplicaRouter replicaRouter;
+
+    @Autowired
+    private PostService postService;
+
+    @Test
+    void readOnlyTransactions_shouldRunOnReplica_andOthersOnPrimary() {
+        // Given
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        TransactionTemplate readWrite = new TransactionTemplate(transactionManager);
+
+        // When
+        Boolean readOnlyInRecovery = readOnly.execute(status -> isInRecovery());
+        Boolean readWriteInRecovery = readWrite.execute(status -> isInRecovery());
+        Boolean nonTransactionalInRecovery = isInRecovery();
+
+        // Then
+        assertThat(readOnlyInRecovery).isTrue();
+        assertThat(readWriteInRecovery).isFalse();
+        assertThat(nonTransactionalInRecovery).isFalse();
+    }
+
+    @Test
+    void getPosts_shouldReadWritesReplicatedFromPrimary() throws InterruptedException {
+        // Given
+        PostResponse created = postService.savePost(new PostRequest("Replicated post", "Content", List.of("Replica")));
+
+        // When
+        PostsResponse posts = null;
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (System.nanoTime() < deadline) {
+            posts = postService.getPosts("Replicated", 1, 10);
+            if (!posts.posts().isEmpty()) {
+                break;
+            }
+            Thread.sleep(100);
+        }
+
+        // Then
+        assertThat(posts).isNotNull();
+        assertThat(posts.posts()).extracting(PostResponse::id).containsExactly(created.id());
+    }
+
+    @Test
+    void checkHealth_shouldKeepCaughtUpReplicaInRotation() {
+        // When
+        replicaRouter.checkHealth();
+
+        // Then
+        assertThat(replicaRouter.getStatus()).singleElement().satisfies(status -> {
+            assertThat(status.healthy()).isTrue();
+            assertThat(status.lag()).isLessThan(Duration.ofSeconds(10));
+        });
+    }
+
+    private Boolean isInRecovery() {
+        return jdbcTemplate.queryForObject("SELECT pg_is_in_recovery()", Boolean.class);
+    }
+}
@@ -0,0 +1,152 @@
+package com.my.blog.project.myblogonboot.myblog.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.datasource.ConnectionProxy;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReplicaRouterTest {
+
+    @Mock
+    private DataSource primary;
+
+    @Mock
+    private DataSource firstReplica;
+
+    @Mock
+    private DataSource secondReplica;
+
+    @Mock
+    private Connection primaryConnection;
+
+    @Mock
+    private Connection firstConnection;
+
+    @Mock
+    private Connection secondConnection;
+
+    @Test
+    void getReadOnlyConnection_shouldRotateAcrossReplicas() throws SQLException {
+        // Given
+        when(firstReplica.getConnection()).thenReturn(firstConnection);
+        when(secondReplica.getConnection()).thenReturn(secondConnection);
+        ReplicaRouter router = new ReplicaRouter(primary, List.of(firstReplica, secondReplica), Duration.ofSeconds(10));
+
+        // When & Then
+        assertThat(router.getReadOnlyConnection()).isSameAs(firstConnection);
+        assertThat(router.getReadOnlyConnection()).isSameAs(secondConnection);
+        assertThat(router.getReadOnlyConnection()).isSameAs(firstConnection);
+        verify(primary, never()).getConnection();
+    }
+
+    @Test
+    void getBlobDataSource_shouldRouteReadOnlyConnectionsToBlobReplicas() throws SQLException {
+        // Given
+        DataSource blobPrimary = mock(DataSource.class);
+        DataSource blobReplica = mock(DataSource.class);
+        Connection blobReplicaConnection = mock(Connection.class);
+        // The lazy proxy may borrow one primary connection to learn the default auto-commit and isolation
+        lenient().when(blobPrimary.getConnection()).thenReturn(primaryConnection);
+        when(blobReplica.getConnection()).thenReturn(blobReplicaConnection);
+        ReplicaRouter router = new ReplicaRouter(primary, List.of(firstReplica), List.of(blobReplica),
+                Duration.ofSeconds(10));
+
+        // When
+        Connection connection = router.getBlobDataSource(blobPrimary).getConnection();
+        connection.setReadOnly(true);
+
+        // Then
+        assertThat(((ConnectionProxy) connection).getTargetConnection()).isSameAs(blobReplicaConnection);
+        verify(firstReplica, never()).getConnection();
+    }
+
+    @Test
+    void getBlobDataSource_shouldReturnBlobPool_whenNoBlobReplicas() {
+        // Given
+        DataSource blobPrimary = mock(DataSource.class);
+        ReplicaRouter router = new ReplicaRouter(primary, List.of(firstReplica), Duration.ofSeconds(10));
+
+        // When & Then
+        assertThat(router.getBlobDataSource(blobPrimary)).isSameAs(blobPrimary);
+    }
+
+    @Test
+    void getReadOnlyConnection_shouldFallBackToPrimary_whenReplicaIsUnreachable() throws SQLException {
+        // Given
+        when(firstReplica.getConnection()).thenThrow(new SQLException("Connection refused"));
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        ReplicaRouter router = new ReplicaRouter(primary, List.of(firstReplica), Duration.ofSeconds(10));
+
+        // When
+        Connection first = router.getReadOnlyConnection();
+        Connection second = router.getReadOnlyConnection();
+
+        // Then
+        assertThat(first).isSameAs(primaryConnection);
+        assertThat(second).isSameAs(primaryConnection);
+        // Out of rotation after the first failure, not retried on every request
+        verify(firstReplica, times(1)).getConnection();
+        assertThat(router.getStatus()).singleElement().satisfies(status -> assertThat(status.healthy()).isFalse());
+    }
+
+    @Test
+    void checkHealth_shouldTakeLaggingReplicaOutOfRotation_andBringItBack() throws SQLException {
+        // Given
+        AtomicReference<Duration> lag = new AtomicReference<>(Duration.ofSeconds(30));
+        ReplicaRouter router = new ReplicaRouter(primary, List.of(firstReplica), Duration.ofSeconds(10)) {
+            @Override
+            Duration measureLag(DataSource replica) {
+                return lag.get();
+            }
+        };
+        when(primary.getConnection()).thenReturn(primaryConnection);
+
+        // When
+        router.checkHealth();
+
+        // Then
+        assertThat(router.getReadOnlyConnection()).isSameAs(primaryConnection);
+        verify(firstReplica, never()).getConnection();
+
+        // When
+        lag.set(Duration.ofMillis(200));
+        when(firstReplica.getConnection()).thenReturn(firstConnection);
+        router.checkHealth();
+
+        // Then
+        assertThat(router.getReadOnlyConnection()).isSameAs(firstConnection);
+        assertThat(router.getStatus()).singleElement()
+                .satisfies(status -> assertThat(status.lag()).isEqualTo(Duration.ofMillis(200)));
+    }
+
+    @Test
+    void checkHealth_shouldTakeReplicaOutOfRotation_whenLagCannotBeMeasured() throws SQLException {
+        // Given
+        ReplicaRouter router = new ReplicaRouter(primary, List.of(firstReplica), Duration.ofSeconds(10)) {
+            @Override
+            Duration measureLag(DataSource replica) {
+                throw new IllegalStateException("Replica is down");
+            }
+        };
+        when(primary.getConnection()).thenReturn(primaryConnection);
+
+        // When
+        router.checkHealth();
+
+        // Then
+        assertThat(router.getReadOnlyConnection()).isSameAs(primaryConnection);
+        verify(firstReplica, never()).getConnection();
+    }
+}
@@ -0,0 +1,59 @@
+package com.my.blog.project.myblogonboot.myblog.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@TestPropertySource(properties = "server-timing.enabled=true")
+class ServerTimingIntegrationTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private WebApplicationContext webApplicationContext;
+
+    @Autowired
+    private ServerTimingFilter serverTimingFilter;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext)
+                .addFilters(serverTimingFilter)
+                .build();
+    }
+
+    @Test
+    void getPosts_shouldReportPhases() throws Exception {
+        // When & Then
+        mockMvc.perform(get("/api/posts"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("\"posts\"")))
+                .andExpect(header().string(ServerTimingFilter.SERVER_TIMING_HEADER, allOf(
+                        containsString("search;dur="),
+                        containsString("count;dur="),
+                        containsString("page;dur="),
+                        containsString("map;dur="),
+                        containsString("db;dur="),
+                        containsString("serialize;dur="),
+                        containsString("total;dur="))));
+    }
+
+    @Test
+    void imageDownloads_shouldNotBeTimed() throws Exception {
+        // When & Then
+        mockMvc.perform(get("/api/posts/999/image"))
+                .andExpect(status().isNotFound())
+                .andExpect(header().doesNotExist(ServerTimingFilter.SERVER_TIMING_HEADER));
+    }
+}
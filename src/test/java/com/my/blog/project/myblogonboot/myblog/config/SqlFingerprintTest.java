@@ -0,0 +1,34 @@
+package com.my.blog.project.myblogonboot.myblog.config;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SqlFingerprintTest {
+
+    @Test
+    void of_shouldReplaceLiteralsAndCollapseWhitespace() {
+        // When
+        String fingerprint = SqlFingerprint.of("""
+            SELECT id FROM posts
+            WHERE title = 'it''s' AND likes_count > 10
+            """);
+
+        // Then
+        assertThat(fingerprint).isEqualTo("SELECT id FROM posts WHERE title = ? AND likes_count > ?");
+    }
+
+    @Test
+    void of_shouldCollapseInListsOfAnyLength() {
+        // When & Then
+        assertThat(SqlFingerprint.of("SELECT * FROM tags WHERE id IN (?, ?, ?)"))
+                .isEqualTo(SqlFingerprint.of("SELECT * FROM tags WHERE id in (?)"));
+    }
+
+    @Test
+    void of_shouldKeepDigitsInsideIdentifiers() {
+        // When & Then
+        assertThat(SqlFingerprint.of("SELECT t1.id FROM posts t1 WHERE t1.id = $1"))
+                .isEqualTo("SELECT t1.id FROM posts t1 WHERE t1.id = $1");
+    }
+}
@@ -0,0 +1,48 @@
+package com.my.blog.project.myblogonboot.myblog.config;
+
+import com.my.blog.project.myblogonboot.myblog.dto.post.PostRequest;
+import com.my.blog.project.myblogonboot.myblog.dto.post.PostResponse;
+import com.my.blog.project.myblogonboot.myblog.service.PostService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StatementTimingIntegrationTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private QueryStats queryStats;
+
+    @Autowired
+    private PostService postService;
+
+    @BeforeEach
+    void setUp() {
+        queryStats.reset();
+    }
+
+    @Test
+    void statements_shouldBeRecordedWithCallerAndRowCount() {
+        // Given
+        PostResponse post = postService.savePost(new PostRequest("Timed", "Text", List.of()));
+
+        // When
+        postService.getPostById(post.id());
+
+        // Then
+        assertThat(queryStats.top(100, QueryStats.Order.CALLS))
+                .filteredOn(stat -> "PostRepository.findPostById".equals(stat.caller()))
+                .filteredOn(stat -> stat.fingerprint().contains("FROM posts p"))
+                .singleElement()
+                .satisfies(stat -> {
+                    assertThat(stat.calls()).isEqualTo(1);
+                    assertThat(stat.rows()).isEqualTo(1);
+                    assertThat(stat.totalMillis()).isPositive();
+                });
+        assertThat(queryStats.top(100, QueryStats.Order.CALLS))
+                .anySatisfy(stat -> assertThat(stat.caller()).isEqualTo("PostRepository.save"));
+    }
+}
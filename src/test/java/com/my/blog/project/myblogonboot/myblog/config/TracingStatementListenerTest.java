@@ -0,0 +1,86 @@
+package com.my.blog.project.myblogonboot.myblog.config;
+
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import io.micrometer.tracing.test.simple.SimpleSpan;
+import io.micrometer.tracing.test.simple.SimpleTraceContext;
+import io.micrometer.tracing.test.simple.SimpleTracer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TracingStatementListenerTest {
+
+    private final SimpleTracer tracer = new SimpleTracer();
+    private final TracingStatementListener listener = new TracingStatementListener(
+            new StaticListableBeanFactory(Map.of("tracer", tracer)).getBeanProvider(Tracer.class));
+
+    @Test
+    void onStatement_shouldRecordChildSpanOfSampledRequest() {
+        // Given
+        Span request = tracer.nextSpan().name("http get /api/posts").start();
+        ((SimpleTraceContext) request.context()).setSampled(true);
+        Instant startedAt = Instant.now().minusMillis(5);
+
+        // When
+        try (Tracer.SpanInScope scope = tracer.withSpan(request)) {
+            listener.onStatement(new ExecutedStatement("UPDATE post_images SET data = ? WHERE post_id = 42", 3_000_000,
+                    1, "PostImageRepository.save", List.of("bytes[2048]", "Long"), startedAt));
+        }
+        request.end();
+
+        // Then
+        SimpleSpan statement = tracer.getSpans().stream()
+                .filter(span -> span.getName().equals("jdbc update"))
+                .findFirst()
+                .orElseThrow();
+        assertThat(statement.getParentId()).isEqualTo(request.context().spanId());
+        assertThat(statement.getTags())
+                .containsEntry("db.query.text", "UPDATE post_images SET data = ? WHERE post_id = ?")
+                .containsEntry("db.rows", "1")
+                .containsEntry("db.bind.bytes", "2048")
+                .containsEntry("code.function", "PostImageRepository.save");
+    }
+
+    @Test
+    void onStatement_shouldRecordArrayBinds_withoutCountingThemAsBytes() {
+        // Given
+        Span request = tracer.nextSpan().name("http get /api/posts").start();
+        ((SimpleTraceContext) request.context()).setSampled(true);
+
+        // When
+        try (Tracer.SpanInScope scope = tracer.withSpan(request)) {
+            listener.onStatement(new ExecutedStatement(
+                    "SELECT pt.post_id, t.id, t.name FROM tags t INNER JOIN posts_tags pt ON t.id = pt.tag_id "
+                            + "WHERE pt.post_id = ANY(?)", 1_000_000, 12, "PostRepository.loadTagsForPosts",
+                    List.of("long[10]"), Instant.now()));
+            listener.onStatement(new ExecutedStatement("SELECT id FROM tags WHERE LOWER(name) = ANY(?)", 1_000_000, 2,
+                    "TagRepository.findByNamesIgnoreCase", List.of("String[]"), Instant.now()));
+        }
+        request.end();
+
+        // Then
+        assertThat(tracer.getSpans())
+                .filteredOn(span -> span.getName().equals("jdbc select"))
+                .hasSize(2)
+                .allSatisfy(span -> assertThat(span.getTags()).containsEntry("db.bind.bytes", "0"));
+    }
+
+    @Test
+    void onStatement_shouldSkipStatementsOutsideSampledSpan() {
+        // Given
+        ExecutedStatement statement = new ExecutedStatement("SELECT 1", 1_000, 1, "PostRepository.count", List.of(),
+                Instant.now());
+
+        // When
+        listener.onStatement(statement);
+
+        // Then
+        assertThat(tracer.getSpans()).isEmpty();
+    }
+}
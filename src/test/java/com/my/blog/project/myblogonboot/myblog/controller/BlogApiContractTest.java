@@ -0,0 +1,570 @@
+package com.my.blog.project.myblogonboot.myblog.controller;
+
+import com.my.blog.project.myblogonboot.myblog.config.AbstractIntegrationTest;
+import com.my.blog.project.myblogonboot.myblog.dto.comment.CommentRequest;
+import com.my.blog.project.myblogonboot.myblog.dto.comment.CommentResponse;
+import com.my.blog.project.myblogonboot.myblog.dto.post.PostLookupRequest;
+import com.my.blog.project.myblogonboot.myblog.dto.post.PostRequest;
+import com.my.blog.project.myblogonboot.myblog.dto.post.PostResponse;
+import com.my.blog.project.myblogonboot.myblog.repository.ContentHash;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.MultipartBodyBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.reactive.function.BodyInserters;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.dataformat.cbor.CBORMapper;
+import tools.jackson.dataformat.smile.SmileMapper;
+
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// The REST contract both stacks have to honour, each subclass binds the client to its own application context
+public abstract class BlogApiContractTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private static final MediaType SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+
+    private WebTestClient client;
+
+    protected abstract WebTestClient createClient(ApplicationContext applicationContext);
+
+    @BeforeEach
+    void setUp() {
+        client = createClient(applicationContext);
+
+        // Requests commit on their own, nothing here runs in a rolled back test transaction
+        jdbcTemplate.execute("DELETE FROM comments");
+        jdbcTemplate.execute("DELETE FROM post_image_variants");
+        jdbcTemplate.execute("DELETE FROM post_images");
+        jdbcTemplate.execute("DELETE FROM image_blobs");
+        jdbcTemplate.execute("DELETE FROM posts_tags");
+        jdbcTemplate.execute("DELETE FROM posts");
+        jdbcTemplate.execute("DELETE FROM tags");
+    }
+
+    @Test
+    void createPost_shouldReturnCreatedPost() {
+        // When & Then
+        client.post().uri("/api/posts")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new PostRequest("New Post", "Post content", List.of("Java", "Spring")))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.id").isNumber()
+                .jsonPath("$.title").isEqualTo("New Post")
+                .jsonPath("$.text").isEqualTo("Post content")
+                .jsonPath("$.tags.length()").isEqualTo(2)
+                .jsonPath("$.likesCount").isEqualTo(0)
+                .jsonPath("$.commentsCount").isEqualTo(0)
+                .jsonPath("$.hasImage").isEqualTo(false);
+    }
+
+    @Test
+    void getPost_shouldReturnPost_whenPostExists() {
+        // Given
+        PostResponse created = createPost("Test Post", List.of("Java"));
+
+        // When & Then
+        client.get().uri("/api/posts/{id}", created.id())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.id").isEqualTo(created.id())
+                .jsonPath("$.title").isEqualTo("Test Post")
+                .jsonPath("$.tags[0]").isEqualTo("Java");
+    }
+
+    @Test
+    void getPost_shouldReturnEmptyBody_whenPostDoesNotExist() {
+        // When & Then
+        client.get().uri("/api/posts/999")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().isEmpty();
+    }
+
+    @Test
+    void lookupPosts_shouldReturnPostsInRequestOrderAndReportMissingIds() {
+        // Given
+        PostResponse first = createPost("First", List.of("Java"));
+        PostResponse second = createPost("Second", List.of());
+
+        // When & Then
+        client.post().uri("/api/posts/lookup")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new PostLookupRequest(List.of(second.id(), 999L, first.id(), second.id())))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.posts.length()").isEqualTo(2)
+                .jsonPath("$.posts[0].title").isEqualTo("Second")
+                .jsonPath("$.posts[1].title").isEqualTo("First")
+                .jsonPath("$.posts[1].tags[0]").isEqualTo("Java")
+                .jsonPath("$.missing.length()").isEqualTo(1)
+                .jsonPath("$.missing[0]").isEqualTo(999);
+
+        client.get().uri("/api/posts?ids={ids}", first.id() + "," + second.id())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.posts[0].id").isEqualTo(first.id())
+                .jsonPath("$.posts[1].id").isEqualTo(second.id())
+                .jsonPath("$.missing.length()").isEqualTo(0);
+    }
+
+    @Test
+    void lookupPosts_shouldRejectEmptyOrOversizedRequests() {
+        // Given
+        List<Long> tooMany = LongStream.rangeClosed(1, PostLookupRequest.MAX_IDS + 1).boxed().toList();
+
+        // When & Then
+        client.post().uri("/api/posts/lookup")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new PostLookupRequest(List.of()))
+                .exchange()
+                .expectStatus().isBadRequest();
+        client.post().uri("/api/posts/lookup")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new PostLookupRequest(tooMany))
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void getAllPosts_shouldPageAndFilterBySearch() {
+        // Given
+        createPost("Java Tutorial", List.of("Java"));
+        createPost("Spring Guide", List.of("Spring"));
+        createPost("Java Streams", List.of("Java", "Streams"));
+
+        // When & Then
+        client.get().uri("/api/posts?pageNumber=1&pageSize=2")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.posts.length()").isEqualTo(2)
+                .jsonPath("$.posts[0].title").isEqualTo("Java Streams")
+                .jsonPath("$.hasPrev").isEqualTo(false)
+                .jsonPath("$.hasNext").isEqualTo(true)
+                .jsonPath("$.lastPage").isEqualTo(2);
+
+        client.get().uri("/api/posts?search={search}&pageNumber=1&pageSize=10", "java")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.posts.length()").isEqualTo(2);
+
+        client.get().uri("/api/posts?search={search}&pageNumber=1&pageSize=10", "#Java #Streams")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.posts.length()").isEqualTo(1)
+                .jsonPath("$.posts[0].title").isEqualTo("Java Streams");
+    }
+
+    @Test
+    void sparseFields_shouldReturnOnlyRequestedProperties() {
+        // Given
+        PostResponse created = createPost("Sparse", List.of("Java"));
+
+        // When & Then
+        client.get().uri("/api/posts/{id}?fields={fields}", created.id(), "title,likesCount")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.id").isEqualTo(created.id())
+                .jsonPath("$.title").isEqualTo("Sparse")
+                .jsonPath("$.likesCount").isEqualTo(0)
+                .jsonPath("$.text").doesNotExist()
+                .jsonPath("$.tags").doesNotExist()
+                .jsonPath("$.hasImage").doesNotExist();
+
+        client.get().uri("/api/posts?pageNumber=1&pageSize=10&fields={fields}", "id,tags")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.posts[0].id").isEqualTo(created.id())
+                .jsonPath("$.posts[0].tags[0]").isEqualTo("Java")
+                .jsonPath("$.posts[0].title").doesNotExist()
+                .jsonPath("$.lastPage").isEqualTo(1);
+    }
+
+    @Test
+    void fullResponse_shouldKeepNullImageProperties() {
+        // Given
+        PostResponse created = createPost("Without image", List.of("Java"));
+
+        // When
+        byte[] post = client.get().uri("/api/posts/{id}", created.id())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(byte[].class)
+                .returnResult()
+                .getResponseBody();
+        byte[] page = client.get().uri("/api/posts?pageNumber=1&pageSize=10")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(byte[].class)
+                .returnResult()
+                .getResponseBody();
+
+        // Then
+        JsonNode postNode = new JsonMapper().readTree(post);
+        JsonNode pageNode = new JsonMapper().readTree(page).get("posts").get(0);
+        for (JsonNode node : List.of(postNode, pageNode)) {
+            assertThat(node.get("hasImage").asBoolean()).isFalse();
+            assertThat(node.has("imageContentType")).isTrue();
+            assertThat(node.get("imageContentType").isNull()).isTrue();
+            assertThat(node.has("imageSizeBytes")).isTrue();
+            assertThat(node.get("imageSizeBytes").isNull()).isTrue();
+        }
+    }
+
+    @Test
+    void sparseFields_shouldRejectUnknownProperty() {
+        // When & Then
+        client.get().uri("/api/posts?fields={fields}", "title,password")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void binaryEncodings_shouldBeNegotiatedThroughAccept() {
+        // Given
+        PostResponse created = createPost("Binary", List.of("Java"));
+        addComment(created.id(), "Compact");
+
+        // When
+        byte[] post = client.get().uri("/api/posts/{id}", created.id())
+                .accept(MediaType.APPLICATION_CBOR)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_CBOR)
+                .expectBody(byte[].class)
+                .returnResult()
+                .getResponseBody();
+        byte[] page = client.get().uri("/api/posts?pageNumber=1&pageSize=10")
+                .accept(SMILE)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(SMILE)
+                .expectBody(byte[].class)
+                .returnResult()
+                .getResponseBody();
+        byte[] comments = client.get().uri("/api/posts/{id}/comments", created.id())
+                .accept(MediaType.APPLICATION_CBOR)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(byte[].class)
+                .returnResult()
+                .getResponseBody();
+
+        // Then
+        assertThat(new CBORMapper().readTree(post).get("title").asString()).isEqualTo("Binary");
+        assertThat(new SmileMapper().readTree(page).get("posts").get(0).get("tags").get(0).asString())
+                .isEqualTo("Java");
+        assertThat(new CBORMapper().readTree(comments).get(0).get("text").asString()).isEqualTo("Compact");
+        client.get().uri("/api/posts/{id}", created.id())
+                .exchange()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_JSON);
+    }
+
+    @Test
+    void binaryEncodings_shouldBeAcceptedAsRequestBody() {
+        // Given
+        byte[] body = new CBORMapper().writeValueAsBytes(new PostRequest("Sent as CBOR", "Body", List.of("Java")));
+
+        // When
+        PostResponse created = client.post().uri("/api/posts")
+                .contentType(MediaType.APPLICATION_CBOR)
+                .bodyValue(body)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_JSON)
+                .expectBody(PostResponse.class)
+                .returnResult()
+                .getResponseBody();
+
+        // Then
+        assertThat(created).isNotNull();
+        assertThat(created.title()).isEqualTo("Sent as CBOR");
+        assertThat(created.tags()).containsExactly("Java");
+    }
+
+    @Test
+    void updatePost_shouldReplaceFieldsAndTags() {
+        // Given
+        PostResponse created = createPost("Original", List.of("Java"));
+
+        // When & Then
+        client.put().uri("/api/posts/{id}", created.id())
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new PostRequest("Updated Title", "Updated Content", List.of("Spring", "Testing")))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.id").isEqualTo(created.id())
+                .jsonPath("$.title").isEqualTo("Updated Title")
+                .jsonPath("$.text").isEqualTo("Updated Content")
+                .jsonPath("$.tags.length()").isEqualTo(2);
+    }
+
+    @Test
+    void deletePost_shouldRemovePost() {
+        // Given
+        PostResponse created = createPost("Post to Delete", List.of("Java"));
+        addComment(created.id(), "Comment");
+        uploadImage(created.id(), "fake image content".getBytes());
+
+        // When & Then
+        client.delete().uri("/api/posts/{id}", created.id())
+                .exchange()
+                .expectStatus().isNoContent();
+
+        client.get().uri("/api/posts/{id}", created.id())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().isEmpty();
+        client.get().uri("/api/posts/{id}/image", created.id())
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    void deletePost_shouldReturn404_whenPostDoesNotExist() {
+        // When & Then
+        client.delete().uri("/api/posts/999")
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    void addLike_shouldReturnIncrementedCount() {
+        // Given
+        PostResponse created = createPost("Post", List.of("Java"));
+
+        // When & Then
+        client.post().uri("/api/posts/{id}/likes", created.id())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(Long.class).isEqualTo(1L);
+        client.post().uri("/api/posts/{id}/likes", created.id())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(Long.class).isEqualTo(2L);
+    }
+
+    @Test
+    void getPost_shouldReflectLikesAndComments_afterItWasRead() {
+        // Given
+        PostResponse created = createPost("Post", List.of("Java"));
+        client.get().uri("/api/posts/{id}", created.id())
+                .exchange()
+                .expectBody()
+                .jsonPath("$.likesCount").isEqualTo(0);
+
+        // When
+        client.post().uri("/api/posts/{id}/likes", created.id())
+                .exchange()
+                .expectStatus().isOk();
+        addComment(created.id(), "First");
+
+        // Then
+        client.get().uri("/api/posts/{id}", created.id())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.likesCount").isEqualTo(1)
+                .jsonPath("$.commentsCount").isEqualTo(1);
+    }
+
+    @Test
+    void comments_shouldBeAddedListedAndUpdated() {
+        // Given
+        PostResponse created = createPost("Post", List.of("Java"));
+        CommentResponse first = addComment(created.id(), "Comment 1");
+        addComment(created.id(), "Comment 2");
+
+        // When & Then
+        assertThat(first.postId()).isEqualTo(created.id());
+        client.get().uri("/api/posts/{id}/comments", created.id())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(2)
+                .jsonPath("$[0].text").isEqualTo("Comment 1")
+                .jsonPath("$[1].text").isEqualTo("Comment 2");
+
+        client.put().uri("/api/posts/{postId}/comments/{commentId}", created.id(), first.id())
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new CommentRequest("  Edited  "))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.text").isEqualTo("Edited");
+
+        client.get().uri("/api/posts/{postId}/comments/{commentId}", created.id(), first.id())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.text").isEqualTo("Edited");
+
+        client.get().uri("/api/posts/{id}", created.id())
+                .exchange()
+                .expectBody()
+                .jsonPath("$.commentsCount").isEqualTo(2);
+    }
+
+    @Test
+    void comments_shouldBeRejected_whenPostDoesNotExist() {
+        // When & Then
+        client.get().uri("/api/posts/999/comments")
+                .exchange()
+                .expectStatus().isBadRequest();
+        client.get().uri("/api/posts/999/comments/1")
+                .exchange()
+                .expectStatus().isBadRequest();
+        client.post().uri("/api/posts/999/comments")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new CommentRequest("Comment"))
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    void image_shouldBeUploadedDescribedAndDownloaded() {
+        // Given
+        PostResponse created = createPost("Post", List.of("Java"));
+        byte[] data = "fake image content".getBytes();
+        String hash = ContentHash.sha256Hex(data);
+
+        // When
+        uploadImage(created.id(), data);
+
+        // Then
+        client.get().uri("/api/posts/{id}/image/meta", created.id())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.postId").isEqualTo(created.id())
+                .jsonPath("$.filename").isEqualTo("test.jpg")
+                .jsonPath("$.contentType").isEqualTo("image/jpeg")
+                .jsonPath("$.sizeBytes").isEqualTo(data.length)
+                .jsonPath("$.hash").isEqualTo(hash);
+
+        client.get().uri("/api/posts/{id}", created.id())
+                .exchange()
+                .expectBody()
+                .jsonPath("$.hasImage").isEqualTo(true)
+                .jsonPath("$.imageSizeBytes").isEqualTo(data.length);
+
+        client.get().uri("/api/posts/{id}/image", created.id())
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType("image/jpeg")
+                .expectHeader().contentLength(data.length)
+                .expectHeader().valueEquals("Content-Location", "/api/images/" + hash)
+                .expectBody(byte[].class).isEqualTo(data);
+
+        // Not decodable, so the variant request falls back to the original bytes
+        client.get().uri("/api/posts/{id}/image?w=200", created.id())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(byte[].class).isEqualTo(data);
+    }
+
+    @Test
+    void image_shouldBeServedByHashAsImmutableContent() {
+        // Given
+        PostResponse created = createPost("Post", List.of("Java"));
+        byte[] data = "fake image content".getBytes();
+        String hash = ContentHash.sha256Hex(data);
+        uploadImage(created.id(), data);
+
+        // When & Then
+        client.get().uri("/api/images/{hash}", hash)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().value("Cache-Control", value -> assertThat(value).contains("immutable"))
+                .expectHeader().valueEquals("ETag", "\"" + hash + "\"")
+                .expectBody(byte[].class).isEqualTo(data);
+
+        client.get().uri("/api/images/{hash}", hash)
+                .header("If-None-Match", "\"" + hash + "\"")
+                .exchange()
+                .expectStatus().isNotModified();
+
+        client.get().uri("/api/images/not-a-hash")
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    void image_shouldReturnErrors_forMissingImagesAndBadWidths() {
+        // Given
+        PostResponse created = createPost("Post without Image", List.of("Java"));
+
+        // When & Then
+        client.get().uri("/api/posts/{id}/image", created.id())
+                .exchange()
+                .expectStatus().isNotFound();
+        client.get().uri("/api/posts/{id}/image/meta", created.id())
+                .exchange()
+                .expectStatus().isNotFound();
+        client.get().uri("/api/posts/{id}/image?w=0", created.id())
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    private PostResponse createPost(String title, List<String> tags) {
+        return client.post().uri("/api/posts")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new PostRequest(title, "Content", tags))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(PostResponse.class)
+                .returnResult()
+                .getResponseBody();
+    }
+
+    private CommentResponse addComment(Long postId, String text) {
+        return client.post().uri("/api/posts/{id}/comments", postId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new CommentRequest(text))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(CommentResponse.class)
+                .returnResult()
+                .getResponseBody();
+    }
+
+    private void uploadImage(Long postId, byte[] data) {
+        MultipartBodyBuilder multipart = new MultipartBodyBuilder();
+        multipart.part("image", new ByteArrayResource(data) {
+            @Override
+            public String getFilename() {
+                return "test.jpg";
+            }
+        }).contentType(MediaType.IMAGE_JPEG);
+
+        client.put().uri("/api/posts/{id}/image", postId)
+                .body(BodyInserters.fromMultipartData(multipart.build()))
+                .exchange()
+                .expectStatus().isNoContent();
+    }
+}
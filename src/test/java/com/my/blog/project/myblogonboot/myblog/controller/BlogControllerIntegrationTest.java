@@ -2,9 +2,12 @@ package com.my.blog.project.myblogonboot.myblog.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.my.blog.project.myblogonboot.myblog.config.AbstractIntegrationTest;
+import com.my.blog.project.myblogonboot.myblog.config.QueryCountFilter;
+import com.my.blog.project.myblogonboot.myblog.config.RequestQueryCounter;
 import com.my.blog.project.myblogonboot.myblog.dto.comment.CommentRequest;
 import com.my.blog.project.myblogonboot.myblog.dto.post.PostRequest;
 import com.my.blog.project.myblogonboot.myblog.dto.post.PostResponse;
+import com.my.blog.project.myblogonboot.myblog.repository.ContentHash;
 import com.my.blog.project.myblogonboot.myblog.service.PostService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -19,6 +22,7 @@ import org.springframework.web.context.WebApplicationContext;
 
 import java.util.Arrays;
 
+import static com.my.blog.project.myblogonboot.myblog.config.QueryBudget.assertWithinBudget;
 import static org.hamcrest.Matchers.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -38,6 +42,12 @@ class BlogControllerIntegrationTest extends AbstractIntegrationTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private RequestQueryCounter queryCounter;
+
+    @Autowired
+    private QueryCountFilter queryCountFilter;
+
     private MockMvc mockMvc;
 
     @BeforeEach
@@ -46,6 +56,7 @@ class BlogControllerIntegrationTest extends AbstractIntegrationTest {
 
         jdbcTemplate.execute("DELETE FROM comments");
         jdbcTemplate.execute("DELETE FROM post_images");
+        jdbcTemplate.execute("DELETE FROM image_blobs");
         jdbcTemplate.execute("DELETE FROM posts_tags");
         jdbcTemplate.execute("DELETE FROM posts");
         jdbcTemplate.execute("DELETE FROM tags");
@@ -71,6 +82,24 @@ class BlogControllerIntegrationTest extends AbstractIntegrationTest {
                 .andExpect(jsonPath("$.commentsCount").value(0));
     }
 
+    @Test
+    void createPost_shouldResolveTags_inConstantNumberOfQueries() throws Exception {
+        // Given
+        postService.savePost(new PostRequest("Existing", "Content", Arrays.asList("Java", "Spring")));
+        PostRequest request = new PostRequest("New Post", "Post content",
+                Arrays.asList("java", "SPRING", "Docker", "Kotlin", "Testing", "docker"));
+        String requestJson = objectMapper.writeValueAsString(request);
+
+        // When & Then
+        // Tag lookup, insert of the missing tags, the post and its tag links, whatever the number of tags
+        assertWithinBudget(queryCounter, 4, () -> mockMvc.perform(post("/api/posts")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(requestJson))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.tags", hasSize(5)))
+                .andExpect(jsonPath("$.tags", containsInAnyOrder("Java", "Spring", "Docker", "Kotlin", "Testing"))));
+    }
+
     @Test
     void getPost_shouldReturn200_whenPostExists() throws Exception {
         // Given
@@ -78,12 +107,28 @@ class BlogControllerIntegrationTest extends AbstractIntegrationTest {
                 new PostRequest("Test Post", "Content", Arrays.asList("Java")));
 
         // When & Then
-        mockMvc.perform(get("/api/posts/" + created.id()))
+        assertWithinBudget(queryCounter, 2, () -> mockMvc.perform(get("/api/posts/" + created.id()))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.id").value(created.id()))
                 .andExpect(jsonPath("$.title").value("Test Post"))
                 .andExpect(jsonPath("$.text").value("Content"))
-                .andExpect(jsonPath("$.tags[0]").value("Java"));
+                .andExpect(jsonPath("$.tags[0]").value("Java")));
+    }
+
+    @Test
+    void getPost_shouldReportQueryCount_whenHeaderIsEnabled() throws Exception {
+        // Given
+        MockMvc filteredMockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext)
+                .addFilters(queryCountFilter)
+                .build();
+        PostResponse created = postService.savePost(
+                new PostRequest("Test Post", "Content", Arrays.asList("Java")));
+
+        // When & Then
+        filteredMockMvc.perform(get("/api/posts/" + created.id()))
+                .andExpect(status().isOk())
+                .andExpect(header().string(QueryCountFilter.QUERY_COUNT_HEADER, "2"))
+                .andExpect(header().exists(QueryCountFilter.QUERY_TIME_HEADER));
     }
 
     @Test
@@ -94,14 +139,15 @@ class BlogControllerIntegrationTest extends AbstractIntegrationTest {
         postService.savePost(new PostRequest("Post 3", "Content 3", Arrays.asList("Testing")));
 
         // When & Then
-        mockMvc.perform(get("/api/posts")
+        // Count, page and one query for the tags of the whole page, however many posts it has
+        assertWithinBudget(queryCounter, 3, () -> mockMvc.perform(get("/api/posts")
                         .param("pageNumber", "1")
                         .param("pageSize", "2"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.posts").isArray())
                 .andExpect(jsonPath("$.lastPage").isNumber())
                 .andExpect(jsonPath("$.hasPrev").isBoolean())
-                .andExpect(jsonPath("$.hasNext").isBoolean());
+                .andExpect(jsonPath("$.hasNext").isBoolean()));
     }
 
     @Test
@@ -141,6 +187,25 @@ class BlogControllerIntegrationTest extends AbstractIntegrationTest {
                 .andExpect(jsonPath("$.tags", containsInAnyOrder("Spring", "Testing")));
     }
 
+    @Test
+    void updatePost_shouldResolveTags_inConstantNumberOfQueries() throws Exception {
+        // Given
+        PostResponse created = postService.savePost(
+                new PostRequest("Original", "Content", Arrays.asList("Java", "Spring")));
+        PostRequest updateRequest = new PostRequest("Updated Title", "Updated Content",
+                Arrays.asList("JAVA", "Docker", "Kotlin", "Testing"));
+        String requestJson = objectMapper.writeValueAsString(updateRequest);
+
+        // When & Then
+        // Post and its tags, tag lookup, insert of the missing tags, the post update and relinking its tags
+        assertWithinBudget(queryCounter, 7, () -> mockMvc.perform(put("/api/posts/" + created.id())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(requestJson))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.tags", hasSize(4)))
+                .andExpect(jsonPath("$.tags", containsInAnyOrder("Java", "Docker", "Kotlin", "Testing"))));
+    }
+
     @Test
     void deletePost_shouldReturn204_whenPostExists() throws Exception {
         // Given
@@ -171,10 +236,10 @@ class BlogControllerIntegrationTest extends AbstractIntegrationTest {
                 new PostRequest("Post", "Content", Arrays.asList("Java")));
 
         // When & Then
-        mockMvc.perform(post("/api/posts/" + created.id() + "/likes"))
+        assertWithinBudget(queryCounter, 2, () -> mockMvc.perform(post("/api/posts/" + created.id() + "/likes"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$").isNumber())
-                .andExpect(jsonPath("$").value(greaterThanOrEqualTo(1)));
+                .andExpect(jsonPath("$").value(greaterThanOrEqualTo(1))));
 
         // Verify likes count increased
         mockMvc.perform(post("/api/posts/" + created.id() + "/likes"))
@@ -232,6 +297,130 @@ class BlogControllerIntegrationTest extends AbstractIntegrationTest {
                 .andExpect(content().bytes("fake image content".getBytes()));
     }
 
+    @Test
+    void getImageMeta_shouldDescribeImage_andPostShouldReportIt() throws Exception {
+        // Given
+        PostResponse created = postService.savePost(
+                new PostRequest("Post", "Content", Arrays.asList("Java")));
+
+        byte[] data = "fake image content".getBytes();
+        MockMultipartFile image = new MockMultipartFile("image", "test.jpg", "image/jpeg", data);
+
+        mockMvc.perform(multipart("/api/posts/" + created.id() + "/image")
+                .file(image)
+                .with(request -> {
+                    request.setMethod("PUT");
+                    return request;
+                }));
+
+        // When & Then
+        mockMvc.perform(get("/api/posts/" + created.id() + "/image/meta"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.postId").value(created.id()))
+                .andExpect(jsonPath("$.filename").value("test.jpg"))
+                .andExpect(jsonPath("$.contentType").value("image/jpeg"))
+                .andExpect(jsonPath("$.sizeBytes").value(data.length))
+                .andExpect(jsonPath("$.hash").value(ContentHash.sha256Hex(data)));
+
+        mockMvc.perform(get("/api/posts/" + created.id()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.hasImage").value(true))
+                .andExpect(jsonPath("$.imageContentType").value("image/jpeg"))
+                .andExpect(jsonPath("$.imageSizeBytes").value(data.length));
+    }
+
+    @Test
+    void getImageMeta_shouldReturn404_andPostShouldReportNoImage_whenImageDoesNotExist() throws Exception {
+        // Given
+        PostResponse created = postService.savePost(
+                new PostRequest("Post", "Content", Arrays.asList("Java")));
+
+        // When & Then
+        mockMvc.perform(get("/api/posts/" + created.id() + "/image/meta"))
+                .andExpect(status().isNotFound());
+
+        mockMvc.perform(get("/api/posts/" + created.id()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.hasImage").value(false));
+    }
+
+    @Test
+    void downloadImage_shouldServeOriginal_whenVariantCannotBeGenerated() throws Exception {
+        // Given
+        PostResponse created = postService.savePost(
+                new PostRequest("Post", "Content", Arrays.asList("Java")));
+
+        MockMultipartFile image = new MockMultipartFile(
+                "image",
+                "test.jpg",
+                "image/jpeg",
+                "fake image content".getBytes()
+        );
+
+        mockMvc.perform(multipart("/api/posts/" + created.id() + "/image")
+                .file(image)
+                .with(request -> {
+                    request.setMethod("PUT");
+                    return request;
+                }));
+
+        // When & Then
+        mockMvc.perform(get("/api/posts/" + created.id() + "/image").param("w", "200"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("image/jpeg"))
+                .andExpect(content().bytes("fake image content".getBytes()));
+    }
+
+    @Test
+    void downloadImage_shouldReturn400_whenWidthIsNotPositive() throws Exception {
+        // When & Then
+        mockMvc.perform(get("/api/posts/1/image").param("w", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getImageByHash_shouldServeImmutableContent() throws Exception {
+        // Given
+        PostResponse created = postService.savePost(
+                new PostRequest("Post", "Content", Arrays.asList("Java")));
+
+        byte[] data = "fake image content".getBytes();
+        MockMultipartFile image = new MockMultipartFile("image", "test.jpg", "image/jpeg", data);
+
+        mockMvc.perform(multipart("/api/posts/" + created.id() + "/image")
+                .file(image)
+                .with(request -> {
+                    request.setMethod("PUT");
+                    return request;
+                }));
+
+        String hash = ContentHash.sha256Hex(data);
+
+        // When & Then
+        mockMvc.perform(get("/api/posts/" + created.id() + "/image"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Location", "/api/images/" + hash));
+
+        mockMvc.perform(get("/api/images/" + hash))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", containsString("immutable")))
+                .andExpect(header().string("ETag", "\"" + hash + "\""))
+                .andExpect(content().contentType("image/jpeg"))
+                .andExpect(content().bytes(data));
+
+        mockMvc.perform(get("/api/images/" + hash).header("If-None-Match", "\"" + hash + "\""))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void getImageByHash_shouldReturn404_whenHashIsUnknown() throws Exception {
+        // When & Then
+        mockMvc.perform(get("/api/images/" + ContentHash.sha256Hex("missing".getBytes())))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/images/not-a-hash"))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     void downloadImage_shouldReturn404_whenImageDoesNotExist() throws Exception {
         // Given
@@ -281,11 +470,12 @@ class BlogControllerIntegrationTest extends AbstractIntegrationTest {
                 .content(comment2));
 
         // When & Then
-        mockMvc.perform(get("/api/posts/" + created.id() + "/comments"))
+        // An existence check and the comments, the post itself is not loaded
+        assertWithinBudget(queryCounter, 2, () -> mockMvc.perform(get("/api/posts/" + created.id() + "/comments"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$", hasSize(2)))
                 .andExpect(jsonPath("$[0].text").value("Comment 1"))
-                .andExpect(jsonPath("$[1].text").value("Comment 2"));
+                .andExpect(jsonPath("$[1].text").value("Comment 2")));
     }
 }
 
@@ -0,0 +1,95 @@
+package com.my.blog.project.myblogonboot.myblog.controller;
+
+import com.my.blog.project.myblogonboot.myblog.dto.post.PostRequest;
+import com.my.blog.project.myblogonboot.myblog.dto.post.PostResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.test.web.servlet.client.MockMvcWebTestClient;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ServletBlogApiContractTest extends BlogApiContractTest {
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Override
+    protected WebTestClient createClient(ApplicationContext applicationContext) {
+        return MockMvcWebTestClient.bindToApplicationContext((WebApplicationContext) applicationContext).build();
+    }
+
+    // Only the servlet stack keeps pre-gzipped post responses
+    @Test
+    void getPost_shouldServePreGzippedJson_whenClientAcceptsGzip() throws IOException {
+        // Given
+        WebTestClient client = createClient(applicationContext);
+        PostResponse created = client.post().uri("/api/posts")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new PostRequest("Long post", "Text ".repeat(500), List.of("Java")))
+                .exchange()
+                .expectBody(PostResponse.class)
+                .returnResult()
+                .getResponseBody();
+
+        // When
+        byte[] body = client.get().uri("/api/posts/{id}", created.id())
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.CONTENT_ENCODING, "gzip")
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_JSON)
+                .expectBody(byte[].class)
+                .returnResult()
+                .getResponseBody();
+
+        // Then
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            assertThat(new String(gzip.readAllBytes())).contains("\"title\":\"Long post\"");
+        }
+        client.get().uri("/api/posts/{id}", created.id())
+                .exchange()
+                .expectHeader().doesNotExist(HttpHeaders.CONTENT_ENCODING)
+                .expectBody()
+                .jsonPath("$.title").isEqualTo("Long post");
+    }
+
+    @Test
+    void getPost_shouldVaryOnAcceptAndEncoding_forEveryRepresentation() {
+        // Given
+        WebTestClient client = createClient(applicationContext);
+        PostResponse created = client.post().uri("/api/posts")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new PostRequest("Varied", "Body", List.of("Java")))
+                .exchange()
+                .expectBody(PostResponse.class)
+                .returnResult()
+                .getResponseBody();
+
+        // When & Then
+        client.get().uri("/api/posts/{id}", created.id())
+                .exchange()
+                .expectHeader().values(HttpHeaders.VARY, ServletBlogApiContractTest::variesOnAcceptAndEncoding);
+        client.get().uri("/api/posts/{id}", created.id())
+                .accept(MediaType.APPLICATION_CBOR)
+                .exchange()
+                .expectHeader().values(HttpHeaders.VARY, ServletBlogApiContractTest::variesOnAcceptAndEncoding);
+        client.get().uri("/api/posts/{id}?fields={fields}", created.id(), "title")
+                .exchange()
+                .expectHeader().values(HttpHeaders.VARY, ServletBlogApiContractTest::variesOnAcceptAndEncoding);
+    }
+
+    // The CORS processor adds its own Vary values in front of ours
+    private static void variesOnAcceptAndEncoding(List<String> vary) {
+        assertThat(vary).contains(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING);
+    }
+}
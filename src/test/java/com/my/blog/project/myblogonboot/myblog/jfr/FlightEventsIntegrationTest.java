@@ -0,0 +1,78 @@
+package com.my.blog.project.myblogonboot.myblog.jfr;
+
+import com.my.blog.project.myblogonboot.myblog.config.AbstractIntegrationTest;
+import com.my.blog.project.myblogonboot.myblog.dto.post.PostRequest;
+import com.my.blog.project.myblogonboot.myblog.dto.post.PostResponse;
+import com.my.blog.project.myblogonboot.myblog.service.PostService;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FlightEventsIntegrationTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private PostService postService;
+
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    void hotPaths_shouldEmitBlogEvents() throws Exception {
+        // Given
+        PostResponse post = postService.savePost(new PostRequest("Flight recorder probe", "Text", List.of("jfr-probe")));
+        Path dump = tempDir.resolve("events.jfr");
+
+        // When
+        try (Recording recording = new Recording()) {
+            for (String name : List.of("myblog.SearchParse", "myblog.SearchExecute", "myblog.RepositoryCall",
+                    "myblog.Like")) {
+                recording.enable(name).withThreshold(Duration.ZERO);
+            }
+            recording.start();
+            postService.getPosts("recorder #jfr-probe", 1, 10);
+            postService.incrementLike(post.id());
+            recording.stop();
+            recording.dump(dump);
+        }
+
+        // Then
+        List<RecordedEvent> events = RecordingFile.readAllEvents(dump);
+        assertThat(events)
+                .filteredOn(event -> event.getEventType().getName().equals("myblog.SearchParse"))
+                .singleElement()
+                .satisfies(event -> {
+                    assertThat(event.getInt("tags")).isEqualTo(1);
+                    assertThat(event.getBoolean("hasQuery")).isTrue();
+                });
+        assertThat(events)
+                .filteredOn(event -> event.getEventType().getName().equals("myblog.SearchExecute"))
+                .singleElement()
+                .satisfies(event -> {
+                    assertThat(event.getInt("rows")).isEqualTo(1);
+                    assertThat(event.getLong("total")).isEqualTo(1);
+                });
+        assertThat(events)
+                .filteredOn(event -> event.getEventType().getName().equals("myblog.RepositoryCall"))
+                .anySatisfy(event -> {
+                    assertThat(event.getString("repository")).isEqualTo("PostRepository");
+                    assertThat(event.getString("method")).isEqualTo("searchByTitleAndAllTagNames");
+                    assertThat(event.getInt("rows")).isEqualTo(1);
+                });
+        assertThat(events)
+                .filteredOn(event -> event.getEventType().getName().equals("myblog.Like"))
+                .singleElement()
+                .satisfies(event -> {
+                    assertThat(event.getLong("postId")).isEqualTo(post.id());
+                    assertThat(event.getLong("likes")).isEqualTo(1);
+                });
+    }
+}
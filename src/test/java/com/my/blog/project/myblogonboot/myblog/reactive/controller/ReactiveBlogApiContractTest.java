@@ -0,0 +1,18 @@
+package com.my.blog.project.myblogonboot.myblog.reactive.controller;
+
+import com.my.blog.project.myblogonboot.myblog.controller.BlogApiContractTest;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+// The web application type has to be set here, Boot's test support does not read it from the profile yml
+@SpringBootTest(properties = "spring.main.web-application-type=reactive")
+@ActiveProfiles("reactive")
+class ReactiveBlogApiContractTest extends BlogApiContractTest {
+
+    @Override
+    protected WebTestClient createClient(ApplicationContext applicationContext) {
+        return WebTestClient.bindToApplicationContext(applicationContext).build();
+    }
+}
@@ -1,16 +1,26 @@
 package com.my.blog.project.myblogonboot.myblog.repository;
 
 import com.my.blog.project.myblogonboot.myblog.config.AbstractIntegrationTest;
+import com.my.blog.project.myblogonboot.myblog.config.DataSourceConfig;
 import com.my.blog.project.myblogonboot.myblog.entity.Post;
 import com.my.blog.project.myblogonboot.myblog.entity.PostImage;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.HashSet;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -26,11 +36,16 @@ class PostImageRepositoryIntegrationTest extends AbstractIntegrationTest {
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
+    @Autowired
+    @Qualifier(DataSourceConfig.BLOB_TRANSACTION_MANAGER)
+    private PlatformTransactionManager blobTransactionManager;
+
     @BeforeEach
     void setUp() {
         // Delete in correct order
         jdbcTemplate.execute("DELETE FROM comments");
         jdbcTemplate.execute("DELETE FROM post_images");
+        jdbcTemplate.execute("DELETE FROM image_blobs");
         jdbcTemplate.execute("DELETE FROM posts_tags");
         jdbcTemplate.execute("DELETE FROM posts");
         jdbcTemplate.execute("DELETE FROM tags");
@@ -264,6 +279,184 @@ class PostImageRepositoryIntegrationTest extends AbstractIntegrationTest {
         assertThat(foundImage1.get().getData()).isNotEqualTo(foundImage2.get().getData());
     }
 
+    @Test
+    void save_shouldStoreIdenticalContentOnce() {
+        // Given
+        Post post1 = createAndSavePost("Post 1");
+        Post post2 = createAndSavePost("Post 2");
+        byte[] data = "shared hero image".getBytes();
+
+        // When
+        PostImage saved1 = postImageRepository.save(createImage(post1.getId(), data, "hero.jpg"));
+        PostImage saved2 = postImageRepository.save(createImage(post2.getId(), data, "hero-copy.jpg"));
+
+        // Then
+        assertThat(saved1.getHash()).isEqualTo(ContentHash.sha256Hex(data));
+        assertThat(saved2.getHash()).isEqualTo(saved1.getHash());
+        assertThat(countBlobs()).isEqualTo(1);
+        assertThat(postImageRepository.findBlobByHash(saved1.getHash()))
+                .hasValueSatisfying(blob -> {
+                    assertThat(blob.getData()).isEqualTo(data);
+                    assertThat(blob.getRefCount()).isEqualTo(2);
+                });
+        assertThat(postImageRepository.findByPostId(post2.getId()).get().getFilename()).isEqualTo("hero-copy.jpg");
+    }
+
+    @Test
+    void delete_shouldRemoveBlob_whenLastReferenceIsGone() {
+        // Given
+        Post post1 = createAndSavePost("Post 1");
+        Post post2 = createAndSavePost("Post 2");
+        byte[] data = "shared hero image".getBytes();
+        PostImage image1 = postImageRepository.save(createImage(post1.getId(), data, "hero.jpg"));
+        PostImage image2 = postImageRepository.save(createImage(post2.getId(), data, "hero.jpg"));
+
+        // When
+        postImageRepository.delete(image1);
+
+        // Then
+        assertThat(postImageRepository.findBlobByHash(image1.getHash()))
+                .hasValueSatisfying(blob -> assertThat(blob.getRefCount()).isEqualTo(1));
+        assertThat(postImageRepository.findByPostId(post2.getId())).isPresent();
+
+        // When
+        postImageRepository.delete(image2);
+
+        // Then
+        assertThat(countBlobs()).isZero();
+    }
+
+    @Test
+    void update_shouldReleasePreviousBlob() {
+        // Given
+        Post post = createAndSavePost("Test Post");
+        PostImage image = postImageRepository.save(createImage(post.getId(), new byte[]{1, 2, 3}, "old.jpg"));
+        String oldHash = image.getHash();
+
+        // When
+        image.setData(new byte[]{4, 5, 6});
+        postImageRepository.save(image);
+
+        // Then
+        assertThat(image.getHash()).isNotEqualTo(oldHash);
+        assertThat(postImageRepository.findBlobByHash(oldHash)).isEmpty();
+        assertThat(countBlobs()).isEqualTo(1);
+    }
+
+    @Test
+    void save_shouldKeepBlob_whenSameContentIsUploadedAgain() {
+        // Given
+        Post post = createAndSavePost("Test Post");
+        byte[] data = new byte[]{1, 2, 3};
+        postImageRepository.save(createImage(post.getId(), data, "first.jpg"));
+
+        // When
+        PostImage saved = postImageRepository.save(createImage(post.getId(), data, "second.jpg"));
+
+        // Then
+        assertThat(postImageRepository.findBlobByHash(saved.getHash()))
+                .hasValueSatisfying(blob -> assertThat(blob.getRefCount()).isEqualTo(1));
+        assertThat(postImageRepository.findByPostId(post.getId()).get().getFilename()).isEqualTo("second.jpg");
+    }
+
+    @Test
+    void findMetaByPostId_shouldReturnMetadataWithoutData() {
+        // Given
+        Post post = createAndSavePost("Test Post");
+        PostImage saved = postImageRepository.save(createImage(post.getId(), new byte[]{1, 2, 3}, "meta.jpg"));
+
+        // When
+        Optional<PostImage> meta = postImageRepository.findMetaByPostId(post.getId());
+
+        // Then
+        assertThat(meta).isPresent();
+        assertThat(meta.get().getData()).isNull();
+        assertThat(meta.get().getFilename()).isEqualTo("meta.jpg");
+        assertThat(meta.get().getContentType()).isEqualTo("image/jpeg");
+        assertThat(meta.get().getSizeBytes()).isEqualTo(3L);
+        assertThat(meta.get().getHash()).isEqualTo(saved.getHash());
+    }
+
+    @Test
+    void deleteByPostId_shouldReportWhetherImageExisted() {
+        // Given
+        Post post = createAndSavePost("Test Post");
+        postImageRepository.save(createImage(post.getId(), new byte[]{1, 2, 3}, "test.jpg"));
+
+        // When & Then
+        assertThat(postImageRepository.deleteByPostId(post.getId())).isTrue();
+        assertThat(postImageRepository.deleteByPostId(post.getId())).isFalse();
+        assertThat(countBlobs()).isZero();
+    }
+
+    // The uploads have to commit and contend on separate connections, so this test runs outside the test transaction
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void save_shouldReleaseBlobOfConcurrentFirstUpload() throws Exception {
+        // Given
+        Post post = createAndSavePost("Test Post");
+        TransactionTemplate transaction = new TransactionTemplate(blobTransactionManager);
+        CountDownLatch firstSaved = new CountDownLatch(1);
+        CountDownLatch secondBlocked = new CountDownLatch(1);
+        PostImage first = createImage(post.getId(), new byte[]{1, 2, 3}, "first.jpg");
+        PostImage second = createImage(post.getId(), new byte[]{4, 5, 6}, "second.jpg");
+
+        // When: the first upload inserts the row and keeps it uncommitted until the second one waits on it
+        try (ExecutorService executor = Executors.newFixedThreadPool(2)) {
+            Future<?> firstUpload = executor.submit(() -> transaction.executeWithoutResult(status -> {
+                postImageRepository.save(first);
+                firstSaved.countDown();
+                awaitQuietly(secondBlocked);
+            }));
+            assertThat(firstSaved.await(10, TimeUnit.SECONDS)).isTrue();
+            Future<?> secondUpload = executor.submit(() -> transaction.executeWithoutResult(
+                    status -> postImageRepository.save(second)));
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (countLockWaits() == 0 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            secondBlocked.countDown();
+            firstUpload.get(10, TimeUnit.SECONDS);
+            secondUpload.get(10, TimeUnit.SECONDS);
+        }
+
+        // Then
+        assertThat(postImageRepository.findMetaByPostId(post.getId()))
+                .hasValueSatisfying(image -> assertThat(image.getHash()).isEqualTo(second.getHash()));
+        assertThat(postImageRepository.findBlobByHash(first.getHash())).isEmpty();
+        assertThat(postImageRepository.findBlobByHash(second.getHash()))
+                .hasValueSatisfying(blob -> assertThat(blob.getRefCount()).isEqualTo(1));
+        assertThat(countBlobs()).isEqualTo(1);
+    }
+
+    private Integer countLockWaits() {
+        return jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM pg_stat_activity WHERE wait_event_type = 'Lock' AND datname = current_database()",
+                Integer.class);
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private PostImage createImage(Long postId, byte[] data, String filename) {
+        PostImage image = new PostImage();
+        image.setPostId(postId);
+        image.setData(data);
+        image.setFilename(filename);
+        image.setContentType("image/jpeg");
+        image.setSizeBytes((long) data.length);
+        return image;
+    }
+
+    private Integer countBlobs() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM image_blobs", Integer.class);
+    }
+
     private Post createAndSavePost(String title) {
         Post post = new Post();
         post.setTitle(title);
@@ -1,7 +1,9 @@
 package com.my.blog.project.myblogonboot.myblog.repository;
 
 import com.my.blog.project.myblogonboot.myblog.config.AbstractIntegrationTest;
+import com.my.blog.project.myblogonboot.myblog.dto.post.PostFields;
 import com.my.blog.project.myblogonboot.myblog.entity.Post;
+import com.my.blog.project.myblogonboot.myblog.entity.PostImage;
 import com.my.blog.project.myblogonboot.myblog.entity.Tag;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -11,6 +13,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -24,6 +27,9 @@ class PostRepositoryIntegrationTest extends AbstractIntegrationTest {
     @Autowired
     private TagRepository tagRepository;
 
+    @Autowired
+    private PostImageRepository postImageRepository;
+
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
@@ -80,6 +86,42 @@ class PostRepositoryIntegrationTest extends AbstractIntegrationTest {
         assertThat(found).isNull();
     }
 
+    @Test
+    void findPostsByIds_shouldReturnExistingPostsWithTags() {
+        // Given
+        Post first = postRepository.save(createPost("First", "Content"));
+        Post second = postRepository.save(createPost("Second", "Content"));
+
+        // When
+        List<Post> found = postRepository.findPostsByIds(List.of(second.getId(), 999L, first.getId()));
+
+        // Then
+        assertThat(found).extracting(Post::getId).containsExactlyInAnyOrder(first.getId(), second.getId());
+        assertThat(found).allSatisfy(post -> assertThat(post.getTags()).isNotNull());
+    }
+
+    @Test
+    void sparseFields_shouldReadOnlySelectedColumns() {
+        // Given
+        Tag javaTag = tagRepository.save(new Tag("Java"));
+        Post saved = postRepository.save(createPostWithTags("Sparse", "Content", javaTag));
+        PostFields fields = PostFields.parse("title,likesCount");
+
+        // When
+        Post found = postRepository.findPostById(saved.getId(), fields);
+        PostRepository.PageResult<Post> results = postRepository.searchByTitleAndAllTagNames(
+                "", false, List.of("java"), true, 1, 1, 10, fields);
+
+        // Then
+        assertThat(found.getTitle()).isEqualTo("Sparse");
+        assertThat(found.getLikesCount()).isZero();
+        assertThat(found.getText()).isNull();
+        assertThat(found.getTags()).isEmpty();
+        assertThat(found.getImage()).isNull();
+        assertThat(results.getTotalElements()).isEqualTo(1);
+        assertThat(results.getContent()).extracting(Post::getTitle).containsExactly("Sparse");
+    }
+
     @Test
     void searchByTitleOnly_shouldFindMatchingPosts() {
         // Given
@@ -428,6 +470,56 @@ class PostRepositoryIntegrationTest extends AbstractIntegrationTest {
         assertThat(results.getContent().get(0).getId()).isEqualTo(post3.getId());
     }
 
+    @Test
+    void findPostById_shouldIncludeImageMetadata_whenImageExists() {
+        // Given
+        Post saved = postRepository.save(createPost("Test Post", "Content"));
+        saveImage(saved.getId());
+
+        // When
+        Post found = postRepository.findPostById(saved.getId());
+
+        // Then
+        assertThat(found.getImage()).isNotNull();
+        assertThat(found.getImage().getData()).isNull();
+        assertThat(found.getImage().getContentType()).isEqualTo("image/png");
+        assertThat(found.getImage().getSizeBytes()).isEqualTo(3L);
+    }
+
+    @Test
+    void searchByTitleAndAllTagNames_shouldIncludeImageMetadata() {
+        // Given
+        Tag javaTag = tagRepository.save(new Tag("Java"));
+        Post withImage = postRepository.save(createPostWithTags("Post 1", "Content", javaTag));
+        postRepository.save(createPostWithTags("Post 2", "Content", javaTag));
+        saveImage(withImage.getId());
+
+        // When
+        PostRepository.PageResult<Post> results = postRepository.searchByTitleAndAllTagNames(
+                "", false, Arrays.asList("java"), true, 1, 1, 10);
+
+        // Then
+        assertThat(results.getContent()).hasSize(2);
+        assertThat(results.getContent())
+                .filteredOn(post -> post.getId().equals(withImage.getId()))
+                .singleElement()
+                .satisfies(post -> assertThat(post.getImage().getContentType()).isEqualTo("image/png"));
+        assertThat(results.getContent())
+                .filteredOn(post -> !post.getId().equals(withImage.getId()))
+                .singleElement()
+                .satisfies(post -> assertThat(post.getImage()).isNull());
+    }
+
+    private void saveImage(Long postId) {
+        PostImage image = new PostImage();
+        image.setPostId(postId);
+        image.setData(new byte[]{1, 2, 3});
+        image.setContentType("image/png");
+        image.setSizeBytes(3L);
+        image.setFilename("test.png");
+        postImageRepository.save(image);
+    }
+
     private Post createPost(String title, String text) {
         Post post = new Post();
         post.setTitle(title);
@@ -0,0 +1,255 @@
+package com.my.blog.project.myblogonboot.myblog.repository;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.my.blog.project.myblogonboot.myblog.benchmark.DatasetGenerator;
+import com.my.blog.project.myblogonboot.myblog.config.ExecutedStatement;
+import com.my.blog.project.myblogonboot.myblog.config.StatementTimingDataSource;
+import com.my.blog.project.myblogonboot.myblog.dto.post.PostFields;
+import com.my.blog.project.myblogonboot.myblog.entity.Comment;
+import com.my.blog.project.myblogonboot.myblog.entity.Post;
+import com.my.blog.project.myblogonboot.myblog.entity.PostImage;
+import com.my.blog.project.myblogonboot.myblog.entity.PostImageVariant;
+import com.my.blog.project.myblogonboot.myblog.entity.Tag;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.postgresql.PostgreSQLContainer;
+import org.testcontainers.utility.DockerImageName;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Runs every repository statement against a generated dataset, then EXPLAINs each one as a generic plan, the plan a
+// prepared statement settles on whatever its parameters. A sequential scan of a table that grows with the data fails
+// the test. Seeds 10k posts into its own container (the generator needs an empty schema), so it runs with
+// ./gradlew statementBenchmark rather than in the regular test task
+@org.junit.jupiter.api.Tag("statements")
+@SpringBootTest
+@ActiveProfiles("test")
+@Testcontainers
+class QueryPlanIntegrationTest {
+
+    private static final double SCALE = 0.1;
+
+    // Tables that grow with posts, small lookup tables (tags, image_blobs) may be scanned whole
+    private static final Set<String> LARGE_TABLES = Set.of("posts", "posts_tags", "comments", "post_images");
+
+    @Container
+    static final PostgreSQLContainer postgres = new PostgreSQLContainer(DockerImageName.parse("postgres:latest"));
+
+    private static boolean seeded;
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired
+    private DataSource dataSource;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @BeforeEach
+    void seed() throws SQLException {
+        if (seeded) {
+            return;
+        }
+        try (Connection connection = dataSource.getConnection()) {
+            new DatasetGenerator(SCALE, 42).generate(connection);
+        }
+        seeded = true;
+    }
+
+    @Test
+    void repositoryQueries_shouldNotScanLargeTables() throws Exception {
+        // Given
+        List<ExecutedStatement> executed = Collections.synchronizedList(new ArrayList<>());
+        DataSource recording = new StatementTimingDataSource(dataSource, List.of(executed::add));
+        JdbcTemplate jdbc = new JdbcTemplate(recording);
+        PostRepository postRepository = new PostRepository(jdbc);
+        CommentRepository commentRepository = new CommentRepository(jdbc);
+        TagRepository tagRepository = new TagRepository(jdbc);
+        PostImageRepository postImageRepository = new PostImageRepository(jdbc, jdbc);
+        PostImageVariantRepository variantRepository = new PostImageVariantRepository(jdbc);
+
+        JdbcTemplate plain = new JdbcTemplate(dataSource);
+        long postId = plain.queryForObject("SELECT MAX(id) / 2 FROM posts", Long.class);
+        // The longest title is a selective search, a single common word legitimately matches a large share of posts
+        String title = plain.queryForObject("SELECT title FROM posts ORDER BY LENGTH(title) DESC, id LIMIT 1",
+                String.class);
+        long commentId = plain.queryForObject("SELECT MIN(id) FROM comments", Long.class);
+        long commentPostId = plain.queryForObject("SELECT post_id FROM comments WHERE id = ?", Long.class, commentId);
+        long imagePostId = plain.queryForObject("SELECT MIN(post_id) FROM post_images", Long.class);
+        String hash = plain.queryForObject("SELECT image_hash FROM post_images WHERE post_id = ?", String.class,
+                imagePostId);
+        // A tag from the tail of the Zipf distribution, the head tags are on a large share of posts
+        String rareTag = "tag" + (new DatasetGenerator(SCALE, 42).tags() * 4 / 5);
+
+        // When
+        TransactionTemplate transaction = new TransactionTemplate(new DataSourceTransactionManager(recording));
+        transaction.executeWithoutResult(status -> {
+            postRepository.searchByTitleAndAllTagNames("", false, List.of(), false, 0, 1, 10);
+            postRepository.searchByTitleAndAllTagNames("", false, List.of(rareTag), true, 1, 1, 10);
+            postRepository.searchByTitleAndAllTagNames(title, true, List.of(), false, 0, 1, 10);
+            PostFields sparse = PostFields.parse("id,title,likesCount");
+            postRepository.searchByTitleAndAllTagNames("", false, List.of(), false, 0, 1, 10, sparse);
+            postRepository.searchByTitleAndAllTagNames("", false, List.of(rareTag), true, 1, 1, 10, sparse);
+            postRepository.findPostById(postId, sparse);
+            Post post = postRepository.findPostById(postId);
+            postRepository.findPostsByIds(List.of(postId, postId + 1, postId + 2));
+            postRepository.existsById(postId);
+            postRepository.incrementLikes(postId);
+            postRepository.getCurrentLikes(postId);
+            postRepository.save(post);
+            Post created = postRepository.save(new Post(null, "Plan check", "Text", Set.of(), 0, 0, null));
+            postRepository.deleteById(created.getId());
+
+            commentRepository.findByPostIdOrderByIdAsc(commentPostId);
+            commentRepository.findByPostIdAndId(commentPostId, commentId);
+            Comment comment = commentRepository.save(new Comment(postId, "Plan check"));
+            commentRepository.save(comment);
+            commentRepository.deleteById(comment.getId());
+
+            Tag tag = tagRepository.save(new Tag("plan-check"));
+            tagRepository.save(tag);
+            tagRepository.findByNameIgnoreCase("Plan-Check");
+            tagRepository.findByNamesIgnoreCase(List.of("plan-check", "plan-other"));
+            tagRepository.saveAll(List.of("Plan-Check", "plan-batch"));
+            tagRepository.findById(tag.getId());
+            tagRepository.deleteById(tag.getId());
+
+            postImageRepository.findByPostId(imagePostId);
+            postImageRepository.findMetaByPostId(imagePostId);
+            postImageRepository.findBlobByHash(hash);
+            PostImage image = new PostImage();
+            image.setPostId(postId);
+            image.setData(new byte[]{1, 2, 3});
+            image.setContentType("image/png");
+            image.setSizeBytes(3L);
+            image.setFilename("plan.png");
+            postImageRepository.save(image);
+            postImageRepository.deleteByPostId(postId);
+
+            PostImageVariant variant = new PostImageVariant();
+            variant.setPostId(imagePostId);
+            variant.setWidth(200);
+            variant.setData(new byte[]{1, 2, 3});
+            variant.setContentType("image/png");
+            variant.setSizeBytes(3L);
+            variantRepository.save(variant);
+            variantRepository.saveIfCurrent(variant, hash);
+            variantRepository.findByPostIdAndWidth(imagePostId, 200);
+            variantRepository.deleteByPostId(imagePostId);
+
+            status.setRollbackOnly();
+        });
+
+        // Then
+        Map<String, ExecutedStatement> statements = new LinkedHashMap<>();
+        for (ExecutedStatement statement : List.copyOf(executed)) {
+            statements.putIfAbsent(statement.sql(), statement);
+        }
+        assertThat(statements).hasSizeGreaterThan(25);
+
+        Map<String, List<String>> violations = new LinkedHashMap<>();
+        for (ExecutedStatement statement : statements.values()) {
+            if (isUnfilteredCount(statement.sql())) {
+                continue;
+            }
+            List<String> scans = new ArrayList<>();
+            collectSeqScans(explain(statement).get(0).get("Plan"), scans);
+            if (!scans.isEmpty()) {
+                violations.put(statement.sql(), scans);
+            }
+        }
+        assertThat(violations).as("Statements with sequential scans of large tables").isEmpty();
+    }
+
+    // Counting every post reads every post, there is nothing for an index to narrow down
+    private static boolean isUnfilteredCount(String sql) {
+        return sql.startsWith("SELECT COUNT(*) FROM (") && !sql.contains("WHERE");
+    }
+
+    private JsonNode explain(ExecutedStatement statement) throws Exception {
+        String sql = "EXPLAIN (GENERIC_PLAN, FORMAT JSON) " + numbered(statement.sql(), statement.parameterTypes());
+        try (Connection connection = dataSource.getConnection();
+             Statement explain = connection.createStatement();
+             ResultSet resultSet = explain.executeQuery(sql)) {
+            resultSet.next();
+            return objectMapper.readTree(resultSet.getString(1));
+        }
+    }
+
+    // ? -> $1, $2, ... as GENERIC_PLAN expects. The cast repeats the type the driver bound, without it a bare
+    // parameter, e.g. the post id in INSERT ... SELECT ?, would be planned as text
+    private static String numbered(String sql, List<String> parameterTypes) {
+        StringBuilder numbered = new StringBuilder(sql.length() + 16);
+        boolean quoted = false;
+        int index = 0;
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (c == '\'') {
+                quoted = !quoted;
+            }
+            if (c != '?' || quoted) {
+                numbered.append(c);
+                continue;
+            }
+            numbered.append('$').append(++index);
+            String type = index <= parameterTypes.size() ? sqlType(parameterTypes.get(index - 1)) : null;
+            if (type != null) {
+                numbered.append("::").append(type);
+            }
+        }
+        return numbered.toString();
+    }
+
+    // The shapes StatementTimingDataSource records: "Long", "String(12)", "long[3]", "bytes[1024]", ...
+    private static String sqlType(String shape) {
+        String base = shape.replaceFirst("[(\\[].*$", "");
+        boolean array = shape.endsWith("]") && !base.equals("bytes") && !base.equals("stream");
+        String type = switch (base) {
+            case "Long", "long" -> "bigint";
+            case "Integer", "int" -> "integer";
+            case "Short", "short" -> "smallint";
+            case "Boolean", "boolean" -> "boolean";
+            case "String" -> "text";
+            case "bytes", "stream" -> "bytea";
+            default -> null;
+        };
+        return type == null ? null : array ? type + "[]" : type;
+    }
+
+    private static void collectSeqScans(JsonNode plan, List<String> scans) {
+        String relation = plan.path("Relation Name").asText();
+        if ("Seq Scan".equals(plan.path("Node Type").asText()) && LARGE_TABLES.contains(relation)) {
+            scans.add(relation);
+        }
+        for (JsonNode child : plan.path("Plans")) {
+            collectSeqScans(child, scans);
+        }
+    }
+}
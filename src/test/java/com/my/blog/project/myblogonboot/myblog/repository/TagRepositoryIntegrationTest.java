@@ -8,6 +8,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -107,6 +108,34 @@ class TagRepositoryIntegrationTest extends AbstractIntegrationTest {
                 .containsExactlyInAnyOrder("Java", "Spring", "Docker");
     }
 
+    @Test
+    void findByNamesIgnoreCase_shouldFindAllTags_inOneCall() {
+        // Given
+        tagRepository.save(new Tag("Java"));
+        tagRepository.save(new Tag("Spring"));
+        tagRepository.save(new Tag("Docker"));
+
+        // When
+        List<Tag> found = tagRepository.findByNamesIgnoreCase(List.of("JAVA", "spring", "Kotlin"));
+
+        // Then
+        assertThat(found).extracting("name").containsExactlyInAnyOrder("Java", "Spring");
+    }
+
+    @Test
+    void saveAll_shouldInsertNewTags_andSkipExistingOnes() {
+        // Given
+        tagRepository.save(new Tag("java"));
+
+        // When
+        List<Tag> inserted = tagRepository.saveAll(List.of("Kotlin", "JAVA", "Docker"));
+
+        // Then
+        assertThat(inserted).extracting("name").containsExactlyInAnyOrder("Kotlin", "Docker");
+        assertThat(inserted).allSatisfy(tag -> assertThat(tag.getId()).isNotNull());
+        assertThat(tagRepository.findAll()).hasSize(3);
+    }
+
     @Test
     void save_shouldEnforceUniqueConstraint() {
         // Given
@@ -0,0 +1,39 @@
+package com.my.blog.project.myblogonboot.myblog.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BlogMetricsTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final BlogMetrics blogMetrics = new BlogMetrics(meterRegistry);
+
+    @Test
+    void counters_shouldCountLikesAndComments() {
+        // When
+        blogMetrics.likeAdded();
+        blogMetrics.likeAdded();
+        blogMetrics.commentAdded();
+
+        // Then
+        assertThat(meterRegistry.get("blog.likes").counter().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("blog.comments").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void imageServed_shouldSumBytesPerSource() {
+        // When
+        blogMetrics.imageServed("post", 100);
+        blogMetrics.imageServed("post", 50);
+        blogMetrics.imageServed("hash", 10);
+
+        // Then
+        assertThat(meterRegistry.get("blog.image.served.bytes").tag("source", "post").counter().count())
+                .isEqualTo(150);
+        assertThat(meterRegistry.get("blog.image.served.bytes").tag("source", "hash").counter().count())
+                .isEqualTo(10);
+    }
+}
@@ -0,0 +1,227 @@
+package com.my.blog.project.myblogonboot.myblog.service;
+
+import com.my.blog.project.myblogonboot.myblog.dto.upload.CreateUploadRequest;
+import com.my.blog.project.myblogonboot.myblog.dto.upload.UploadResponse;
+import com.my.blog.project.myblogonboot.myblog.entity.Post;
+import com.my.blog.project.myblogonboot.myblog.repository.ContentHash;
+import com.my.blog.project.myblogonboot.myblog.repository.PostRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ChunkedUploadServiceTest {
+
+    @Mock
+    private PostRepository postRepository;
+
+    @Mock
+    private ImageService imageService;
+
+    @TempDir
+    private Path directory;
+
+    private ChunkedUploadService chunkedUploadService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        chunkedUploadService = new ChunkedUploadService(postRepository, imageService, directory.toString(),
+                1024, Duration.ofHours(1));
+    }
+
+    @Test
+    void createUpload_shouldStartSession_whenPostExists() throws IOException {
+        // Given
+        when(postRepository.findPostById(1L)).thenReturn(new Post());
+
+        // When
+        ResponseEntity<UploadResponse> result = chunkedUploadService.createUpload(1L,
+                new CreateUploadRequest("big.png", "image/png", 10));
+
+        // Then
+        assertThat(result.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(result.getHeaders().getLocation()).hasToString("/api/posts/1/image/uploads/" + result.getBody().uploadId());
+        assertThat(result.getBody().offset()).isZero();
+        assertThat(result.getBody().length()).isEqualTo(10);
+        assertThat(Files.list(directory)).hasSize(1);
+    }
+
+    @Test
+    void createUpload_shouldRejectUploadsOverTheLimit() throws IOException {
+        // When
+        ResponseEntity<UploadResponse> result = chunkedUploadService.createUpload(1L,
+                new CreateUploadRequest("big.png", "image/png", 2048));
+
+        // Then
+        assertThat(result.getStatusCode()).isEqualTo(HttpStatus.PAYLOAD_TOO_LARGE);
+        verify(postRepository, never()).findPostById(any());
+    }
+
+    @Test
+    void createUpload_shouldRejectMissingOrNonImageContentType() throws IOException {
+        // When & Then
+        for (String contentType : new String[]{null, "foo", "text/plain", "image/*"}) {
+            ResponseEntity<UploadResponse> result = chunkedUploadService.createUpload(1L,
+                    new CreateUploadRequest("big.png", contentType, 10));
+            assertThat(result.getStatusCode()).as(contentType).isEqualTo(HttpStatus.BAD_REQUEST);
+        }
+        verify(postRepository, never()).findPostById(any());
+        assertThat(Files.list(directory)).isEmpty();
+    }
+
+    @Test
+    void appendChunk_shouldAdvanceOffset_andStoreImageOnComplete() throws IOException {
+        // Given
+        String uploadId = startUpload(10);
+        when(imageService.storeImage(eq(1L), any(), any(), any(), any())).thenReturn(ResponseEntity.noContent().build());
+
+        // When
+        ResponseEntity<Void> first = chunkedUploadService.appendChunk(1L, uploadId, 0, stream("01234"));
+        ResponseEntity<Void> second = chunkedUploadService.appendChunk(1L, uploadId, 5, stream("56789"));
+        ResponseEntity<Void> completed = chunkedUploadService.completeUpload(1L, uploadId);
+
+        // Then
+        assertThat(first.getHeaders().getFirst(ChunkedUploadService.UPLOAD_OFFSET)).isEqualTo("5");
+        assertThat(second.getHeaders().getFirst(ChunkedUploadService.UPLOAD_OFFSET)).isEqualTo("10");
+        assertThat(completed.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
+        verify(imageService).storeImage(eq(1L), any(Path.class),
+                eq(ContentHash.sha256Hex("0123456789".getBytes())), eq("image/png"), eq("big.png"));
+        assertThat(chunkedUploadService.getUpload(1L, uploadId).getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        assertThat(Files.list(directory)).isEmpty();
+    }
+
+    @Test
+    void appendChunk_shouldReturnConflict_whenOffsetDoesNotMatch() throws IOException {
+        // Given
+        String uploadId = startUpload(10);
+        chunkedUploadService.appendChunk(1L, uploadId, 0, stream("01234"));
+
+        // When
+        ResponseEntity<Void> result = chunkedUploadService.appendChunk(1L, uploadId, 3, stream("34567"));
+
+        // Then
+        assertThat(result.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+        assertThat(result.getHeaders().getFirst(ChunkedUploadService.UPLOAD_OFFSET)).isEqualTo("5");
+    }
+
+    @Test
+    void appendChunk_shouldKeepReceivedBytes_whenClientDisconnects() throws IOException {
+        // Given
+        String uploadId = startUpload(10);
+        InputStream broken = new ByteArrayInputStream("0123".getBytes()) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                int read = super.read(b, off, len);
+                if (read == -1) {
+                    throw new IllegalStateException("connection reset");
+                }
+                return read;
+            }
+        };
+
+        // When
+        try {
+            chunkedUploadService.appendChunk(1L, uploadId, 0, broken);
+        } catch (IllegalStateException expected) {
+            // the request failed half way
+        }
+        ResponseEntity<UploadResponse> status = chunkedUploadService.getUpload(1L, uploadId);
+        ResponseEntity<Void> resumed = chunkedUploadService.appendChunk(1L, uploadId, 4, stream("456789"));
+
+        // Then
+        assertThat(status.getBody().offset()).isEqualTo(4);
+        assertThat(resumed.getHeaders().getFirst(ChunkedUploadService.UPLOAD_OFFSET)).isEqualTo("10");
+    }
+
+    @Test
+    void appendChunk_shouldRejectBytesBeyondDeclaredLength() throws IOException {
+        // Given
+        String uploadId = startUpload(4);
+
+        // When
+        ResponseEntity<Void> result = chunkedUploadService.appendChunk(1L, uploadId, 0, stream("0123456"));
+
+        // Then
+        assertThat(result.getStatusCode()).isEqualTo(HttpStatus.PAYLOAD_TOO_LARGE);
+    }
+
+    @Test
+    void completeUpload_shouldReturnConflict_whenUploadIsIncomplete() throws IOException {
+        // Given
+        String uploadId = startUpload(10);
+        chunkedUploadService.appendChunk(1L, uploadId, 0, stream("01234"));
+
+        // When
+        ResponseEntity<Void> result = chunkedUploadService.completeUpload(1L, uploadId);
+
+        // Then
+        assertThat(result.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+        verify(imageService, never()).storeImage(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void getUpload_shouldReturnNotFound_forAnotherPost() throws IOException {
+        // Given
+        String uploadId = startUpload(10);
+
+        // When
+        ResponseEntity<UploadResponse> result = chunkedUploadService.getUpload(2L, uploadId);
+
+        // Then
+        assertThat(result.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
+    @Test
+    void cancelUpload_shouldDeleteTemporaryFile() throws IOException {
+        // Given
+        String uploadId = startUpload(10);
+
+        // When
+        ResponseEntity<Void> result = chunkedUploadService.cancelUpload(1L, uploadId);
+
+        // Then
+        assertThat(result.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
+        assertThat(Files.list(directory)).isEmpty();
+    }
+
+    @Test
+    void removeExpiredUploads_shouldDropIdleSessions() throws IOException {
+        // Given
+        chunkedUploadService = new ChunkedUploadService(postRepository, imageService, directory.toString(),
+                1024, Duration.ZERO);
+        String uploadId = startUpload(10);
+
+        // When
+        chunkedUploadService.removeExpiredUploads();
+
+        // Then
+        assertThat(chunkedUploadService.getUpload(1L, uploadId).getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        assertThat(Files.list(directory)).isEmpty();
+    }
+
+    private String startUpload(long length) throws IOException {
+        when(postRepository.findPostById(1L)).thenReturn(new Post());
+        return chunkedUploadService.createUpload(1L, new CreateUploadRequest("big.png", "image/png", length))
+                .getBody().uploadId();
+    }
+
+    private InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes());
+    }
+}
@@ -12,10 +12,13 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.PlatformTransactionManager;
 
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
@@ -36,6 +39,18 @@ class CommentServiceTest {
     @Mock
     private CommentMapper commentMapper;
 
+    @Mock
+    private BlogMetrics blogMetrics;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private PostResponseCache postResponseCache;
+
+    @Spy
+    private SingleFlight singleFlight = new SingleFlight(Duration.ofSeconds(1), true);
+
     @InjectMocks
     private CommentService commentService;
 
@@ -82,6 +97,7 @@ class CommentServiceTest {
         assertThat(result.getBody().text()).isEqualTo("New Comment");
         verify(commentRepository).save(any(Comment.class));
         verify(postRepository).save(testPost);
+        verify(blogMetrics).commentAdded();
         assertThat(testPost.getCommentsCount()).isEqualTo(1);
     }
 
@@ -141,7 +157,7 @@ class CommentServiceTest {
             new CommentResponse(2L, "Comment 2", postId)
         );
 
-        when(postRepository.findPostById(postId)).thenReturn(testPost);
+        when(postRepository.existsById(postId)).thenReturn(true);
         when(commentRepository.findByPostIdOrderByIdAsc(postId)).thenReturn(comments);
         when(commentMapper.toDtoList(comments)).thenReturn(expectedResponses);
 
@@ -158,7 +174,7 @@ class CommentServiceTest {
     void getCommentsByPostId_shouldReturnBadRequest_whenPostDoesNotExist() {
         // Given
         long postId = 999L;
-        when(postRepository.findPostById(postId)).thenReturn(null);
+        when(postRepository.existsById(postId)).thenReturn(false);
 
         // When
         ResponseEntity<List<CommentResponse>> result = commentService.getCommentsByPostId(postId);
@@ -175,7 +191,7 @@ class CommentServiceTest {
         long commentId = 1L;
         CommentResponse expectedResponse = new CommentResponse(1L, "Test Comment", postId);
 
-        when(postRepository.findPostById(postId)).thenReturn(testPost);
+        when(postRepository.existsById(postId)).thenReturn(true);
         when(commentRepository.findByPostIdAndId(postId, commentId)).thenReturn(testComment);
         when(commentMapper.toDto(testComment)).thenReturn(expectedResponse);
 
@@ -194,7 +210,7 @@ class CommentServiceTest {
         // Given
         long postId = 999L;
         long commentId = 1L;
-        when(postRepository.findPostById(postId)).thenReturn(null);
+        when(postRepository.existsById(postId)).thenReturn(false);
 
         // When
         ResponseEntity<CommentResponse> result = commentService.getCommentByPostIdAndCommentId(postId, commentId);
@@ -0,0 +1,119 @@
+package com.my.blog.project.myblogonboot.myblog.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ImageCacheTest {
+
+    @Test
+    void put_shouldStoreContentOffHeap() {
+        // Given
+        ImageCache cache = new ImageCache(1024, 1024);
+        byte[] data = new byte[]{1, 2, 3};
+
+        // When
+        ImageContent stored = cache.put("post:1", data, "image/png", "abc", cache.generation());
+        data[0] = 9;
+
+        // Then
+        Optional<ImageContent> cached = cache.get("post:1");
+        assertThat(stored.data().isDirect()).isTrue();
+        assertThat(cached).isPresent();
+        assertThat(bytes(cached.get())).containsExactly(1, 2, 3);
+        assertThat(cached.get().contentType()).isEqualTo("image/png");
+        assertThat(cached.get().hash()).isEqualTo("abc");
+        assertThat(cache.usedBytes()).isEqualTo(3);
+    }
+
+    @Test
+    void get_shouldGiveEveryReaderItsOwnPosition() {
+        // Given
+        ImageCache cache = new ImageCache(1024, 1024);
+        cache.put("post:1", new byte[]{1, 2, 3}, "image/png", null, cache.generation());
+
+        // When
+        ImageContent first = cache.get("post:1").orElseThrow();
+        first.data().get();
+        ImageContent second = cache.get("post:1").orElseThrow();
+
+        // Then
+        assertThat(first.size()).isEqualTo(2);
+        assertThat(second.size()).isEqualTo(3);
+        assertThat(cache.hitCount()).isEqualTo(2);
+    }
+
+    @Test
+    void put_shouldEvictLeastRecentlyUsed_whenBudgetIsExceeded() {
+        // Given
+        ImageCache cache = new ImageCache(10, 10);
+        cache.put("post:1", new byte[4], "image/png", null, cache.generation());
+        cache.put("post:2", new byte[4], "image/png", null, cache.generation());
+        cache.get("post:1");
+
+        // When
+        cache.put("post:3", new byte[4], "image/png", null, cache.generation());
+
+        // Then
+        assertThat(cache.get("post:2")).isEmpty();
+        assertThat(cache.get("post:1")).isPresent();
+        assertThat(cache.get("post:3")).isPresent();
+        assertThat(cache.usedBytes()).isEqualTo(8);
+    }
+
+    @Test
+    void put_shouldNotCache_whenEntryIsTooLarge() {
+        // Given
+        ImageCache cache = new ImageCache(100, 4);
+
+        // When
+        ImageContent content = cache.put("post:1", new byte[5], "image/png", null, cache.generation());
+
+        // Then
+        assertThat(content.size()).isEqualTo(5);
+        assertThat(content.data().isDirect()).isFalse();
+        assertThat(cache.get("post:1")).isEmpty();
+        assertThat(cache.usedBytes()).isZero();
+    }
+
+    @Test
+    void invalidatePost_shouldDropOriginalAndVariants() {
+        // Given
+        ImageCache cache = new ImageCache(1024, 1024);
+        cache.put(ImageCache.postKey(1L), new byte[3], "image/png", null, cache.generation());
+        cache.put(ImageCache.variantKey(1L, 200), new byte[2], "image/png", null, cache.generation());
+        cache.put(ImageCache.postKey(11L), new byte[1], "image/png", null, cache.generation());
+
+        // When
+        cache.invalidatePost(1L);
+
+        // Then
+        assertThat(cache.get(ImageCache.postKey(1L))).isEmpty();
+        assertThat(cache.get(ImageCache.variantKey(1L, 200))).isEmpty();
+        assertThat(cache.get(ImageCache.postKey(11L))).isPresent();
+        assertThat(cache.usedBytes()).isEqualTo(1);
+    }
+
+    @Test
+    void put_shouldSkipValueLoadedBeforeInvalidation() {
+        // Given
+        ImageCache cache = new ImageCache(1024, 1024);
+        long generation = cache.generation();
+        cache.invalidatePost(1L);
+
+        // When
+        ImageContent content = cache.put(ImageCache.postKey(1L), new byte[]{1}, "image/png", null, generation);
+
+        // Then
+        assertThat(content.size()).isEqualTo(1);
+        assertThat(cache.get(ImageCache.postKey(1L))).isEmpty();
+    }
+
+    private byte[] bytes(ImageContent content) {
+        byte[] result = new byte[content.size()];
+        content.data().duplicate().get(result);
+        return result;
+    }
+}
@@ -4,6 +4,7 @@ import com.my.blog.project.myblogonboot.myblog.config.AbstractIntegrationTest;
 import com.my.blog.project.myblogonboot.myblog.dto.post.PostRequest;
 import com.my.blog.project.myblogonboot.myblog.dto.post.PostResponse;
 import com.my.blog.project.myblogonboot.myblog.entity.PostImage;
+import com.my.blog.project.myblogonboot.myblog.repository.ContentHash;
 import com.my.blog.project.myblogonboot.myblog.repository.PostImageRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -12,8 +13,12 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.Optional;
@@ -32,6 +37,9 @@ class ImageServiceIntegrationTest extends AbstractIntegrationTest {
     @Autowired
     private PostImageRepository postImageRepository;
 
+    @Autowired
+    private ThumbnailService thumbnailService;
+
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
@@ -41,7 +49,9 @@ class ImageServiceIntegrationTest extends AbstractIntegrationTest {
     void setUp() {
         // Clean up before each test
         jdbcTemplate.execute("DELETE FROM comments");
+        jdbcTemplate.execute("DELETE FROM post_image_variants");
         jdbcTemplate.execute("DELETE FROM post_images");
+        jdbcTemplate.execute("DELETE FROM image_blobs");
         jdbcTemplate.execute("DELETE FROM posts_tags");
         jdbcTemplate.execute("DELETE FROM posts");
         jdbcTemplate.execute("DELETE FROM tags");
@@ -77,6 +87,28 @@ class ImageServiceIntegrationTest extends AbstractIntegrationTest {
         assertThat(savedImage.get().getSizeBytes()).isEqualTo(imageData.length);
     }
 
+    // Uploads have to commit for the variant job to see them, so this test runs outside the test transaction
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void variantJob_shouldNotStoreVariants_whenImageWasReplacedWhileQueued() throws IOException {
+        // Given: the bytes are not decodable, so the jobs scheduled by the uploads themselves store nothing
+        byte[] first = "first image".getBytes();
+        byte[] second = "second image".getBytes();
+        imageService.uploadImage(testPost.id(), new MockMultipartFile("image", "first.png", "image/png", first));
+        imageService.uploadImage(testPost.id(), new MockMultipartFile("image", "second.png", "image/png", second));
+        byte[] png = png(1000, 500);
+
+        // When: the job for the first image runs only now
+        thumbnailService.generateVariants(testPost.id(), ContentHash.sha256Hex(first), png, "image/png");
+
+        // Then
+        assertThat(thumbnailService.findVariant(testPost.id(), 200)).isEmpty();
+
+        // And the job for the current image still stores its variants
+        thumbnailService.generateVariants(testPost.id(), ContentHash.sha256Hex(second), png, "image/png");
+        assertThat(thumbnailService.findVariant(testPost.id(), 200)).isPresent();
+    }
+
     @Test
     void uploadImage_shouldReplaceExistingImage() throws IOException {
         // Given - First upload
@@ -337,5 +369,10 @@ class ImageServiceIntegrationTest extends AbstractIntegrationTest {
         Optional<PostImage> savedImage = postImageRepository.findByPostId(testPost.id());
         assertThat(savedImage).isEmpty();
     }
-}
 
+    private byte[] png(int width, int height) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB), "png", out);
+        return out.toByteArray();
+    }
+}
@@ -1,14 +1,22 @@
 package com.my.blog.project.myblogonboot.myblog.service;
 
+import com.my.blog.project.myblogonboot.myblog.dto.image.ImageMetaResponse;
+import com.my.blog.project.myblogonboot.myblog.entity.ImageBlob;
 import com.my.blog.project.myblogonboot.myblog.entity.Post;
 import com.my.blog.project.myblogonboot.myblog.entity.PostImage;
+import com.my.blog.project.myblogonboot.myblog.entity.PostImageVariant;
+import com.my.blog.project.myblogonboot.myblog.mapper.ImageMapper;
+import com.my.blog.project.myblogonboot.myblog.repository.ContentHash;
 import com.my.blog.project.myblogonboot.myblog.repository.PostImageRepository;
 import com.my.blog.project.myblogonboot.myblog.repository.PostRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -16,6 +24,10 @@ import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.HashSet;
 import java.util.Optional;
 
@@ -32,6 +44,21 @@ class ImageServiceTest {
     @Mock
     private PostRepository postRepository;
 
+    @Mock
+    private ThumbnailService thumbnailService;
+
+    @Mock
+    private ImageCache imageCache;
+
+    @Mock
+    private ImageMapper imageMapper;
+
+    @Mock
+    private PostResponseCache postResponseCache;
+
+    @Spy
+    private SingleFlight singleFlight = new SingleFlight(Duration.ofSeconds(1), true);
+
     @InjectMocks
     private ImageService imageService;
 
@@ -69,7 +96,6 @@ class ImageServiceTest {
         );
 
         when(postRepository.findPostById(postId)).thenReturn(testPost);
-        when(postImageRepository.findByPostId(postId)).thenReturn(Optional.empty());
         when(postImageRepository.save(any(PostImage.class))).thenReturn(testPostImage);
 
         // When
@@ -78,8 +104,11 @@ class ImageServiceTest {
         // Then
         assertThat(result.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
         verify(postRepository).findPostById(postId);
-        verify(postImageRepository).findByPostId(postId);
+        verify(postImageRepository, never()).findByPostId(any());
         verify(postImageRepository).save(any(PostImage.class));
+        verify(thumbnailService).deleteVariants(postId);
+        verify(thumbnailService).scheduleVariants(postId, ContentHash.sha256Hex(imageData), imageData, "image/jpeg");
+        verify(imageCache).invalidatePost(postId);
     }
 
     @Test
@@ -95,7 +124,6 @@ class ImageServiceTest {
         );
 
         when(postRepository.findPostById(postId)).thenReturn(testPost);
-        when(postImageRepository.findByPostId(postId)).thenReturn(Optional.of(testPostImage));
         when(postImageRepository.save(any(PostImage.class))).thenReturn(testPostImage);
 
         // When
@@ -210,5 +238,226 @@ class ImageServiceTest {
         assertThat(result).isEmpty();
         verify(postImageRepository).findByPostId(postId);
     }
-}
 
+    @Test
+    void getPostImageVariant_shouldReturnStoredVariant_whenReady() {
+        // Given
+        Long postId = 1L;
+        PostImageVariant variant = new PostImageVariant(postId, 200, new byte[]{1, 2}, "image/jpeg", 2L);
+        when(thumbnailService.resolveWidth(150)).thenReturn(200);
+        when(thumbnailService.findVariant(postId, 200)).thenReturn(Optional.of(variant));
+
+        // When
+        Optional<PostImageVariant> result = imageService.getPostImageVariant(postId, 150);
+
+        // Then
+        assertThat(result).contains(variant);
+        verify(postImageRepository, never()).findByPostId(any());
+    }
+
+    @Test
+    void getPostImageVariant_shouldResizeSynchronously_whenVariantIsMissing() {
+        // Given
+        Long postId = 1L;
+        PostImageVariant variant = new PostImageVariant(postId, 200, new byte[]{1}, "image/jpeg", 1L);
+        when(thumbnailService.resolveWidth(200)).thenReturn(200);
+        when(thumbnailService.findVariant(postId, 200)).thenReturn(Optional.empty());
+        when(postImageRepository.findByPostId(postId)).thenReturn(Optional.of(testPostImage));
+        when(thumbnailService.createVariant(testPostImage, 200)).thenReturn(variant);
+
+        // When
+        Optional<PostImageVariant> result = imageService.getPostImageVariant(postId, 200);
+
+        // Then
+        assertThat(result).contains(variant);
+    }
+
+    @Test
+    void getPostImageVariant_shouldReturnEmpty_whenPostHasNoImage() {
+        // Given
+        Long postId = 1L;
+        when(thumbnailService.resolveWidth(200)).thenReturn(200);
+        when(thumbnailService.findVariant(postId, 200)).thenReturn(Optional.empty());
+        when(postImageRepository.findByPostId(postId)).thenReturn(Optional.empty());
+
+        // When
+        Optional<PostImageVariant> result = imageService.getPostImageVariant(postId, 200);
+
+        // Then
+        assertThat(result).isEmpty();
+        verify(thumbnailService, never()).createVariant(any(), anyInt());
+    }
+
+    @Test
+    void uploadImage_shouldHashContent_whileReadingUpload() throws IOException {
+        // Given
+        Long postId = 1L;
+        byte[] imageData = "test image data".getBytes();
+        MockMultipartFile image = new MockMultipartFile("image", "test.jpg", "image/jpeg", imageData);
+
+        when(postRepository.findPostById(postId)).thenReturn(testPost);
+
+        // When
+        imageService.uploadImage(postId, image);
+
+        // Then
+        ArgumentCaptor<PostImage> captor = ArgumentCaptor.forClass(PostImage.class);
+        verify(postImageRepository).save(captor.capture());
+        assertThat(captor.getValue().getHash()).isEqualTo(ContentHash.sha256Hex(imageData));
+    }
+
+    @Test
+    void getImageByHash_shouldReturnBlob_whenHashIsKnown() {
+        // Given
+        String hash = ContentHash.sha256Hex(new byte[]{1, 2, 3});
+        ImageBlob blob = new ImageBlob(hash, new byte[]{1, 2, 3}, "image/jpeg", 3L, 1);
+        when(postImageRepository.findBlobByHash(hash)).thenReturn(Optional.of(blob));
+
+        // When
+        Optional<ImageBlob> result = imageService.getImageByHash(hash);
+
+        // Then
+        assertThat(result).contains(blob);
+    }
+
+    @Test
+    void getImageByHash_shouldReturnEmpty_whenHashIsMalformed() {
+        // When
+        Optional<ImageBlob> result = imageService.getImageByHash("../../etc/passwd");
+
+        // Then
+        assertThat(result).isEmpty();
+        verify(postImageRepository, never()).findBlobByHash(any());
+    }
+
+    @Test
+    void getPostImageContent_shouldServeFromCache_withoutTouchingDatabase() {
+        // Given
+        Long postId = 1L;
+        ImageContent cached = ImageContent.of(new byte[]{1, 2, 3}, "image/jpeg", "abc");
+        when(imageCache.get("post:1")).thenReturn(Optional.of(cached));
+
+        // When
+        Optional<ImageContent> result = imageService.getPostImageContent(postId);
+
+        // Then
+        assertThat(result).contains(cached);
+        verifyNoInteractions(postImageRepository);
+    }
+
+    @Test
+    void getPostImageContent_shouldLoadAndCache_onMiss() {
+        // Given
+        Long postId = 1L;
+        ImageContent loaded = ImageContent.of(testPostImage.getData(), "image/jpeg", null);
+        when(imageCache.get("post:1")).thenReturn(Optional.empty());
+        when(imageCache.generation()).thenReturn(7L);
+        when(postImageRepository.findByPostId(postId)).thenReturn(Optional.of(testPostImage));
+        when(imageCache.put("post:1", testPostImage.getData(), "image/jpeg", null, 7L)).thenReturn(loaded);
+
+        // When
+        Optional<ImageContent> result = imageService.getPostImageContent(postId);
+
+        // Then
+        assertThat(result).contains(loaded);
+    }
+
+    @Test
+    void getPostImageContent_shouldReturnEmpty_whenPostHasNoImage() {
+        // Given
+        Long postId = 1L;
+        when(imageCache.get("post:1")).thenReturn(Optional.empty());
+        when(postImageRepository.findByPostId(postId)).thenReturn(Optional.empty());
+
+        // When
+        Optional<ImageContent> result = imageService.getPostImageContent(postId);
+
+        // Then
+        assertThat(result).isEmpty();
+        verify(imageCache, never()).put(any(), any(), any(), any(), anyLong());
+    }
+
+    @Test
+    void getPostImageVariantContent_shouldNotCache_whenVariantIsResizedOnTheFly() {
+        // Given
+        Long postId = 1L;
+        PostImageVariant variant = new PostImageVariant(postId, 200, new byte[]{1}, "image/jpeg", 1L);
+        when(thumbnailService.resolveWidth(150)).thenReturn(200);
+        when(imageCache.get("post:1:w200")).thenReturn(Optional.empty());
+        when(thumbnailService.findVariant(postId, 200)).thenReturn(Optional.empty());
+        when(postImageRepository.findByPostId(postId)).thenReturn(Optional.of(testPostImage));
+        when(thumbnailService.createVariant(testPostImage, 200)).thenReturn(variant);
+
+        // When
+        Optional<ImageContent> result = imageService.getPostImageVariantContent(postId, 150);
+
+        // Then
+        assertThat(result).isPresent();
+        assertThat(result.get().size()).isEqualTo(1);
+        verify(imageCache, never()).put(any(), any(), any(), any(), anyLong());
+    }
+
+    @Test
+    void getPostImageMeta_shouldReturnMetadata_withoutLoadingBytes() {
+        // Given
+        Long postId = 1L;
+        ImageMetaResponse meta = new ImageMetaResponse(postId, "test.jpg", "image/jpeg", 5L, "abc");
+        when(postImageRepository.findMetaByPostId(postId)).thenReturn(Optional.of(testPostImage));
+        when(imageMapper.toMetaDto(testPostImage)).thenReturn(meta);
+
+        // When
+        ResponseEntity<ImageMetaResponse> result = imageService.getPostImageMeta(postId);
+
+        // Then
+        assertThat(result.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(result.getBody()).isEqualTo(meta);
+        verify(postImageRepository, never()).findByPostId(any());
+    }
+
+    @Test
+    void getPostImageMeta_shouldReturnNotFound_whenPostHasNoImage() {
+        // Given
+        Long postId = 1L;
+        when(postImageRepository.findMetaByPostId(postId)).thenReturn(Optional.empty());
+
+        // When
+        ResponseEntity<ImageMetaResponse> result = imageService.getPostImageMeta(postId);
+
+        // Then
+        assertThat(result.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
+    @Test
+    void storeImage_shouldStreamFileIntoRepository(@TempDir Path directory) throws IOException {
+        // Given
+        Long postId = 1L;
+        Path file = Files.write(directory.resolve("upload.part"), new byte[]{1, 2, 3});
+        when(postRepository.findPostById(postId)).thenReturn(testPost);
+
+        // When
+        ResponseEntity<Void> result = imageService.storeImage(postId, file, "abc", "image/png", "big.png");
+
+        // Then
+        assertThat(result.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
+        ArgumentCaptor<PostImage> captor = ArgumentCaptor.forClass(PostImage.class);
+        verify(postImageRepository).save(captor.capture(), any(InputStream.class), eq(3L));
+        assertThat(captor.getValue().getHash()).isEqualTo("abc");
+        assertThat(captor.getValue().getSizeBytes()).isEqualTo(3L);
+        assertThat(captor.getValue().getData()).isNull();
+        verify(thumbnailService).deleteVariants(postId);
+        verify(imageCache).invalidatePost(postId);
+    }
+
+    @Test
+    void storeImage_shouldRejectUnparseableContentType(@TempDir Path directory) throws IOException {
+        // Given
+        Path file = Files.write(directory.resolve("upload.part"), new byte[]{1, 2, 3});
+
+        // When
+        ResponseEntity<Void> result = imageService.storeImage(1L, file, "abc", "foo", "big.png");
+
+        // Then
+        assertThat(result.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        verify(postImageRepository, never()).save(any(), any(InputStream.class), anyLong());
+    }
+}
@@ -0,0 +1,117 @@
+package com.my.blog.project.myblogonboot.myblog.service;
+
+import com.my.blog.project.myblogonboot.myblog.dto.post.PostResponse;
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PostResponseCacheTest {
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+
+    @Test
+    void put_shouldStoreJsonAndGzip() throws IOException {
+        // Given
+        PostResponseCache cache = new PostResponseCache(jsonMapper, 1 << 20, 1024);
+        PostResponse post = post(1L, "Text ".repeat(500));
+
+        // When
+        cache.put(1L, post, cache.generation(1L));
+
+        // Then
+        SerializedPost cached = cache.get(1L).orElseThrow();
+        assertThat(cached.json()).isEqualTo(jsonMapper.writeValueAsBytes(post));
+        assertThat(cached.gzip()).isNotNull().hasSizeLessThan(cached.json().length);
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(cached.gzip()))) {
+            assertThat(gzip.readAllBytes()).isEqualTo(cached.json());
+        }
+        assertThat(cache.usedBytes()).isEqualTo(cached.size());
+    }
+
+    @Test
+    void put_shouldSkipGzip_forSmallResponses() {
+        // Given
+        PostResponseCache cache = new PostResponseCache(jsonMapper, 1 << 20, 1024);
+
+        // When
+        SerializedPost stored = cache.put(1L, post(1L, "Short"), cache.generation(1L));
+
+        // Then
+        assertThat(stored.gzip()).isNull();
+        assertThat(cache.get(1L)).isPresent();
+    }
+
+    @Test
+    void put_shouldDropResponse_whenPostChangedWhileLoading() {
+        // Given
+        PostResponseCache cache = new PostResponseCache(jsonMapper, 1 << 20, 1024);
+        long generation = cache.generation(1L);
+
+        // When
+        cache.invalidate(1L);
+        SerializedPost stored = cache.put(1L, post(1L, "Before the write"), generation);
+
+        // Then
+        assertThat(stored.json()).isNotEmpty();
+        assertThat(cache.get(1L)).isEmpty();
+        assertThat(cache.missCount()).isEqualTo(1);
+    }
+
+    @Test
+    void put_shouldKeepResponse_whenAnotherPostChangedWhileLoading() {
+        // Given
+        PostResponseCache cache = new PostResponseCache(jsonMapper, 1 << 20, 1024);
+        long generation = cache.generation(1L);
+
+        // When
+        cache.invalidate(2L);
+        cache.put(1L, post(1L, "Unrelated write"), generation);
+
+        // Then
+        assertThat(cache.get(1L)).isPresent();
+    }
+
+    @Test
+    void invalidate_shouldRemoveOnlyThatPost() {
+        // Given
+        PostResponseCache cache = new PostResponseCache(jsonMapper, 1 << 20, 1024);
+        cache.put(1L, post(1L, "First"), cache.generation(1L));
+        cache.put(2L, post(2L, "Second"), cache.generation(2L));
+
+        // When
+        cache.invalidate(1L);
+
+        // Then
+        assertThat(cache.get(1L)).isEmpty();
+        assertThat(cache.get(2L)).isPresent();
+        assertThat(cache.usedBytes()).isEqualTo(cache.get(2L).orElseThrow().size());
+    }
+
+    @Test
+    void put_shouldEvictLeastRecentlyUsed_whenBudgetIsExceeded() {
+        // Given
+        int size = jsonMapper.writeValueAsBytes(post(1L, "Text")).length;
+        PostResponseCache cache = new PostResponseCache(jsonMapper, 2L * size, 1024);
+        cache.put(1L, post(1L, "Text"), cache.generation(1L));
+        cache.put(2L, post(2L, "Text"), cache.generation(2L));
+        cache.get(1L);
+
+        // When
+        cache.put(3L, post(3L, "Text"), cache.generation(3L));
+
+        // Then
+        assertThat(cache.get(2L)).isEmpty();
+        assertThat(cache.get(1L)).isPresent();
+        assertThat(cache.get(3L)).isPresent();
+    }
+
+    private static PostResponse post(long id, String text) {
+        return new PostResponse(id, "Title", text, List.of("java"), 0, 0, false, null, null);
+    }
+}
@@ -4,7 +4,6 @@ import com.my.blog.project.myblogonboot.myblog.dto.post.PostRequest;
 import com.my.blog.project.myblogonboot.myblog.dto.post.PostResponse;
 import com.my.blog.project.myblogonboot.myblog.entity.Comment;
 import com.my.blog.project.myblogonboot.myblog.entity.Post;
-import com.my.blog.project.myblogonboot.myblog.entity.PostImage;
 import com.my.blog.project.myblogonboot.myblog.entity.Tag;
 import com.my.blog.project.myblogonboot.myblog.mapper.PostMapper;
 import com.my.blog.project.myblogonboot.myblog.repository.CommentRepository;
@@ -16,19 +15,19 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Optional;
 import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -52,6 +51,18 @@ class PostServiceTest {
     @Mock
     private SearchQueryBuilder queryBuilder;
 
+    @Mock
+    private ImageCache imageCache;
+
+    @Mock
+    private BlogMetrics blogMetrics;
+
+    @Mock
+    private PostResponseCache postResponseCache;
+
+    @Spy
+    private SingleFlight singleFlight = new SingleFlight(Duration.ofSeconds(1), true);
+
     @InjectMocks
     private PostService postService;
 
@@ -84,12 +95,11 @@ class PostServiceTest {
     void savePost_shouldCreatePostWithTags() {
         // Given
         when(postMapper.toEntity(postRequest)).thenReturn(testPost);
-        when(tagRepository.findByNameIgnoreCase("Java")).thenReturn(Optional.of(tag1));
-        when(tagRepository.findByNameIgnoreCase("Spring")).thenReturn(Optional.of(tag2));
+        when(tagRepository.findByNamesIgnoreCase(anyCollection())).thenReturn(List.of(tag1, tag2));
         when(postRepository.save(any(Post.class))).thenReturn(testPost);
 
         PostResponse expectedResponse = new PostResponse(1L, "Test Post", "Test Content",
-                List.of("Java", "Spring"), 0, 0);
+                List.of("Java", "Spring"), 0, 0, false, null, null);
         when(postMapper.toDto(testPost)).thenReturn(expectedResponse);
 
         // When
@@ -100,20 +110,20 @@ class PostServiceTest {
         assertThat(result.title()).isEqualTo("Test Post");
         assertThat(result.tags()).containsExactlyInAnyOrder("Java", "Spring");
         verify(postRepository).save(any(Post.class));
-        verify(tagRepository, times(2)).findByNameIgnoreCase(anyString());
+        verify(tagRepository).findByNamesIgnoreCase(anyCollection());
+        verify(tagRepository, never()).saveAll(anyCollection());
     }
 
     @Test
     void savePost_shouldCreateNewTags_whenTagsDoNotExist() {
         // Given
         when(postMapper.toEntity(postRequest)).thenReturn(testPost);
-        when(tagRepository.findByNameIgnoreCase("Java")).thenReturn(Optional.empty());
-        when(tagRepository.findByNameIgnoreCase("Spring")).thenReturn(Optional.empty());
-        when(tagRepository.save(any(Tag.class))).thenReturn(tag1, tag2);
+        when(tagRepository.findByNamesIgnoreCase(anyCollection())).thenReturn(List.of());
+        when(tagRepository.saveAll(anyCollection())).thenReturn(List.of(tag1, tag2));
         when(postRepository.save(any(Post.class))).thenReturn(testPost);
 
         PostResponse expectedResponse = new PostResponse(1L, "Test Post", "Test Content",
-                List.of("Java", "Spring"), 0, 0);
+                List.of("Java", "Spring"), 0, 0, false, null, null);
         when(postMapper.toDto(testPost)).thenReturn(expectedResponse);
 
         // When
@@ -121,7 +131,8 @@ class PostServiceTest {
 
         // Then
         assertThat(result).isNotNull();
-        verify(tagRepository, times(2)).save(any(Tag.class));
+        verify(tagRepository).saveAll(argThat(names -> names.size() == 2
+                && names.containsAll(List.of("Java", "Spring"))));
         verify(postRepository).save(any(Post.class));
     }
 
@@ -133,11 +144,11 @@ class PostServiceTest {
                 List.of("Java"));
 
         when(postRepository.findPostById(postId)).thenReturn(testPost);
-        when(tagRepository.findByNameIgnoreCase("Java")).thenReturn(Optional.of(tag1));
+        when(tagRepository.findByNamesIgnoreCase(anyCollection())).thenReturn(List.of(tag1));
         when(postRepository.save(any(Post.class))).thenReturn(testPost);
 
         PostResponse expectedResponse = new PostResponse(1L, "Updated Title", "Updated Content",
-                List.of("Java"), 0, 0);
+                List.of("Java"), 0, 0, false, null, null);
         when(postMapper.toDto(testPost)).thenReturn(expectedResponse);
 
         // When
@@ -173,12 +184,9 @@ class PostServiceTest {
         comments.add(new Comment(1L, postId, "Comment 1"));
         comments.add(new Comment(2L, postId, "Comment 2"));
 
-        PostImage postImage = new PostImage();
-        postImage.setPostId(postId);
-
         when(postRepository.findPostById(postId)).thenReturn(testPost);
         when(commentRepository.findByPostIdOrderByIdAsc(postId)).thenReturn(comments);
-        when(postImageRepository.findByPostId(postId)).thenReturn(Optional.of(postImage));
+        when(postImageRepository.deleteByPostId(postId)).thenReturn(true);
 
         // When
         ResponseEntity<Void> result = postService.deletePost(postId);
@@ -186,8 +194,10 @@ class PostServiceTest {
         // Then
         assertThat(result.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
         verify(commentRepository).deleteAll(comments);
-        verify(postImageRepository).delete(postImage);
+        verify(postImageRepository).deleteByPostId(postId);
+        verify(postImageRepository, never()).findByPostId(any());
         verify(postRepository).delete(testPost);
+        verify(imageCache).invalidatePost(postId);
     }
 
     @Test
@@ -210,7 +220,7 @@ class PostServiceTest {
         // Given
         long postId = 1L;
         PostResponse expectedResponse = new PostResponse(1L, "Test Post", "Test Content",
-                List.of("Java", "Spring"), 0, 0);
+                List.of("Java", "Spring"), 0, 0, false, null, null);
 
         when(postRepository.findPostById(postId)).thenReturn(testPost);
         when(postMapper.toDto(testPost)).thenReturn(expectedResponse);
@@ -240,6 +250,7 @@ class PostServiceTest {
         assertThat(result).isEqualTo(expectedLikes);
         verify(postRepository).incrementLikes(postId);
         verify(postRepository).getCurrentLikes(postId);
+        verify(blogMetrics).likeAdded();
     }
 
 }
@@ -12,8 +12,11 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
 
+import java.time.Duration;
 import java.util.HashSet;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -32,6 +35,15 @@ class CommentServiceUpdateCommentTest {
     @Mock
     private CommentMapper commentMapper;
 
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private PostResponseCache postResponseCache;
+
+    @Spy
+    private SingleFlight singleFlight = new SingleFlight(Duration.ofSeconds(1), true);
+
     @InjectMocks
     private CommentService commentService;
 
@@ -63,7 +75,7 @@ class CommentServiceUpdateCommentTest {
 
         CommentResponse expectedResponse = new CommentResponse(1L, "Updated comment text", 1L);
 
-        when(postRepository.findPostById(postId)).thenReturn(testPost);
+        when(postRepository.existsById(postId)).thenReturn(true);
         when(commentRepository.findByPostIdAndId(postId, commentId)).thenReturn(testComment);
         when(commentRepository.save(any(Comment.class))).thenReturn(testComment);
         when(commentMapper.toDto(testComment)).thenReturn(expectedResponse);
@@ -89,7 +101,7 @@ class CommentServiceUpdateCommentTest {
 
         CommentResponse expectedResponse = new CommentResponse(1L, "Updated text", 1L);
 
-        when(postRepository.findPostById(postId)).thenReturn(testPost);
+        when(postRepository.existsById(postId)).thenReturn(true);
         when(commentRepository.findByPostIdAndId(postId, commentId)).thenReturn(testComment);
         when(commentRepository.save(any(Comment.class))).thenReturn(testComment);
         when(commentMapper.toDto(testComment)).thenReturn(expectedResponse);
@@ -115,7 +127,7 @@ class CommentServiceUpdateCommentTest {
 
         // Then
         assertThat(result).isNull();
-        verify(postRepository, never()).findPostById(any());
+        verify(postRepository, never()).existsById(any());
         verify(commentRepository, never()).save(any());
     }
 
@@ -131,7 +143,7 @@ class CommentServiceUpdateCommentTest {
 
         // Then
         assertThat(result).isNull();
-        verify(postRepository, never()).findPostById(any());
+        verify(postRepository, never()).existsById(any());
         verify(commentRepository, never()).save(any());
     }
 
@@ -147,7 +159,7 @@ class CommentServiceUpdateCommentTest {
 
         // Then
         assertThat(result).isNull();
-        verify(postRepository, never()).findPostById(any());
+        verify(postRepository, never()).existsById(any());
         verify(commentRepository, never()).save(any());
     }
 
@@ -158,14 +170,14 @@ class CommentServiceUpdateCommentTest {
         Long commentId = 1L;
         CommentRequest request = new CommentRequest("Updated text");
 
-        when(postRepository.findPostById(postId)).thenReturn(null);
+        when(postRepository.existsById(postId)).thenReturn(false);
 
         // When
         CommentResponse result = commentService.updatePostComment(postId, commentId, request);
 
         // Then
         assertThat(result).isNull();
-        verify(postRepository).findPostById(postId);
+        verify(postRepository).existsById(postId);
         verify(commentRepository, never()).findByPostIdAndId(any(), any());
         verify(commentRepository, never()).save(any());
     }
@@ -177,7 +189,7 @@ class CommentServiceUpdateCommentTest {
         Long commentId = 999L;
         CommentRequest request = new CommentRequest("Updated text");
 
-        when(postRepository.findPostById(postId)).thenReturn(testPost);
+        when(postRepository.existsById(postId)).thenReturn(true);
         when(commentRepository.findByPostIdAndId(postId, commentId)).thenReturn(null);
 
         // When
@@ -185,7 +197,7 @@ class CommentServiceUpdateCommentTest {
 
         // Then
         assertThat(result).isNull();
-        verify(postRepository).findPostById(postId);
+        verify(postRepository).existsById(postId);
         verify(commentRepository).findByPostIdAndId(postId, commentId);
         verify(commentRepository, never()).save(any());
     }
@@ -197,7 +209,7 @@ class CommentServiceUpdateCommentTest {
         Long commentId = 1L;
         CommentRequest request = new CommentRequest("Updated text");
 
-        when(postRepository.findPostById(postId)).thenReturn(testPost);
+        when(postRepository.existsById(postId)).thenReturn(true);
         when(commentRepository.findByPostIdAndId(postId, commentId)).thenReturn(null);
 
         // When
@@ -0,0 +1,143 @@
+package com.my.blog.project.myblogonboot.myblog.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightTest {
+
+    @Test
+    void load_shouldShareOneFetch_betweenConcurrentCallers() throws Exception {
+        // Given
+        SingleFlight singleFlight = new SingleFlight(Duration.ofSeconds(5), true);
+        AtomicInteger fetches = new AtomicInteger();
+        CountDownLatch fetchStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        // When
+        List<Future<String>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            results.add(executor.submit(() -> singleFlight.load("post:1", () -> {
+                fetches.incrementAndGet();
+                fetchStarted.countDown();
+                await(release);
+                return "post";
+            })));
+            assertThat(fetchStarted.await(5, TimeUnit.SECONDS)).isTrue();
+            for (int i = 0; i < 10; i++) {
+                results.add(executor.submit(() -> singleFlight.load("post:1", () -> {
+                    fetches.incrementAndGet();
+                    return "own fetch";
+                })));
+            }
+            while (singleFlight.sharedCount() < 10) {
+                Thread.sleep(1);
+            }
+            release.countDown();
+        }
+
+        // Then
+        for (Future<String> result : results) {
+            assertThat(result.get()).isEqualTo("post");
+        }
+        assertThat(fetches).hasValue(1);
+        assertThat(singleFlight.leaderCount()).isEqualTo(1);
+    }
+
+    @Test
+    void load_shouldStartFreshFetch_afterInvalidate() throws Exception {
+        // Given
+        SingleFlight singleFlight = new SingleFlight(Duration.ofSeconds(5), true);
+        CountDownLatch fetchStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<String> before = executor.submit(() -> singleFlight.load("comments:1", () -> {
+                fetchStarted.countDown();
+                await(release);
+                return "before write";
+            }));
+            assertThat(fetchStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+            // When
+            singleFlight.invalidatePost(1L);
+            String after = singleFlight.load("comments:1", () -> "after write");
+            release.countDown();
+
+            // Then
+            assertThat(after).isEqualTo("after write");
+            assertThat(before.get()).isEqualTo("before write");
+        }
+    }
+
+    @Test
+    void load_shouldFetchItself_whenSharedFetchTakesTooLong() throws Exception {
+        // Given
+        SingleFlight singleFlight = new SingleFlight(Duration.ofMillis(50), true);
+        CountDownLatch fetchStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            executor.submit(() -> singleFlight.load("image:1", () -> {
+                fetchStarted.countDown();
+                await(release);
+                return "slow";
+            }));
+            assertThat(fetchStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+            // When
+            String result = singleFlight.load("image:1", () -> "own fetch");
+            release.countDown();
+
+            // Then
+            assertThat(result).isEqualTo("own fetch");
+            assertThat(singleFlight.timeoutCount()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void load_shouldPassFailureToWaitingCallers() throws Exception {
+        // Given
+        SingleFlight singleFlight = new SingleFlight(Duration.ofSeconds(5), true);
+        CountDownLatch fetchStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            executor.submit(() -> singleFlight.load("post:2", () -> {
+                fetchStarted.countDown();
+                await(release);
+                throw new IllegalStateException("database down");
+            }));
+            assertThat(fetchStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+            // When
+            Future<Object> waiting = executor.submit(() -> singleFlight.load("post:2", () -> "own fetch"));
+            while (singleFlight.sharedCount() < 1) {
+                Thread.sleep(1);
+            }
+            release.countDown();
+
+            // Then
+            assertThatThrownBy(waiting::get).hasRootCauseMessage("database down");
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
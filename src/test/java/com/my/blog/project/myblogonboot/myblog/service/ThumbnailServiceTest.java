@@ -0,0 +1,127 @@
+package com.my.blog.project.myblogonboot.myblog.service;
+
+import com.my.blog.project.myblogonboot.myblog.entity.PostImage;
+import com.my.blog.project.myblogonboot.myblog.entity.PostImageVariant;
+import com.my.blog.project.myblogonboot.myblog.repository.PostImageVariantRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ThumbnailServiceTest {
+
+    @Mock
+    private PostImageVariantRepository variantRepository;
+
+    private ThumbnailService thumbnailService;
+
+    @BeforeEach
+    void setUp() {
+        thumbnailService = new ThumbnailService(variantRepository, new int[]{800, 200, 400}, 1, 10);
+    }
+
+    @AfterEach
+    void tearDown() {
+        thumbnailService.shutdown();
+    }
+
+    @Test
+    void resolveWidth_shouldSnapToConfiguredWidths() {
+        assertThat(thumbnailService.resolveWidth(50)).isEqualTo(200);
+        assertThat(thumbnailService.resolveWidth(200)).isEqualTo(200);
+        assertThat(thumbnailService.resolveWidth(201)).isEqualTo(400);
+        assertThat(thumbnailService.resolveWidth(5000)).isEqualTo(800);
+    }
+
+    @Test
+    void resize_shouldKeepAspectRatio() throws IOException {
+        // Given
+        byte[] source = png(1000, 500);
+
+        // When
+        Optional<byte[]> resized = thumbnailService.resize(source, "image/png", 200);
+
+        // Then
+        assertThat(resized).isPresent();
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(resized.get()));
+        assertThat(image.getWidth()).isEqualTo(200);
+        assertThat(image.getHeight()).isEqualTo(100);
+    }
+
+    @Test
+    void resize_shouldReturnEmpty_whenImageIsAlreadyNarrower() throws IOException {
+        assertThat(thumbnailService.resize(png(150, 100), "image/png", 200)).isEmpty();
+    }
+
+    @Test
+    void resize_shouldReturnEmpty_whenDataIsNotAnImage() {
+        assertThat(thumbnailService.resize("fake image content".getBytes(), "image/jpeg", 200)).isEmpty();
+    }
+
+    @Test
+    void createVariant_shouldStoreResizedImage() throws IOException {
+        // Given
+        PostImage original = new PostImage(1L, png(1000, 500), "image/png", 0L, "test.png", "hash");
+        when(variantRepository.saveIfCurrent(any(PostImageVariant.class), eq("hash"))).thenReturn(true);
+
+        // When
+        PostImageVariant variant = thumbnailService.createVariant(original, 400);
+
+        // Then
+        assertThat(variant.getWidth()).isEqualTo(400);
+        assertThat(variant.getContentType()).isEqualTo("image/png");
+        assertThat(variant.getSizeBytes()).isEqualTo(variant.getData().length);
+        verify(variantRepository).saveIfCurrent(variant, "hash");
+    }
+
+    @Test
+    void createVariant_shouldServeResizedImage_whenOriginalWasReplaced() throws IOException {
+        // Given
+        PostImage original = new PostImage(1L, png(1000, 500), "image/png", 0L, "test.png", "stale");
+        when(variantRepository.saveIfCurrent(any(PostImageVariant.class), eq("stale"))).thenReturn(false);
+
+        // When
+        PostImageVariant variant = thumbnailService.createVariant(original, 400);
+
+        // Then
+        assertThat(variant.getWidth()).isEqualTo(400);
+        assertThat(ImageIO.read(new ByteArrayInputStream(variant.getData())).getWidth()).isEqualTo(400);
+        verify(variantRepository, never()).save(any());
+    }
+
+    @Test
+    void createVariant_shouldFallBackToOriginal_whenImageCannotBeResized() {
+        // Given
+        byte[] data = "fake image content".getBytes();
+        PostImage original = new PostImage(1L, data, "image/jpeg", (long) data.length, "test.jpg", null);
+
+        // When
+        PostImageVariant variant = thumbnailService.createVariant(original, 200);
+
+        // Then
+        assertThat(variant.getData()).isEqualTo(data);
+        assertThat(variant.getContentType()).isEqualTo("image/jpeg");
+        verify(variantRepository, never()).save(any());
+        verify(variantRepository, never()).saveIfCurrent(any(), any());
+    }
+
+    private byte[] png(int width, int height) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB), "png", out);
+        return out.toByteArray();
+    }
+}